@@ -41,6 +41,21 @@ public interface IStackWatcher {
      */
     boolean add(IAEStack<?> stack);
 
+    /**
+     * Add a specific {@link IAEStack} to watch, but only be notified when its stored amount crosses the threshold, that
+     * is, goes from below the threshold to at least the threshold or the other way around.
+     *
+     * Supports multiple values, duplicate ones will not be added. Watchers that do not support thresholds are notified
+     * about every change instead.
+     *
+     * @param stack
+     * @param threshold
+     * @return true, if successfully added.
+     */
+    default boolean add(IAEStack<?> stack, long threshold) {
+        return this.add(stack);
+    }
+
     /**
      * Remove a specific {@link IAEStack} from the watcher.
      *
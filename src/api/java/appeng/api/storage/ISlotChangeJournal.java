@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 TeamAppliedEnergistics
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package appeng.api.storage;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Lets storage buses find out which slots of an item handler changed, instead of comparing every slot of it on every
+ * update. Inventories with a lot of slots should offer this as a capability, on the same sides as their item handler.
+ * <p/>
+ * To get access to the capability for this, use @CapabilityInject with this interface as the argument to the
+ * annotation.
+ */
+public interface ISlotChangeJournal {
+
+    /**
+     * @return a number that increases every time a slot changes.
+     */
+    long getChangeVersion();
+
+    /**
+     * Reports every slot that changed after the given version, in any order, and possibly more than once.
+     *
+     * @param sinceVersion a value previously returned by {@link #getChangeVersion()}
+     * @param slots        receives the changed slots
+     * @return false if the changes since that version are not known anymore, the caller then has to check every slot.
+     */
+    boolean getChangedSlots(long sinceVersion, IntConsumer slots);
+}
@@ -28,6 +28,9 @@
 /**
  * Tells the cell provider that changes have been made an the cell must be persisted
  *
+ * The provider does not have to call {@link ICellInventory#persist()} right away. Cells only rewrite what changed since
+ * the last call, so deferring it (i.e. until the cell item is accessed or the provider is saved) coalesces all changes
+ * made in the meantime.
  */
 public interface ISaveProvider {
     /**
@@ -25,6 +25,7 @@
 import net.minecraftforge.common.capabilities.CapabilityManager;
 import net.minecraftforge.energy.IEnergyStorage;
 
+import appeng.api.storage.ISlotChangeJournal;
 import appeng.api.storage.IStorageMonitorableAccessor;
 
 /**
@@ -37,6 +38,8 @@ private Capabilities() {
 
     public static Capability<IStorageMonitorableAccessor> STORAGE_MONITORABLE_ACCESSOR;
 
+    public static Capability<ISlotChangeJournal> SLOT_CHANGE_JOURNAL;
+
     public static Capability<IEnergyStorage> FORGE_ENERGY;
 
     /**
@@ -45,6 +48,8 @@ private Capabilities() {
     public static void register() {
         CapabilityManager.INSTANCE.register(IStorageMonitorableAccessor.class, createNullStorage(),
                 NullMENetworkAccessor::new);
+        CapabilityManager.INSTANCE.register(ISlotChangeJournal.class, createNullStorage(),
+                NullSlotChangeJournal::new);
     }
 
     @CapabilityInject(IStorageMonitorableAccessor.class)
@@ -52,6 +57,11 @@ private static void capIStorageMonitorableAccessorRegistered(Capability<IStorage
         STORAGE_MONITORABLE_ACCESSOR = cap;
     }
 
+    @CapabilityInject(ISlotChangeJournal.class)
+    private static void capISlotChangeJournalRegistered(Capability<ISlotChangeJournal> cap) {
+        SLOT_CHANGE_JOURNAL = cap;
+    }
+
     @CapabilityInject(IEnergyStorage.class)
     private static void capIEnergyStorageRegistered(Capability<IEnergyStorage> cap) {
         FORGE_ENERGY = cap;
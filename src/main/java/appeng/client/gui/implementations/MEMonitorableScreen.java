@@ -105,6 +105,7 @@ public MEMonitorableScreen(T container, PlayerInventory playerInventory, ITextCo
         final Scrollbar scrollbar = new Scrollbar();
         this.setScrollBar(scrollbar);
         this.repo = new ItemRepo(scrollbar, this);
+        this.repo.setViewListener(this::setScrollBar);
         setScrollBar();
 
         this.xSize = 185;
@@ -56,6 +56,7 @@ public NetworkStatusScreen(NetworkStatusContainer container, PlayerInventory pla
 
         this.setScrollBar(scrollbar);
         this.repo = new ItemRepo(scrollbar, this);
+        this.repo.setViewListener(this::setScrollBar);
         this.ySize = 153;
         this.xSize = 195;
         this.repo.setRowSize(5);
@@ -105,6 +106,13 @@ public void drawFG(MatrixStack matrixStack, final int offsetX, final int offsetY
             final int mouseY) {
         this.font.drawString(matrixStack, GuiText.NetworkDetails.getLocal(), 8, 6, 4210752);
 
+        if (container.getTickTime() >= 0) {
+            final String tickTime = GuiText.TickTime.getLocal() + ": "
+                    + String.format("%.2f ms", container.getTickTime() / 1_000_000.0);
+            this.font.drawString(matrixStack, tickTime, this.xSize - 8 - this.font.getStringWidth(tickTime), 6,
+                    4210752);
+        }
+
         this.font.drawString(matrixStack,
                 GuiText.StoredPower.getLocal() + ": " + Platform.formatPowerLong(container.getCurrentPower(), false),
                 13, 16, 4210752);
@@ -20,7 +20,16 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
@@ -29,6 +38,7 @@
 import net.minecraft.util.text.ITextComponent;
 
 import appeng.api.config.SearchBoxMode;
+import appeng.api.config.SortDir;
 import appeng.api.config.SortOrder;
 import appeng.api.config.ViewItems;
 import appeng.api.config.YesNo;
@@ -38,18 +48,46 @@
 import appeng.client.gui.widgets.IScrollSource;
 import appeng.client.gui.widgets.ISortSource;
 import appeng.core.AEConfig;
+import appeng.core.AELog;
 import appeng.core.Api;
 import appeng.integration.abstraction.JEIFacade;
 import appeng.items.storage.ViewCellItem;
-import appeng.util.ItemSorters;
 import appeng.util.Platform;
 import appeng.util.prioritylist.IPartitionList;
 
+/**
+ * The client side list of a terminal and the filtered, sorted view of it that is shown.
+ * <p>
+ * Names, mod ids and tooltips are resolved once per item type. As long as the search and sort settings stay the same,
+ * updates from the server are sorted into the existing view. Everything else rebuilds the view, which happens on a
+ * background thread for large lists; the previous view stays visible until the new one is swapped in.
+ */
 public class ItemRepo {
 
+    /**
+     * Lists up to this size are filtered and sorted right away.
+     */
+    private static final int ASYNC_THRESHOLD = 1000;
+
+    /**
+     * Beyond this many changed item types, rebuilding the view is cheaper than patching it.
+     */
+    private static final int INCREMENTAL_LIMIT = 256;
+
+    private static final ExecutorService SEARCH_THREAD = Executors.newSingleThreadExecutor(r -> {
+        final Thread search = new Thread(r, "AE Terminal Search");
+        search.setDaemon(true);
+        return search;
+    });
+
     private final IItemList<IAEItemStack> list = Api.instance().storage().getStorageChannel(IItemStorageChannel.class)
             .createList();
-    private final ArrayList<IAEItemStack> view = new ArrayList<>();
+    private final Map<IAEItemStack, ItemInfo> infos = new HashMap<>();
+    private final Set<IAEItemStack> changed = new HashSet<>();
+    private View view = new View(new ArrayList<>());
+    private ViewQuery query;
+    private Future<View> pendingView;
+    private Runnable viewListener;
     private final IScrollSource src;
     private final ISortSource sortSrc;
 
@@ -57,7 +95,6 @@ public class ItemRepo {
 
     private String searchString = "";
     private IPartitionList<IAEItemStack> myPartitionList;
-    private String innerSearch = "";
     private boolean hasPower;
 
     public ItemRepo(final IScrollSource src, final ISortSource sortSrc) {
@@ -66,12 +103,14 @@ public ItemRepo(final IScrollSource src, final ISortSource sortSrc) {
     }
 
     public IAEItemStack getReferenceItem(int idx) {
+        this.applyPendingView();
+
         idx += this.src.getCurrentScroll() * this.rowSize;
 
-        if (idx >= this.view.size()) {
+        if (idx >= this.view.entries.size()) {
             return null;
         }
-        return this.view.get(idx);
+        return this.view.entries.get(idx).stack;
     }
 
     void setSearch(final String search) {
@@ -87,6 +126,8 @@ public void postUpdate(final IAEItemStack is) {
         } else {
             this.list.add(is);
         }
+
+        this.changed.add(is);
     }
 
     public void setViewCell(final ItemStack[] list) {
@@ -94,14 +135,15 @@ public void setViewCell(final ItemStack[] list) {
         this.updateView();
     }
 
-    public void updateView() {
-        this.view.clear();
-
-        this.view.ensureCapacity(this.list.size());
+    /**
+     * Called whenever a view that was built in the background has been swapped in.
+     */
+    public void setViewListener(final Runnable viewListener) {
+        this.viewListener = viewListener;
+    }
 
-        ViewItems viewMode = this.sortSrc.getSortDisplay();
+    public void updateView() {
         SearchBoxMode searchMode = AEConfig.instance().getTerminalSearchMode();
-        final boolean needsZeroCopy = viewMode == ViewItems.CRAFTABLE;
 
         if (searchMode == SearchBoxMode.JEI_AUTOSEARCH || searchMode == SearchBoxMode.JEI_MANUAL_SEARCH
                 || searchMode == SearchBoxMode.JEI_AUTOSEARCH_KEEP
@@ -109,85 +151,168 @@ public void updateView() {
             this.updateJEI(this.searchString);
         }
 
-        this.innerSearch = this.searchString;
-        final boolean terminalSearchToolTips = AEConfig.instance().getSearchTooltips() != YesNo.NO;
-
-        boolean searchMod = false;
-        if (this.innerSearch.startsWith("@")) {
-            searchMod = true;
-            this.innerSearch = this.innerSearch.substring(1);
+        final ViewQuery query = ViewQuery.create(this.searchString, this.sortSrc, this.myPartitionList,
+                AEConfig.instance().getSearchTooltips() != YesNo.NO);
+        if (query == null) {
+            return;
         }
 
-        Pattern m = null;
-        try {
-            m = Pattern.compile(this.innerSearch.toLowerCase(), Pattern.CASE_INSENSITIVE);
-        } catch (final Throwable ignore) {
-            try {
-                m = Pattern.compile(Pattern.quote(this.innerSearch.toLowerCase()), Pattern.CASE_INSENSITIVE);
-            } catch (final Throwable __) {
+        if (this.query != null && this.query.isSameAs(query)) {
+            if (this.pendingView != null) {
+                // the changes are sorted in once the pending view arrives
+                return;
+            }
+
+            if (this.changed.size() <= INCREMENTAL_LIMIT) {
+                this.applyChanges();
                 return;
             }
         }
 
-        boolean notDone = false;
-        for (IAEItemStack is : this.list) {
-            if (this.myPartitionList != null) {
-                if (!this.myPartitionList.isListed(is)) {
-                    continue;
-                }
+        this.rebuildView(query);
+    }
+
+    private void rebuildView(final ViewQuery query) {
+        if (this.pendingView != null) {
+            this.pendingView.cancel(false);
+            this.pendingView = null;
+        }
+
+        this.query = query;
+        this.changed.clear();
+
+        final List<ViewEntry> candidates = new ArrayList<>(this.list.size());
+        for (final IAEItemStack is : this.list) {
+            final ViewEntry entry = this.createEntry(is);
+            if (entry != null) {
+                candidates.add(entry);
             }
+        }
+
+        if (candidates.size() <= ASYNC_THRESHOLD) {
+            this.view = query.createView(candidates);
+        } else {
+            this.pendingView = SEARCH_THREAD.submit(() -> query.createView(candidates));
+        }
+    }
 
-            if (viewMode == ViewItems.CRAFTABLE && !is.isCraftable()) {
+    private void applyPendingView() {
+        if (this.pendingView == null || !this.pendingView.isDone()) {
+            return;
+        }
+
+        final Future<View> finished = this.pendingView;
+        this.pendingView = null;
+
+        try {
+            this.view = finished.get();
+        } catch (final InterruptedException | ExecutionException e) {
+            AELog.debug(e);
+            this.query = null;
+            return;
+        }
+
+        if (this.changed.size() <= INCREMENTAL_LIMIT) {
+            this.applyChanges();
+        } else {
+            this.rebuildView(this.query);
+        }
+
+        if (this.viewListener != null) {
+            this.viewListener.run();
+        }
+    }
+
+    /**
+     * Moves every item type that changed since the view was built to its new place in the view.
+     */
+    private void applyChanges() {
+        for (final IAEItemStack type : this.changed) {
+            final ViewEntry previous = this.view.byType.remove(type);
+            if (previous != null) {
+                this.view.entries.remove(this.indexOf(previous));
+            }
+
+            final IAEItemStack is = this.list.findPrecise(type);
+            if (is == null || !is.isMeaningful()) {
                 continue;
             }
 
-            if (viewMode == ViewItems.STORED && is.getStackSize() == 0) {
+            final ViewEntry entry = this.createEntry(is);
+            if (entry == null || !this.query.matches(entry.info)) {
                 continue;
             }
 
-            final String dspName = searchMod ? Platform.getModId(is) : Platform.getItemDisplayName(is).getString();
-            boolean foundMatchingItemStack = false;
-            notDone = true;
+            final int idx = Collections.binarySearch(this.view.entries, entry, this.query.comparator);
+            this.view.entries.add(idx < 0 ? -idx - 1 : idx, entry);
+            this.view.byType.put(entry.stack, entry);
+        }
 
-            if (m.matcher(dspName.toLowerCase()).find()) {
-                notDone = false;
-                foundMatchingItemStack = true;
-            }
+        this.changed.clear();
+    }
 
-            if (terminalSearchToolTips && notDone && !searchMod) {
-                final List<ITextComponent> tooltip = Platform.getTooltip(is);
+    private int indexOf(final ViewEntry entry) {
+        final List<ViewEntry> entries = this.view.entries;
+        final int idx = Collections.binarySearch(entries, entry, this.query.comparator);
 
-                for (final ITextComponent line : tooltip) {
-                    if (m.matcher(line.getString()).find()) {
-                        foundMatchingItemStack = true;
-                        notDone = false;
-                        break;
-                    }
+        if (idx >= 0) {
+            // entries that sort the same can be anywhere around the one the search landed on
+            for (int i = idx; i >= 0 && this.query.comparator.compare(entries.get(i), entry) == 0; i--) {
+                if (entries.get(i) == entry) {
+                    return i;
                 }
             }
-
-            if (foundMatchingItemStack) {
-                if (needsZeroCopy) {
-                    is = is.copy();
-                    is.setStackSize(0);
+            for (int i = idx + 1; i < entries.size()
+                    && this.query.comparator.compare(entries.get(i), entry) == 0; i++) {
+                if (entries.get(i) == entry) {
+                    return i;
                 }
-
-                this.view.add(is);
             }
         }
 
-        final Enum SortBy = this.sortSrc.getSortBy();
-        final Enum SortDir = this.sortSrc.getSortDir();
+        return entries.indexOf(entry);
+    }
 
-        ItemSorters.setDirection((appeng.api.config.SortDir) SortDir);
+    /**
+     * Applies the parts of the query that do not depend on text and resolves everything the text search needs, so the
+     * rest can run on another thread.
+     *
+     * @return null if the item is hidden by the view mode or view cells.
+     */
+    private ViewEntry createEntry(final IAEItemStack is) {
+        if (this.query.partitions != null && !this.query.partitions.isListed(is)) {
+            return null;
+        }
 
-        if (SortBy == SortOrder.MOD) {
-            Collections.sort(this.view, ItemSorters.CONFIG_BASED_SORT_BY_MOD);
-        } else if (SortBy == SortOrder.AMOUNT) {
-            Collections.sort(this.view, ItemSorters.CONFIG_BASED_SORT_BY_SIZE);
-        } else {
-            Collections.sort(this.view, ItemSorters.CONFIG_BASED_SORT_BY_NAME);
+        if (this.query.viewMode == ViewItems.CRAFTABLE && !is.isCraftable()) {
+            return null;
+        }
+
+        if (this.query.viewMode == ViewItems.STORED && is.getStackSize() == 0) {
+            return null;
+        }
+
+        ItemInfo info = this.infos.get(is);
+        if (info == null) {
+            info = new ItemInfo(Platform.getItemDisplayName(is).getString(), Platform.getModId(is));
+            this.infos.put(is.copy(), info);
+        }
+
+        if (this.query.searchesTooltips() && info.tooltip == null) {
+            final List<ITextComponent> tooltip = Platform.getTooltip(is);
+            final List<String> lines = new ArrayList<>(tooltip.size());
+            for (final ITextComponent line : tooltip) {
+                lines.add(line.getString());
+            }
+            info.tooltip = lines;
         }
+
+        final IAEItemStack stack = is.copy();
+        if (this.query.viewMode == ViewItems.CRAFTABLE) {
+            stack.setStackSize(0);
+        }
+
+        return new ViewEntry(stack, info);
     }
 
     private void updateJEI(String filter) {
@@ -195,11 +320,14 @@ private void updateJEI(String filter) {
     }
 
     public int size() {
-        return this.view.size();
+        this.applyPendingView();
+
+        return this.view.entries.size();
     }
 
     public void clear() {
         this.list.resetStatus();
+        this.query = null;
     }
 
     public boolean hasPower() {
@@ -225,4 +353,149 @@ public String getSearchString() {
     public void setSearchString(@Nonnull final String searchString) {
         this.searchString = searchString;
     }
+
+    /**
+     * Everything the search and sorting need to know about an item type, resolved once.
+     */
+    private static final class ItemInfo {
+        private final String displayName;
+        private final String lowerDisplayName;
+        private final String modId;
+        private final String lowerModId;
+        private List<String> tooltip;
+
+        private ItemInfo(final String displayName, final String modId) {
+            this.displayName = displayName;
+            this.lowerDisplayName = displayName.toLowerCase();
+            this.modId = modId;
+            this.lowerModId = modId.toLowerCase();
+        }
+    }
+
+    private static final class ViewEntry {
+        private final IAEItemStack stack;
+        private final ItemInfo info;
+
+        private ViewEntry(final IAEItemStack stack, final ItemInfo info) {
+            this.stack = stack;
+            this.info = info;
+        }
+    }
+
+    private static final class View {
+        private final List<ViewEntry> entries;
+        private final Map<IAEItemStack, ViewEntry> byType = new HashMap<>();
+
+        private View(final List<ViewEntry> entries) {
+            this.entries = entries;
+
+            for (final ViewEntry entry : entries) {
+                this.byType.put(entry.stack, entry);
+            }
+        }
+    }
+
+    /**
+     * The search and sort settings a view was built with. Only reads immutable state, so views can be built on any
+     * thread.
+     */
+    private static final class ViewQuery {
+        private final String search;
+        private final ViewItems viewMode;
+        private final SortOrder sortBy;
+        private final SortDir sortDir;
+        private final IPartitionList<IAEItemStack> partitions;
+        private final boolean tooltips;
+        private final boolean searchMod;
+        private final Pattern pattern;
+        private final Comparator<ViewEntry> comparator;
+
+        private ViewQuery(final String search, final ISortSource sortSrc, final IPartitionList<IAEItemStack> partitions,
+                final boolean tooltips, final boolean searchMod, final Pattern pattern) {
+            this.search = search;
+            this.viewMode = sortSrc.getSortDisplay();
+            this.sortBy = sortSrc.getSortBy();
+            this.sortDir = sortSrc.getSortDir();
+            this.partitions = partitions;
+            this.tooltips = tooltips;
+            this.searchMod = searchMod;
+            this.pattern = pattern;
+
+            Comparator<ViewEntry> comparator;
+            if (this.sortBy == SortOrder.MOD) {
+                comparator = Comparator.<ViewEntry, String>comparing(e -> e.info.modId, String.CASE_INSENSITIVE_ORDER)
+                        .thenComparing(e -> e.info.displayName, String.CASE_INSENSITIVE_ORDER);
+            } else if (this.sortBy == SortOrder.AMOUNT) {
+                comparator = (o1, o2) -> Long.compare(o2.stack.getStackSize(), o1.stack.getStackSize());
+            } else {
+                comparator = Comparator.comparing(e -> e.info.displayName, String.CASE_INSENSITIVE_ORDER);
+            }
+            this.comparator = this.sortDir == SortDir.DESCENDING ? comparator.reversed() : comparator;
+        }
+
+        /**
+         * @return null if the search string is not usable at all.
+         */
+        private static ViewQuery create(final String search, final ISortSource sortSrc,
+                final IPartitionList<IAEItemStack> partitions, final boolean tooltips) {
+            String innerSearch = search;
+
+            boolean searchMod = false;
+            if (innerSearch.startsWith("@")) {
+                searchMod = true;
+                innerSearch = innerSearch.substring(1);
+            }
+
+            Pattern m = null;
+            try {
+                m = Pattern.compile(innerSearch.toLowerCase(), Pattern.CASE_INSENSITIVE);
+            } catch (final Throwable ignore) {
+                try {
+                    m = Pattern.compile(Pattern.quote(innerSearch.toLowerCase()), Pattern.CASE_INSENSITIVE);
+                } catch (final Throwable __) {
+                    return null;
+                }
+            }
+
+            return new ViewQuery(search, sortSrc, partitions, tooltips, searchMod, m);
+        }
+
+        private boolean isSameAs(final ViewQuery other) {
+            return this.search.equals(other.search) && this.viewMode == other.viewMode
+                    && this.sortBy == other.sortBy && this.sortDir == other.sortDir
+                    && this.partitions == other.partitions && this.tooltips == other.tooltips;
+        }
+
+        private boolean searchesTooltips() {
+            return this.tooltips && !this.searchMod && !this.pattern.pattern().isEmpty();
+        }
+
+        private boolean matches(final ItemInfo info) {
+            if (this.pattern.matcher(this.searchMod ? info.lowerModId : info.lowerDisplayName).find()) {
+                return true;
+            }
+
+            if (this.searchesTooltips()) {
+                for (final String line : info.tooltip) {
+                    if (this.pattern.matcher(line).find()) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        private View createView(final List<ViewEntry> candidates) {
+            final List<ViewEntry> entries = new ArrayList<>(candidates.size());
+            for (final ViewEntry entry : candidates) {
+                if (this.matches(entry.info)) {
+                    entries.add(entry);
+                }
+            }
+
+            entries.sort(this.comparator);
+            return new View(entries);
+        }
+    }
 }
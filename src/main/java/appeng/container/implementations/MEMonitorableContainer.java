@@ -18,8 +18,8 @@
 
 package appeng.container.implementations;
 
-import java.io.IOException;
-import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.Nonnull;
 
@@ -67,11 +67,11 @@
 import appeng.container.ContainerLocator;
 import appeng.container.guisync.GuiSync;
 import appeng.container.slot.RestrictedInputSlot;
-import appeng.core.AELog;
 import appeng.core.Api;
+import appeng.core.sync.ItemSyncSession;
 import appeng.core.sync.network.NetworkHandler;
 import appeng.core.sync.packets.ConfigValuePacket;
-import appeng.core.sync.packets.MEInventoryUpdatePacket;
+import appeng.core.sync.packets.MEInventorySyncPacket;
 import appeng.me.helpers.ChannelPowerSrc;
 import appeng.util.ConfigManager;
 import appeng.util.IConfigManagerHost;
@@ -81,6 +81,11 @@ public class MEMonitorableContainer extends AEBaseContainer
 
     public static ContainerType<MEMonitorableContainer> TYPE;
 
+    /**
+     * How much of the list queued when the terminal was opened is sent per tick.
+     */
+    private static final int ITEM_SYNC_BYTES_PER_TICK = 256 * 1024;
+
     private static final ContainerHelper<MEMonitorableContainer, ITerminalHost> helper = new ContainerHelper<>(
             MEMonitorableContainer::new, ITerminalHost.class);
 
@@ -111,6 +116,11 @@ public static boolean open(PlayerEntity player, ContainerLocator locator) {
     private IConfigManagerHost gui;
     private IConfigManager serverCM;
     private IGridNode networkNode;
+    /**
+     * What the client was sent on the server, what it received on the client.
+     */
+    private ItemSyncSession itemSync;
+    private boolean resetItemSync;
 
     public MEMonitorableContainer(int id, final PlayerInventory ip, final ITerminalHost monitorable) {
         this(TYPE, id, ip, monitorable, true);
@@ -213,35 +223,7 @@ public void detectAndSendChanges() {
                 }
             }
 
-            if (!this.items.isEmpty()) {
-                try {
-                    final IItemList<IAEItemStack> monitorCache = this.monitor.getStorageList();
-
-                    final MEInventoryUpdatePacket piu = new MEInventoryUpdatePacket();
-
-                    for (final IAEItemStack is : this.items) {
-                        final IAEItemStack send = monitorCache.findPrecise(is);
-                        if (send == null) {
-                            is.setStackSize(0);
-                            piu.appendItem(is);
-                        } else {
-                            piu.appendItem(send);
-                        }
-                    }
-
-                    if (!piu.isEmpty()) {
-                        this.items.resetStatus();
-
-                        for (final Object c : this.listeners) {
-                            if (c instanceof PlayerEntity) {
-                                NetworkHandler.instance().sendTo(piu, (ServerPlayerEntity) c);
-                            }
-                        }
-                    }
-                } catch (final IOException e) {
-                    AELog.debug(e);
-                }
-            }
+            this.sendItemSync();
 
             this.updatePowerStatus();
 
@@ -327,28 +309,70 @@ private void updateActiveCraftingJobs() {
 
     private void queueInventory(final IContainerListener c) {
         if (isServer() && c instanceof PlayerEntity && this.monitor != null) {
-            try {
-                MEInventoryUpdatePacket piu = new MEInventoryUpdatePacket();
-                final IItemList<IAEItemStack> monitorCache = this.monitor.getStorageList();
-
-                for (final IAEItemStack send : monitorCache) {
-                    try {
-                        piu.appendItem(send);
-                    } catch (final BufferOverflowException boe) {
-                        NetworkHandler.instance().sendTo(piu, (ServerPlayerEntity) c);
-
-                        piu = new MEInventoryUpdatePacket();
-                        piu.appendItem(send);
-                    }
-                }
+            // the whole list is sent over the next ticks, starting right away
+            this.itemSync = new ItemSyncSession();
+            this.itemSync.queueAll(this.monitor.getStorageList());
+            this.resetItemSync = true;
+            this.sendItemSync();
+        }
+    }
+
+    private void sendItemSync() {
+        if (this.itemSync == null || this.monitor == null) {
+            return;
+        }
+
+        final IItemList<IAEItemStack> monitorCache = this.monitor.getStorageList();
+
+        MEInventorySyncPacket packet = new MEInventorySyncPacket(this.windowId, this.resetItemSync);
+        this.resetItemSync = false;
+
+        for (final IAEItemStack is : this.items) {
+            packet.append(this.itemSync, is, monitorCache.findPrecise(is));
+
+            if (packet.getLength() >= MEInventorySyncPacket.PACKET_BYTE_LIMIT) {
+                this.sendToListeners(packet);
+                packet = new MEInventorySyncPacket(this.windowId, false);
+            }
+        }
+        this.items.resetStatus();
+
+        packet.appendQueued(this.itemSync, monitorCache, ITEM_SYNC_BYTES_PER_TICK);
+
+        if (!packet.isEmpty()) {
+            this.sendToListeners(packet);
+        }
+    }
 
-                NetworkHandler.instance().sendTo(piu, (ServerPlayerEntity) c);
-            } catch (final IOException e) {
-                AELog.debug(e);
+    private void sendToListeners(final MEInventorySyncPacket packet) {
+        for (final Object c : this.listeners) {
+            if (c instanceof ServerPlayerEntity) {
+                NetworkHandler.instance().sendTo(packet, (ServerPlayerEntity) c);
             }
         }
     }
 
+    /**
+     * Applies item list changes sent by the server container.
+     *
+     * @return the new state of every item type that changed.
+     */
+    public List<IAEItemStack> readItemSync(final PacketBuffer data, final boolean reset) {
+        if (reset || this.itemSync == null) {
+            this.itemSync = new ItemSyncSession();
+        }
+
+        final List<IAEItemStack> list = new ArrayList<>();
+        while (data.readableBytes() > 0) {
+            final IAEItemStack is = this.itemSync.read(data);
+            if (is != null) {
+                list.add(is);
+            }
+        }
+
+        return list;
+    }
+
     @Override
     public void removeListener(final IContainerListener c) {
         super.removeListener(c);
@@ -33,6 +33,7 @@
 import appeng.api.networking.IGridHost;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.energy.IEnergyGrid;
+import appeng.api.networking.ticking.ITickManager;
 import appeng.api.storage.channels.IItemStorageChannel;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
@@ -40,9 +41,11 @@
 import appeng.container.AEBaseContainer;
 import appeng.container.ContainerLocator;
 import appeng.container.guisync.GuiSync;
+import appeng.core.AEConfig;
 import appeng.core.Api;
 import appeng.core.sync.network.NetworkHandler;
 import appeng.core.sync.packets.MEInventoryUpdatePacket;
+import appeng.me.cache.TickManagerCache;
 import appeng.util.item.AEItemStack;
 
 public class NetworkStatusContainer extends AEBaseContainer {
@@ -68,6 +71,8 @@ public static boolean open(PlayerEntity player, ContainerLocator locator) {
     public long currentPower;
     @GuiSync(3)
     public long maxPower;
+    @GuiSync(4)
+    public long tickTime = -1;
     private IGrid network;
     private int delay = 40;
 
@@ -110,6 +115,13 @@ public void detectAndSendChanges() {
                 this.setMaxPower((long) (100.0 * eg.getMaxStoredPower()));
             }
 
+            final ITickManager tm = this.network.getCache(ITickManager.class);
+            if (tm instanceof TickManagerCache && AEConfig.instance().isTickTiming()) {
+                this.setTickTime(((TickManagerCache) tm).getAvgNanoTime());
+            } else {
+                this.setTickTime(-1);
+            }
+
             try {
                 final MEInventoryUpdatePacket piu = new MEInventoryUpdatePacket();
 
@@ -175,4 +187,15 @@ public long getPowerUsage() {
     private void setPowerUsage(final long powerUsage) {
         this.powerUsage = powerUsage;
     }
+
+    /**
+     * @return nanoseconds the grid's machines take per tick, or -1 if tick timing is disabled.
+     */
+    public long getTickTime() {
+        return this.tickTime;
+    }
+
+    private void setTickTime(final long tickTime) {
+        this.tickTime = tickTime;
+    }
 }
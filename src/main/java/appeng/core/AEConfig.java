@@ -42,6 +42,7 @@
 import net.minecraftforge.common.ForgeConfigSpec.ConfigValue;
 import net.minecraftforge.common.ForgeConfigSpec.DoubleValue;
 import net.minecraftforge.common.ForgeConfigSpec.EnumValue;
+import net.minecraftforge.common.ForgeConfigSpec.IntValue;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.config.ModConfig;
@@ -98,6 +99,10 @@ public final class AEConfig {
     private boolean useColoredCraftingStatus;
     private boolean disableColoredCableRecipesInJEI;
     private int craftingCalculationTimePerTick;
+    private int craftingCalculationThreads;
+    private boolean storageListConsistencyCheck;
+    private boolean craftingTreeMemoCheck;
+    private boolean tickTiming;
     private PowerUnits selectedPowerUnit = PowerUnits.AE;
 
     // GUI Buttons
@@ -208,8 +213,12 @@ private void syncCommonConfig() {
         this.spatialBlockTags = COMMON.spatialBlockTags.get();
 
         this.craftingCalculationTimePerTick = COMMON.craftingCalculationTimePerTick.get();
+        this.craftingCalculationThreads = COMMON.craftingCalculationThreads.get();
 
         this.removeCrashingItemsOnLoad = COMMON.removeCrashingItemsOnLoad.get();
+        this.storageListConsistencyCheck = COMMON.storageListConsistencyCheck.get();
+        this.craftingTreeMemoCheck = COMMON.craftingTreeMemoCheck.get();
+        this.tickTiming = COMMON.tickTiming.get();
 
         WorldGenRegistry.INSTANCE.setConfigBlacklists(
                 COMMON.quartzOresBiomeBlacklist.get().stream().map(ResourceLocation::new)
@@ -334,6 +343,29 @@ public int getCraftingCalculationTimePerTick() {
         return this.craftingCalculationTimePerTick;
     }
 
+    public int getCraftingCalculationThreads() {
+        return this.craftingCalculationThreads;
+    }
+
+    public boolean isStorageListConsistencyCheck() {
+        return this.storageListConsistencyCheck;
+    }
+
+    public boolean isCraftingTreeMemoCheck() {
+        return this.craftingTreeMemoCheck;
+    }
+
+    public boolean isTickTiming() {
+        return this.tickTiming;
+    }
+
+    public void setTickTiming(final boolean tickTiming) {
+        if (tickTiming != this.tickTiming) {
+            this.tickTiming = tickTiming;
+            COMMON.tickTiming.set(tickTiming);
+        }
+    }
+
     public double getSpatialPowerExponent() {
         return this.spatialPowerExponent;
     }
@@ -465,6 +497,12 @@ private static class CommonConfig {
         public final BooleanValue removeCrashingItemsOnLoad;
         public final ConfigValue<Integer> formationPlaneEntityLimit;
         public final ConfigValue<Integer> craftingCalculationTimePerTick;
+        public final IntValue craftingCalculationThreads;
+
+        // Debug
+        public final BooleanValue storageListConsistencyCheck;
+        public final BooleanValue craftingTreeMemoCheck;
+        public final BooleanValue tickTiming;
 
         // Spatial IO/Dimension
         public final ConfigValue<Double> spatialPowerExponent;
@@ -556,7 +594,22 @@ public CommonConfig(ForgeConfigSpec.Builder builder) {
             builder.push("craftingCPU");
 
             this.craftingCalculationTimePerTick = builder.define("craftingCalculationTimePerTick", 5);
+            this.craftingCalculationThreads = builder.comment(
+                    "Maximum number of crafting calculations running at the same time. Further requests are queued, player requests before automated ones. Requires a restart")
+                    .defineInRange("craftingCalculationThreads", 2, 1, 16);
+
+            builder.pop();
 
+            builder.push("debug");
+            this.storageListConsistencyCheck = builder.comment(
+                    "Periodically compares the incrementally updated network storage lists against a full rebuild and logs any drift. Performance impact")
+                    .define("storageListConsistencyCheck", false);
+            this.craftingTreeMemoCheck = builder.comment(
+                    "Calculates every crafting job a second time without reusing the results of equal subtrees and logs any difference in the plan or bytes. Performance impact")
+                    .define("craftingTreeMemoCheck", false);
+            this.tickTiming = builder.comment(
+                    "Measures how long every ticking machine takes. Shown by /ae2 ticktimes and the network status screen")
+                    .define("tickTiming", false);
             builder.pop();
 
             builder.push("spatialio");
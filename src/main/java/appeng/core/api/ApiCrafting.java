@@ -43,6 +43,7 @@
 import appeng.core.Api;
 import appeng.core.ApiDefinitions;
 import appeng.helpers.CraftingPatternDetails;
+import appeng.helpers.DecodedPatternCache;
 import appeng.items.misc.EncodedPatternItem;
 
 public class ApiCrafting implements ICraftingHelper {
@@ -99,6 +100,11 @@ public ICraftingPatternDetails decodePattern(final ItemStack is, final World wor
             return null;
         }
 
+        final CraftingPatternDetails cached = DecodedPatternCache.get(is, world);
+        if (cached != null) {
+            return cached;
+        }
+
         // The recipe ids encoded in a pattern can go stale. This code attempts to find
         // the new id
         // based on the stored inputs/outputs if that happens.
@@ -116,7 +122,9 @@ public ICraftingPatternDetails decodePattern(final ItemStack is, final World wor
         IAEItemStack ais = Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createStack(is);
 
         try {
-            return new CraftingPatternDetails(ais, world);
+            final CraftingPatternDetails details = new CraftingPatternDetails(ais, world);
+            DecodedPatternCache.put(details, world);
+            return details;
         } catch (IllegalStateException e) {
             AELog.warn("Could not decode an invalid pattern %s: %s", is, e);
             return null;
@@ -36,7 +36,7 @@ public enum GuiText {
 
     IOPort, BytesUsed, Types, QuantumLinkChamber, PortableCell,
 
-    NetworkTool, PowerUsageRate, PowerInputRate, Installed, EnergyDrain,
+    NetworkTool, PowerUsageRate, PowerInputRate, Installed, EnergyDrain, TickTime,
 
     StorageBus, StorageBusFluids, Priority, Security, Encoded, Blank, Unlinked, Linked,
 
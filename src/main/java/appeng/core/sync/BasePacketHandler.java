@@ -39,6 +39,7 @@
 import appeng.core.sync.packets.LightningPacket;
 import appeng.core.sync.packets.MEFluidInventoryUpdatePacket;
 import appeng.core.sync.packets.MEInterfaceUpdatePacket;
+import appeng.core.sync.packets.MEInventorySyncPacket;
 import appeng.core.sync.packets.MEInventoryUpdatePacket;
 import appeng.core.sync.packets.MatterCannonPacket;
 import appeng.core.sync.packets.MockExplosionPacket;
@@ -105,7 +106,9 @@ public enum PacketTypes {
 
         PACKET_PAINTED_ENTITY(PaintedEntityPacket.class, PaintedEntityPacket::new),
 
-        PACKET_FLUID_TANK(FluidSlotPacket.class, FluidSlotPacket::new);
+        PACKET_FLUID_TANK(FluidSlotPacket.class, FluidSlotPacket::new),
+
+        PACKET_ME_INVENTORY_SYNC(MEInventorySyncPacket.class, MEInventorySyncPacket::new);
 
         private final Function<PacketBuffer, BasePacket> factory;
 
@@ -0,0 +1,195 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.core.sync;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.network.PacketBuffer;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.item.AEItemStack;
+
+/**
+ * Keeps the item list of a terminal on the client in step with the network while only sending what changed.
+ * <p>
+ * The first time an item type is sent, its definition goes along and both sides give it the next free id. From then
+ * on the type is referred to by that id, and only the difference to the amounts the client got last is written. The
+ * server and the client each keep their own session for as long as the container is open.
+ */
+public final class ItemSyncSession {
+
+    private static final int DEFINITION = 0x2;
+    private static final int CRAFTABLE = 0x1;
+    private static final int ID_SHIFT = 2;
+
+    private final DefinitionCodec codec;
+
+    // server side
+    private final Map<IAEItemStack, SentState> sent = new HashMap<>();
+    private final Deque<IAEItemStack> queued = new ArrayDeque<>();
+
+    // client side
+    private final List<IAEItemStack> received = new ArrayList<>();
+
+    public ItemSyncSession() {
+        this(new DefinitionCodec() {
+            @Override
+            public void write(final PacketBuffer out, final IAEItemStack type) {
+                ((AEItemStack) type).writeDefinitionToPacket(out);
+            }
+
+            @Override
+            public IAEItemStack read(final PacketBuffer in) {
+                return AEItemStack.fromDefinitionPacket(in);
+            }
+        });
+    }
+
+    ItemSyncSession(final DefinitionCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Queues item types to be sent a slice at a time by {@link #writeQueued}.
+     */
+    public void queueAll(final Iterable<IAEItemStack> stacks) {
+        for (final IAEItemStack is : stacks) {
+            this.queued.add(is.copy());
+        }
+    }
+
+    /**
+     * Writes queued item types until at least the given number of bytes have been written.
+     */
+    public void writeQueued(final PacketBuffer out, final IItemList<IAEItemStack> current, final int byteBudget) {
+        final int start = out.writerIndex();
+
+        while (!this.queued.isEmpty() && out.writerIndex() - start < byteBudget) {
+            final IAEItemStack type = this.queued.poll();
+            this.write(out, type, current.findPrecise(type));
+        }
+    }
+
+    /**
+     * @param current what the network has of the given type right now, or null if it has none.
+     * @return false if the client already knows about this state and nothing was written.
+     */
+    public boolean write(final PacketBuffer out, final IAEItemStack type, @Nullable final IAEItemStack current) {
+        final boolean craftable = current != null && current.isCraftable();
+        final long size = current != null ? current.getStackSize() : 0;
+        final long requestable = current != null ? current.getCountRequestable() : 0;
+
+        SentState state = this.sent.get(type);
+        final boolean define = state == null;
+
+        if (define) {
+            if (current == null || !current.isMeaningful()) {
+                // the client never heard of it, so there is nothing to remove
+                return false;
+            }
+
+            state = new SentState(this.sent.size());
+            this.sent.put(type.copy(), state);
+        } else if (state.craftable == craftable && state.size == size && state.requestable == requestable) {
+            return false;
+        }
+
+        out.writeVarInt(state.id << ID_SHIFT | (define ? DEFINITION : 0) | (craftable ? CRAFTABLE : 0));
+        if (define) {
+            this.codec.write(out, type);
+        }
+        out.writeVarLong(encodeDelta(size - state.size));
+        out.writeVarLong(encodeDelta(requestable - state.requestable));
+
+        state.craftable = craftable;
+        state.size = size;
+        state.requestable = requestable;
+        return true;
+    }
+
+    /**
+     * Reads one entry written by {@link #write}.
+     *
+     * @return the new state of the item type, or null if the item does not exist on this side.
+     */
+    @Nullable
+    public IAEItemStack read(final PacketBuffer in) {
+        final int header = in.readVarInt();
+        final int id = header >>> ID_SHIFT;
+
+        if ((header & DEFINITION) != 0) {
+            // ids are handed out in order, so a definition always belongs to the next free one
+            this.received.add(this.codec.read(in));
+        }
+
+        final long sizeDelta = decodeDelta(in.readVarLong());
+        final long requestableDelta = decodeDelta(in.readVarLong());
+
+        final IAEItemStack is = id < this.received.size() ? this.received.get(id) : null;
+        if (is == null) {
+            return null;
+        }
+
+        is.setCraftable((header & CRAFTABLE) != 0);
+        is.setStackSize(is.getStackSize() + sizeDelta);
+        is.setCountRequestable(is.getCountRequestable() + requestableDelta);
+        return is.copy();
+    }
+
+    /**
+     * Zigzag encoding, so small negative differences stay small on the wire.
+     */
+    static long encodeDelta(final long delta) {
+        return (delta << 1) ^ (delta >> 63);
+    }
+
+    static long decodeDelta(final long encoded) {
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    /**
+     * Writes and reads what kind of item a stack is, with a size of 0. Tests replace it, since serializing item
+     * capabilities needs the mixins applied.
+     */
+    interface DefinitionCodec {
+        void write(PacketBuffer out, IAEItemStack type);
+
+        @Nullable
+        IAEItemStack read(PacketBuffer in);
+    }
+
+    private static final class SentState {
+        private final int id;
+        private boolean craftable;
+        private long size;
+        private long requestable;
+
+        private SentState(final int id) {
+            this.id = id;
+        }
+    }
+}
@@ -95,8 +95,14 @@ public void serverPacketData(final INetworkInfo manager, final PlayerEntity play
                             ccc.setAutoStart(this.heldShift);
                             ccc.setJob(futureJob);
                             cca.detectAndSendChanges();
+                            futureJob = null;
                         }
                     }
+
+                    // nobody will show the result, so don't calculate it
+                    if (futureJob != null) {
+                        futureJob.cancel(true);
+                    }
                 } catch (final Throwable e) {
                     if (futureJob != null) {
                         futureJob.cancel(true);
@@ -0,0 +1,122 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.core.sync.packets;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.netty.buffer.Unpooled;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.network.IPacket;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.fml.network.NetworkDirection;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.client.gui.implementations.MEMonitorableScreen;
+import appeng.container.implementations.MEMonitorableContainer;
+import appeng.core.sync.BasePacket;
+import appeng.core.sync.ItemSyncSession;
+import appeng.core.sync.network.INetworkInfo;
+
+/**
+ * Carries item list changes of a terminal, encoded by the {@link ItemSyncSession} of its container.
+ */
+public class MEInventorySyncPacket extends BasePacket {
+
+    /**
+     * Containers start a new packet once this many bytes have been written, well below the payload limit.
+     */
+    public static final int PACKET_BYTE_LIMIT = 512 * 1024;
+
+    private final int windowId;
+    private final boolean reset;
+    private final PacketBuffer data;
+    private boolean empty = true;
+
+    public MEInventorySyncPacket(final PacketBuffer stream) {
+        this.windowId = stream.readVarInt();
+        this.reset = stream.readBoolean();
+        this.data = new PacketBuffer(Unpooled.copiedBuffer(stream));
+    }
+
+    // api
+    public MEInventorySyncPacket(final int windowId, final boolean reset) {
+        this.windowId = windowId;
+        this.reset = reset;
+        this.data = new PacketBuffer(Unpooled.buffer());
+        this.data.writeInt(this.getPacketID());
+        this.data.writeVarInt(windowId);
+        this.data.writeBoolean(reset);
+    }
+
+    @Override
+    @OnlyIn(Dist.CLIENT)
+    public void clientPacketData(final INetworkInfo network, final PlayerEntity player) {
+        final Container c = player.openContainer;
+        if (!(c instanceof MEMonitorableContainer) || c.windowId != this.windowId) {
+            return;
+        }
+
+        final List<IAEItemStack> list = ((MEMonitorableContainer) c).readItemSync(this.data, this.reset);
+
+        final Screen gs = Minecraft.getInstance().currentScreen;
+        if (gs instanceof MEMonitorableScreen) {
+            ((MEMonitorableScreen<?>) gs).postUpdate(list);
+        }
+    }
+
+    @Nullable
+    @Override
+    public IPacket<?> toPacket(NetworkDirection direction) {
+        this.configureWrite(this.data);
+        return super.toPacket(direction);
+    }
+
+    public void append(final ItemSyncSession session, final IAEItemStack type, @Nullable final IAEItemStack current) {
+        if (session.write(this.data, type, current)) {
+            this.empty = false;
+        }
+    }
+
+    public void appendQueued(final ItemSyncSession session, final IItemList<IAEItemStack> current,
+            final int byteBudget) {
+        final int start = this.data.writerIndex();
+        session.writeQueued(this.data, current, byteBudget);
+        this.empty &= this.data.writerIndex() == start;
+    }
+
+    public int getLength() {
+        return this.data.readableBytes();
+    }
+
+    /**
+     * @return true if the packet neither carries changes nor has to tell the client to start over.
+     */
+    public boolean isEmpty() {
+        return this.empty && !this.reset;
+    }
+}
@@ -116,14 +116,16 @@ public IPacket<?> toPacket(NetworkDirection direction) {
     }
 
     public void appendItem(final IAEItemStack is) throws IOException, BufferOverflowException {
-        final PacketBuffer tmp = new PacketBuffer(Unpooled.buffer(OPERATION_BYTE_LIMIT));
-        is.writeToPacket(tmp);
+        final int start = this.data.writerIndex();
+        is.writeToPacket(this.data);
+        final int written = this.data.writerIndex() - start;
 
-        if (this.writtenBytes + tmp.readableBytes() > UNCOMPRESSED_PACKET_BYTE_LIMIT) {
+        if (this.writtenBytes + written > UNCOMPRESSED_PACKET_BYTE_LIMIT) {
+            // take the item back out again
+            this.data.writerIndex(start);
             throw new BufferOverflowException();
         } else {
-            this.writtenBytes += tmp.readableBytes();
-            this.data.writeBytes(tmp.array(), 0, tmp.readableBytes());
+            this.writtenBytes += written;
             this.empty = false;
         }
     }
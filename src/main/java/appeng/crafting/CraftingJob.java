@@ -42,6 +42,7 @@
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
 import appeng.api.util.DimensionalCoord;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.core.Api;
 import appeng.hooks.ticking.TickHandler;
@@ -51,6 +52,7 @@ public class CraftingJob implements Runnable, ICraftingJob {
     private static final String LOG_MACHINE_SOURCE_DETAILS = "Machine[object=%s, %s]";
 
     private final MECraftingInventory original;
+    private final ICraftingGrid craftingGrid;
     private final World world;
     private final IItemList<IAEItemStack> crafting = Api.instance().storage()
             .getStorageChannel(IItemStorageChannel.class).createList();
@@ -60,6 +62,7 @@ public class CraftingJob implements Runnable, ICraftingJob {
     private final Object monitor = new Object();
     private final Stopwatch watch = Stopwatch.createUnstarted();
     private CraftingTreeNode tree;
+    private CraftingTreeMemo memo = new CraftingTreeMemo(this, true);
     private final IAEItemStack output;
     private boolean simulate = false;
     private MECraftingInventory availableCheck;
@@ -70,6 +73,10 @@ public class CraftingJob implements Runnable, ICraftingJob {
     private boolean done = false;
     private int time = 5;
     private int incTime = Integer.MAX_VALUE;
+    /**
+     * The job this one calculates again without the memo, see {@link #checkMemo()}, or null.
+     */
+    private final CraftingJob checked;
 
     private World wrapWorld(final World w) {
         return w;
@@ -83,17 +90,37 @@ public CraftingJob(final World w, final IGrid grid, final IActionSource actionSr
 
         this.callback = callback;
         final ICraftingGrid cc = grid.getCache(ICraftingGrid.class);
+        this.craftingGrid = cc;
         final IStorageGrid sg = grid.getCache(IStorageGrid.class);
         this.original = new MECraftingInventory(
                 sg.getInventory(Api.instance().storage().getStorageChannel(IItemStorageChannel.class)), actionSrc,
                 false, false, false);
 
-        this.setTree(this.getCraftingTree(cc, what));
+        this.setTree(this.getCraftingTree(new CraftingTreeCache(cc, this.world), what));
         this.availableCheck = null;
+        this.checked = null;
     }
 
-    private CraftingTreeNode getCraftingTree(final ICraftingGrid cc, final IAEItemStack what) {
-        return new CraftingTreeNode(cc, this, what, null, -1, 0);
+    /**
+     * Creates a job calculating the same as the given one without reusing the results of equal subtrees. It shares the
+     * snapshot of the network's items, which calculations only read, and pauses together with the given job.
+     */
+    private CraftingJob(final CraftingJob checked) {
+        this.world = checked.world;
+        this.output = checked.output.copy();
+        this.actionSrc = checked.actionSrc;
+        this.callback = null;
+        this.craftingGrid = checked.craftingGrid;
+        this.original = checked.original;
+        this.memo = new CraftingTreeMemo(this, false);
+        this.checked = checked;
+
+        this.setTree(this.getCraftingTree(new CraftingTreeCache(this.craftingGrid, this.world),
+                this.output.copy()));
+    }
+
+    private CraftingTreeNode getCraftingTree(final CraftingTreeCache cache, final IAEItemStack what) {
+        return new CraftingTreeNode(cache, this, what, null, -1, 0, 0);
     }
 
     void refund(final IAEItemStack o) {
@@ -128,12 +155,56 @@ public void run() {
                 TickHandler.instance().registerCraftingSimulation(this.world, this);
                 this.handlePausing();
 
-                final Stopwatch timer = Stopwatch.createStarted();
+                this.calculate();
+
+                if (AEConfig.instance().isCraftingTreeMemoCheck()) {
+                    this.checkMemo();
+                }
+            } catch (final InterruptedException e1) {
+                AELog.crafting("Crafting calculation canceled.");
+                this.finish();
+                return;
+            }
+
+            AELog.craftingDebug("crafting job now done");
+        } catch (final Throwable t) {
+            this.finish();
+            throw new IllegalStateException(t);
+        }
+
+        this.finish();
+    }
+
+    private void calculate() throws InterruptedException {
+        try {
+            final Stopwatch timer = Stopwatch.createStarted();
+
+            final MECraftingInventory craftingInventory = new MECraftingInventory(this.original, true, false, true);
+            craftingInventory.ignore(this.output);
 
+            this.availableCheck = new MECraftingInventory(this.original, false, false, false);
+            this.getTree().request(craftingInventory, this.output.getStackSize(), this.actionSrc);
+            this.getTree().dive(this);
+
+            for (final String s : this.opsAndMultiplier.keySet()) {
+                final TwoIntegers ti = this.opsAndMultiplier.get(s);
+                AELog.crafting(s + " * " + ti.times + " = " + (ti.perOp * ti.times));
+            }
+
+            this.logCraftingJob("real", timer);
+            // if ( mode == Actionable.MODULATE )
+            // craftingInventory.moveItemsToStorage( storage );
+        } catch (final CraftBranchFailure e) {
+            this.simulate = true;
+
+            try {
+                final Stopwatch timer = Stopwatch.createStarted();
                 final MECraftingInventory craftingInventory = new MECraftingInventory(this.original, true, false, true);
                 craftingInventory.ignore(this.output);
 
                 this.availableCheck = new MECraftingInventory(this.original, false, false, false);
+
+                this.getTree().setSimulate();
                 this.getTree().request(craftingInventory, this.output.getStackSize(), this.actionSrc);
                 this.getTree().dive(this);
 
@@ -142,57 +213,70 @@ public void run() {
                     AELog.crafting(s + " * " + ti.times + " = " + (ti.perOp * ti.times));
                 }
 
-                this.logCraftingJob("real", timer);
-                // if ( mode == Actionable.MODULATE )
-                // craftingInventory.moveItemsToStorage( storage );
-            } catch (final CraftBranchFailure e) {
-                this.simulate = true;
+                this.logCraftingJob("simulate", timer);
+            } catch (final CraftBranchFailure e1) {
+                AELog.debug(e1);
+            } catch (final CraftingCalculationFailure f) {
+                AELog.debug(f);
+            }
+        } catch (final CraftingCalculationFailure f) {
+            AELog.debug(f);
+        }
+    }
 
-                try {
-                    final Stopwatch timer = Stopwatch.createStarted();
-                    final MECraftingInventory craftingInventory = new MECraftingInventory(this.original, true, false,
-                            true);
-                    craftingInventory.ignore(this.output);
+    /**
+     * Calculates the job again without reusing the results of equal subtrees, and logs if that comes to a different
+     * plan. The second calculation runs on a job of its own, so this job keeps its results. See
+     * {@link CraftingTreeMemo}.
+     */
+    private void checkMemo() throws InterruptedException {
+        final CraftingJob check = new CraftingJob(this);
+        check.calculate();
 
-                    this.availableCheck = new MECraftingInventory(this.original, false, false, false);
+        final IItemList<IAEItemStack> expected = Api.instance().storage().getStorageChannel(IItemStorageChannel.class)
+                .createList();
+        check.populatePlan(expected);
 
-                    this.getTree().setSimulate();
-                    this.getTree().request(craftingInventory, this.output.getStackSize(), this.actionSrc);
-                    this.getTree().dive(this);
+        final IItemList<IAEItemStack> plan = Api.instance().storage().getStorageChannel(IItemStorageChannel.class)
+                .createList();
+        this.populatePlan(plan);
 
-                    for (final String s : this.opsAndMultiplier.keySet()) {
-                        final TwoIntegers ti = this.opsAndMultiplier.get(s);
-                        AELog.crafting(s + " * " + ti.times + " = " + (ti.perOp * ti.times));
-                    }
+        IAEItemStack difference = findDifference(plan, expected);
+        if (difference == null) {
+            difference = findDifference(expected, plan);
+        }
 
-                    this.logCraftingJob("simulate", timer);
-                } catch (final CraftBranchFailure e1) {
-                    AELog.debug(e1);
-                } catch (final CraftingCalculationFailure f) {
-                    AELog.debug(f);
-                } catch (final InterruptedException e1) {
-                    AELog.crafting("Crafting calculation canceled.");
-                    this.finish();
-                    return;
-                }
-            } catch (final CraftingCalculationFailure f) {
-                AELog.debug(f);
-            } catch (final InterruptedException e1) {
-                AELog.crafting("Crafting calculation canceled.");
-                this.finish();
-                return;
-            }
+        if (this.bytes != check.bytes || this.simulate != check.simulate || difference != null) {
+            AELog.warn(
+                    "Crafting job for %s came to %d bytes (simulate=%s) reusing %d of %d requests, but to %d bytes (simulate=%s) without reusing. First difference in the plan: %s",
+                    this.output, this.bytes, this.simulate, this.memo.getReplayed(), this.memo.getRequests(),
+                    check.bytes, check.simulate, difference == null ? "none" : difference);
+        }
+    }
 
-            AELog.craftingDebug("crafting job now done");
-        } catch (final Throwable t) {
-            this.finish();
-            throw new IllegalStateException(t);
+    /**
+     * @return an entry of the plan the other plan has a different amount of, or null
+     */
+    private static IAEItemStack findDifference(final IItemList<IAEItemStack> plan,
+            final IItemList<IAEItemStack> other) {
+        for (final IAEItemStack is : plan) {
+            final IAEItemStack same = other.findPrecise(is);
+
+            if (same == null || same.getStackSize() != is.getStackSize()
+                    || same.getCountRequestable() != is.getCountRequestable()) {
+                return is;
+            }
         }
 
-        this.finish();
+        return null;
     }
 
     void handlePausing() throws InterruptedException {
+        if (this.checked != null) {
+            this.checked.handlePausing();
+            return;
+        }
+
         if (this.incTime > 100) {
             this.incTime = 0;
 
@@ -221,12 +305,21 @@ void handlePausing() throws InterruptedException {
         this.incTime++;
     }
 
+    CraftingTreeMemo getMemo() {
+        return this.memo;
+    }
+
+    MECraftingInventory getAvailableCheck() {
+        return this.availableCheck;
+    }
+
     private void finish() {
         if (this.callback != null) {
             this.callback.calculationComplete(this);
         }
 
         this.availableCheck = null;
+        this.memo = null;
 
         synchronized (this.monitor) {
             this.running = false;
@@ -0,0 +1,290 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.entity.player.PlayerEntity;
+
+import appeng.api.networking.IGrid;
+import appeng.api.networking.crafting.ICraftingJob;
+import appeng.api.networking.security.IActionHost;
+import appeng.api.networking.security.IActionSource;
+import appeng.core.AEConfig;
+
+/**
+ * Runs crafting calculations on a bounded number of threads.
+ * <p>
+ * Requests waiting for a thread are queued per requester (player or grid) and the requesters take turns, so a single
+ * busy network cannot starve everyone else. Requests made by players in a terminal are always started before
+ * automated ones. Queued requests whose requester is gone are dropped instead of being calculated.
+ * <p>
+ * Whether a requester is gone is only checked on the server thread, by {@link #dropStaleRequests()} and by the
+ * containers cancelling their job when they close. The workers only look at whether a task was cancelled.
+ */
+public final class CraftingJobScheduler {
+
+    private static CraftingJobScheduler instance;
+
+    public enum Priority {
+        INTERACTIVE, AUTOMATED
+    }
+
+    private final ExecutorService workers;
+    private final Map<Priority, Map<Object, Deque<Task>>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, Integer> queued = new EnumMap<>(Priority.class);
+
+    private int running = 0;
+    private long started = 0;
+    private long dropped = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+
+    private CraftingJobScheduler(final int threads) {
+        final ThreadFactory factory = ar -> {
+            final Thread crafting = new Thread(ar, "AE Crafting Calculator");
+            crafting.setDaemon(true);
+            return crafting;
+        };
+
+        this.workers = Executors.newFixedThreadPool(threads, factory);
+
+        for (final Priority priority : Priority.values()) {
+            this.queues.put(priority, new LinkedHashMap<>());
+            this.queued.put(priority, 0);
+        }
+    }
+
+    public static synchronized CraftingJobScheduler instance() {
+        if (instance == null) {
+            instance = new CraftingJobScheduler(AEConfig.instance().getCraftingCalculationThreads());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Cancels queued requests whose player left or whose machine lost its node. Must be called on the server thread.
+     */
+    public static void dropStaleRequests() {
+        final CraftingJobScheduler scheduler;
+        synchronized (CraftingJobScheduler.class) {
+            scheduler = instance;
+        }
+
+        if (scheduler != null) {
+            scheduler.cancelStale();
+        }
+    }
+
+    public Future<ICraftingJob> submit(final CraftingJob job, final IGrid grid, final IActionSource src) {
+        final Task task = new Task(job, grid, src);
+
+        synchronized (this) {
+            this.queues.get(task.priority).computeIfAbsent(task.owner, o -> new ArrayDeque<>()).add(task);
+            this.queued.merge(task.priority, 1, Integer::sum);
+        }
+
+        // every task gets one turn of a worker, but the worker picks whichever task is next in line
+        this.workers.execute(this::runNext);
+        return task;
+    }
+
+    public synchronized int getQueued(final Priority priority) {
+        return this.queued.get(priority);
+    }
+
+    public synchronized int getRunning() {
+        return this.running;
+    }
+
+    public synchronized long getStarted() {
+        return this.started;
+    }
+
+    public synchronized long getDropped() {
+        return this.dropped;
+    }
+
+    /**
+     * @return average time requests waited for a thread
+     */
+    public synchronized long getAverageWait(final TimeUnit unit) {
+        return this.started == 0 ? 0 : unit.convert(this.totalWaitNanos / this.started, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getMaxWait(final TimeUnit unit) {
+        return unit.convert(this.maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancelStale() {
+        final List<Task> stale = new ArrayList<>();
+
+        synchronized (this) {
+            for (final Map<Object, Deque<Task>> owners : this.queues.values()) {
+                for (final Deque<Task> tasks : owners.values()) {
+                    for (final Task task : tasks) {
+                        if (task.isRequesterGone()) {
+                            stale.add(task);
+                        }
+                    }
+                }
+            }
+        }
+
+        // cancelling removes the task from its queue, which must not happen while iterating the queues
+        for (final Task task : stale) {
+            task.cancel(false);
+        }
+    }
+
+    private void runNext() {
+        final Task task;
+
+        synchronized (this) {
+            task = this.poll();
+            if (task == null) {
+                return;
+            }
+
+            final long wait = System.nanoTime() - task.queuedAt;
+            this.started++;
+            this.totalWaitNanos += wait;
+            this.maxWaitNanos = Math.max(this.maxWaitNanos, wait);
+            this.running++;
+        }
+
+        try {
+            task.run();
+        } finally {
+            synchronized (this) {
+                this.running--;
+            }
+        }
+    }
+
+    /**
+     * Takes the next task from the highest priority queue, rotating between the requesters of that priority.
+     */
+    private Task poll() {
+        for (final Priority priority : Priority.values()) {
+            final Map<Object, Deque<Task>> owners = this.queues.get(priority);
+
+            while (!owners.isEmpty()) {
+                final Object owner = owners.keySet().iterator().next();
+                final Deque<Task> tasks = owners.remove(owner);
+
+                Task task = tasks.poll();
+                while (task != null && task.isCancelled()) {
+                    this.dequeued(task);
+                    this.dropped++;
+                    task.cancel(false);
+                    task = tasks.poll();
+                }
+
+                if (!tasks.isEmpty()) {
+                    // move this requester to the back of the line
+                    owners.put(owner, tasks);
+                }
+
+                if (task != null) {
+                    this.dequeued(task);
+                    return task;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void dequeued(final Task task) {
+        this.queued.merge(task.priority, -1, Integer::sum);
+    }
+
+    private synchronized void remove(final Task task) {
+        final Map<Object, Deque<Task>> owners = this.queues.get(task.priority);
+        final Deque<Task> tasks = owners.get(task.owner);
+
+        if (tasks != null && tasks.remove(task)) {
+            this.dequeued(task);
+            this.dropped++;
+
+            if (tasks.isEmpty()) {
+                owners.remove(task.owner);
+            }
+        }
+    }
+
+    private final class Task extends FutureTask<ICraftingJob> {
+        private final IActionSource src;
+        private final Priority priority;
+        private final Object owner;
+        private final long queuedAt = System.nanoTime();
+
+        private Task(final CraftingJob job, final IGrid grid, final IActionSource src) {
+            super(job, job);
+            this.src = src;
+
+            if (src.player().isPresent()) {
+                this.priority = Priority.INTERACTIVE;
+                this.owner = src.player().get().getUniqueID();
+            } else {
+                this.priority = Priority.AUTOMATED;
+                this.owner = grid;
+            }
+        }
+
+        /**
+         * @return true if nobody is going to pick up the result of this calculation anymore. Reads the state of
+         *         players and machines, so it may only be called on the server thread.
+         */
+        private boolean isRequesterGone() {
+            if (this.src.player().isPresent()) {
+                final PlayerEntity player = this.src.player().get();
+                return player.removed;
+            }
+
+            if (this.src.machine().isPresent()) {
+                final IActionHost machine = this.src.machine().get();
+                return machine.getActionableNode() == null;
+            }
+
+            return false;
+        }
+
+        @Override
+        protected void done() {
+            if (this.isCancelled()) {
+                CraftingJobScheduler.this.remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import net.minecraft.world.World;
+
+import appeng.api.networking.crafting.ICraftingGrid;
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.storage.data.IAEItemStack;
+
+/**
+ * Remembers the parts of building the crafting tree of a {@link CraftingJob} that do not depend on the simulated
+ * inventory: the patterns found for an item, whether an item can be emitted, and how each pattern's inputs turn into
+ * child nodes. Intermediates that show up below many patterns are thus only looked up once per job.
+ * <p/>
+ * It also gives every subtree a {@link Shape}, which {@link CraftingTreeMemo} uses to find equal subtrees. The
+ * outcome of a request depends on the simulated inventory, so it is remembered there instead.
+ */
+final class CraftingTreeCache {
+
+    private final ICraftingGrid craftingGrid;
+    private final World world;
+    private final Map<IAEItemStack, Boolean> emitable = new HashMap<>();
+    private final Map<PatternQuery, Collection<ICraftingPatternDetails>> patterns = new HashMap<>();
+    private final Map<ICraftingPatternDetails, CraftingTreeProcess.Layout> layouts = new HashMap<>();
+    private final Map<PatternQuery, Boolean> validForSlot = new HashMap<>();
+    private final Map<Shape, Shape> shapes = new HashMap<>();
+
+    CraftingTreeCache(final ICraftingGrid craftingGrid, final World world) {
+        this.craftingGrid = craftingGrid;
+        this.world = world;
+    }
+
+    boolean canEmitFor(final IAEItemStack what) {
+        return this.emitable.computeIfAbsent(what, this.craftingGrid::canEmitFor);
+    }
+
+    /**
+     * @see ICraftingGrid#getCraftingFor(IAEItemStack, ICraftingPatternDetails, int, World)
+     */
+    Collection<ICraftingPatternDetails> getCraftingFor(final IAEItemStack what,
+            final ICraftingPatternDetails parent, final int slot) {
+        // the parent pattern and slot only matter for substitutions, which only crafting patterns allow
+        final PatternQuery query = parent != null && parent.isCraftable() ? new PatternQuery(what, parent, slot)
+                : new PatternQuery(what, null, -1);
+
+        return this.patterns.computeIfAbsent(query,
+                q -> this.craftingGrid.getCraftingFor(what, parent, slot, this.world));
+    }
+
+    CraftingTreeProcess.Layout getLayout(final ICraftingPatternDetails details) {
+        return this.layouts.computeIfAbsent(details, d -> CraftingTreeProcess.Layout.of(d, this.world));
+    }
+
+    /**
+     * @param processes the shapes of the node's processes, in order
+     */
+    Shape getNodeShape(final IAEItemStack what, final ICraftingPatternDetails parent, final int slot,
+            final boolean canEmit, final Shape[] processes) {
+        // the parent pattern decides which stored items may be used for crafting patterns, see
+        // CraftingTreeNode#resolve
+        final Object context;
+        if (canEmit) {
+            context = Context.EMITTED;
+        } else if (slot >= 0 && parent != null && parent.isCraftable()) {
+            final PatternQuery query = new PatternQuery(what, parent, slot);
+
+            if (parent.canSubstitute()) {
+                context = query;
+            } else {
+                final boolean valid = this.validForSlot.computeIfAbsent(query, q -> parent.isValidItemForSlot(slot,
+                        what.copy().setStackSize(1).createItemStack(), this.world));
+                context = valid ? Context.VALID_FOR_SLOT : Context.INVALID_FOR_SLOT;
+            }
+        } else {
+            context = null;
+        }
+
+        return this.intern(new Shape(what.copy(), context, processes, null));
+    }
+
+    /**
+     * @param inputs the shapes of the process' child nodes, in order
+     * @param amounts how many of each input one craft needs
+     */
+    Shape getProcessShape(final ICraftingPatternDetails details, final Shape[] inputs, final long[] amounts) {
+        return this.intern(new Shape(details, null, inputs, amounts));
+    }
+
+    private Shape intern(final Shape shape) {
+        final Shape known = this.shapes.putIfAbsent(shape, shape);
+        return known != null ? known : shape;
+    }
+
+    private enum Context {
+        EMITTED, VALID_FOR_SLOT, INVALID_FOR_SLOT
+    }
+
+    /**
+     * Stands for everything a subtree of a crafting tree resolves a request with, apart from the inventories and the
+     * state of its nodes: the item or pattern, how the parent pattern uses the item and the shapes of the subtrees
+     * below it. Equal shapes are the same instance within a job.
+     */
+    static final class Shape {
+        private final Object what;
+        private final Object context;
+        private final Shape[] parts;
+        private final long[] amounts;
+        private final int hash;
+
+        private Shape(final Object what, final Object context, final Shape[] parts, final long[] amounts) {
+            this.what = what;
+            this.context = context;
+            this.parts = parts;
+            this.amounts = amounts;
+            this.hash = 31 * (31 * (31 * what.hashCode() + Objects.hashCode(context)) + Arrays.hashCode(parts))
+                    + Arrays.hashCode(amounts);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            final Shape that = (Shape) o;
+            if (this.hash != that.hash || this.parts.length != that.parts.length
+                    || !this.what.equals(that.what) || !Objects.equals(this.context, that.context)
+                    || !Arrays.equals(this.amounts, that.amounts)) {
+                return false;
+            }
+
+            // parts are interned
+            for (int x = 0; x < this.parts.length; x++) {
+                if (this.parts[x] != that.parts[x]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static final class PatternQuery {
+        private final IAEItemStack what;
+        private final ICraftingPatternDetails parent;
+        private final int slot;
+
+        private PatternQuery(final IAEItemStack what, final ICraftingPatternDetails parent, final int slot) {
+            this.what = what;
+            this.parent = parent;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            final PatternQuery that = (PatternQuery) o;
+            return this.slot == that.slot && this.what.equals(that.what) && Objects.equals(this.parent, that.parent);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.what, this.parent, this.slot);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.data.IAEItemStack;
+
+/**
+ * Remembers how {@link CraftingTreeNode#request} resolved the subtrees of a {@link CraftingJob}, so an equal subtree
+ * requested again, in another place of the tree, in the next round of a loop or by the simulation after the real
+ * attempt failed, replays the outcome instead of walking the subtree again.
+ * <p>
+ * Outcomes are kept per {@link CraftingTreeCache.Shape} of the subtree, which stands for the item and the patterns
+ * below it, and the requested amount. Walking a subtree reads and changes the simulated inventories, so an outcome is
+ * only replayed while the inventories hold what it relied on, see {@link InventoryReads}. It also depends on which
+ * nodes below already ran out of stored items and which patterns turned out to be impossible. An outcome recorded
+ * before the subtree had any of these marks applies to every equal subtree without marks, other outcomes only to the
+ * same subtree as long as its marks did not change. Outcomes that ran into missing items only apply in the same mode,
+ * real or simulated.
+ * <p>
+ * Replaying makes the same changes to the inventories and to the nodes and processes of the subtree as walking it, so
+ * the bytes and plan of the job do not change. The crafting events of patterns that need a full simulation are not
+ * fired again.
+ */
+final class CraftingTreeMemo {
+
+    /**
+     * Subtrees resolved with fewer requests are walked every time, as recording them costs more than it saves.
+     */
+    private static final int MIN_REQUESTS = 8;
+    /**
+     * Outcomes kept per subtree and amount. Subtrees that got this many recordings without reusing any are no longer
+     * recorded.
+     */
+    private static final int MAX_OUTCOMES = 4;
+
+    enum Change {
+        BYTES, USED, MISSING, EMITTED, EXHAUSTED, CRAFTS, POSSIBLE
+    }
+
+    private final CraftingJob job;
+    private final boolean enabled;
+    private final Map<Key, Outcomes> outcomes = new HashMap<>();
+    private final Deque<Recording> recordings = new ArrayDeque<>();
+    /**
+     * Changes made to nodes and processes while anything is recorded, in order.
+     */
+    private final List<ChangeMade> changes = new ArrayList<>();
+    private long requests = 0;
+    private long replayed = 0;
+
+    CraftingTreeMemo(final CraftingJob job, final boolean enabled) {
+        this.job = job;
+        this.enabled = enabled;
+    }
+
+    IAEItemStack request(final CraftingTreeNode node, final MECraftingInventory inv, final long amount,
+            final IActionSource src) throws CraftBranchFailure, InterruptedException {
+        this.requests++;
+
+        if (!this.enabled || !node.isCrafted()) {
+            return node.resolve(inv, amount, src);
+        }
+
+        final Key key = new Key(node.getShape(), amount);
+        final Outcomes known = this.outcomes.get(key);
+
+        if (known == null) {
+            // only subtrees that are requested again are worth recording
+            this.outcomes.put(key, new Outcomes());
+            return node.resolve(inv, amount, src);
+        }
+
+        for (final Outcome outcome : known.list) {
+            if (outcome.appliesTo(node, inv, this.job)) {
+                known.reused = true;
+                return this.replay(outcome, node, inv, src);
+            }
+        }
+
+        if (known.tooCheap || known.recorded >= MAX_OUTCOMES && !known.reused) {
+            return node.resolve(inv, amount, src);
+        }
+
+        return this.record(known, node, inv, amount, src);
+    }
+
+    /**
+     * Called by nodes and processes for every change made to them.
+     */
+    void changed(final Object target, final Change change, final long amount, final IAEItemStack stack) {
+        if (!this.recordings.isEmpty()) {
+            this.changes.add(new ChangeMade(target, change, amount, stack == null ? null : stack.copy()));
+        }
+    }
+
+    /**
+     * Called when a node could not get all it needs, which it handles differently when simulating.
+     */
+    void reachedMissing() {
+        for (final Recording recording : this.recordings) {
+            recording.dependsOnMode = true;
+        }
+    }
+
+    long getRequests() {
+        return this.requests;
+    }
+
+    long getReplayed() {
+        return this.replayed;
+    }
+
+    private IAEItemStack record(final Outcomes known, final CraftingTreeNode node, final MECraftingInventory inv,
+            final long amount, final IActionSource src) throws CraftBranchFailure, InterruptedException {
+        if (this.recordings.isEmpty()) {
+            this.changes.clear();
+        }
+
+        final MECraftingInventory available = this.job.getAvailableCheck();
+        final Recording recording = new Recording(node, this.changes.size(), this.requests);
+        this.recordings.push(recording);
+        inv.startRecording(recording.inventoryReads);
+        available.startRecording(recording.availableReads);
+        known.recorded++;
+
+        final IAEItemStack result;
+        try {
+            result = node.resolve(inv, amount, src);
+        } finally {
+            available.stopRecording(recording.availableReads);
+            inv.stopRecording(recording.inventoryReads);
+            this.recordings.pop();
+        }
+
+        if (this.requests - recording.firstRequest < MIN_REQUESTS) {
+            known.tooCheap = true;
+        } else if (recording.isReusable(node)) {
+            known.add(recording.toOutcome(node, result, this.changes, this.requests, this.job.isSimulation()));
+        }
+
+        return result;
+    }
+
+    private IAEItemStack replay(final Outcome outcome, final CraftingTreeNode node, final MECraftingInventory inv,
+            final IActionSource src) {
+        outcome.inventoryReads.replay(inv, src);
+        outcome.availableReads.replay(this.job.getAvailableCheck(), src);
+
+        if (outcome.dependsOnMode) {
+            this.reachedMissing();
+        }
+
+        for (final NodeChanges changes : outcome.changes) {
+            changes.applyTo(node);
+        }
+
+        this.requests += outcome.requests;
+        this.replayed += outcome.requests;
+        return outcome.result == null ? null : outcome.result.copy();
+    }
+
+    private static final class Key {
+        private final CraftingTreeCache.Shape shape;
+        private final long amount;
+
+        private Key(final CraftingTreeCache.Shape shape, final long amount) {
+            this.shape = shape;
+            this.amount = amount;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            final Key that = (Key) o;
+            return this.shape == that.shape && this.amount == that.amount;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.shape.hashCode() + Long.hashCode(this.amount);
+        }
+    }
+
+    private static final class Outcomes {
+        private final List<Outcome> list = new ArrayList<>(MAX_OUTCOMES);
+        private int recorded = 0;
+        private boolean reused = false;
+        private boolean tooCheap = false;
+
+        private void add(final Outcome outcome) {
+            // the latest outcome is the most likely to apply again
+            this.list.add(0, outcome);
+
+            if (this.list.size() > MAX_OUTCOMES) {
+                this.list.remove(MAX_OUTCOMES);
+            }
+        }
+    }
+
+    private static final class ChangeMade {
+        private final Object target;
+        private final Change change;
+        private final long amount;
+        private final IAEItemStack stack;
+
+        private ChangeMade(final Object target, final Change change, final long amount, final IAEItemStack stack) {
+            this.target = target;
+            this.change = change;
+            this.amount = amount;
+            this.stack = stack;
+        }
+    }
+
+    private static final class Recording {
+        private final CraftingTreeNode node;
+        private final InventoryReads inventoryReads = new InventoryReads();
+        private final InventoryReads availableReads = new InventoryReads();
+        private final int firstChange;
+        private final long firstRequest;
+        private final boolean unmarked;
+        private final int markVersion;
+        private boolean dependsOnMode = false;
+
+        private Recording(final CraftingTreeNode node, final int firstChange, final long firstRequest) {
+            this.node = node;
+            this.firstChange = firstChange;
+            this.firstRequest = firstRequest;
+            this.unmarked = node.getMarks() == 0;
+            this.markVersion = node.getMarkVersion();
+        }
+
+        private boolean isReusable(final CraftingTreeNode node) {
+            if (!this.inventoryReads.isReusable() || !this.availableReads.isReusable()) {
+                return false;
+            }
+
+            // without marks before, the marks set while recording are replayed. Otherwise there is no telling
+            // which marks the subtree had before they changed.
+            return this.unmarked || node.getMarkVersion() == this.markVersion;
+        }
+
+        private Outcome toOutcome(final CraftingTreeNode node, final IAEItemStack result,
+                final List<ChangeMade> changes, final long requests, final boolean simulation) {
+            final Map<Object, NodeChanges> byTarget = new IdentityHashMap<>();
+            final List<NodeChanges> ordered = new ArrayList<>();
+
+            for (int i = this.firstChange; i < changes.size(); i++) {
+                final ChangeMade made = changes.get(i);
+                NodeChanges target = byTarget.get(made.target);
+
+                if (target == null) {
+                    target = new NodeChanges(pathTo(node, made.target));
+                    byTarget.put(made.target, target);
+                    ordered.add(target);
+                }
+
+                target.add(made);
+            }
+
+            return new Outcome(this, ordered, result == null ? null : result.copy(), requests - this.firstRequest,
+                    simulation);
+        }
+    }
+
+    private static final class Outcome {
+        private final InventoryReads inventoryReads;
+        private final InventoryReads availableReads;
+        private final CraftingTreeNode owner;
+        private final boolean unmarked;
+        private final int markVersion;
+        private final boolean dependsOnMode;
+        private final boolean simulation;
+        private final List<NodeChanges> changes;
+        private final IAEItemStack result;
+        private final long requests;
+
+        private Outcome(final Recording recording, final List<NodeChanges> changes, final IAEItemStack result,
+                final long requests, final boolean simulation) {
+            this.inventoryReads = recording.inventoryReads;
+            this.availableReads = recording.availableReads;
+            this.owner = recording.unmarked ? null : recording.node;
+            this.unmarked = recording.unmarked;
+            this.markVersion = recording.markVersion;
+            this.dependsOnMode = recording.dependsOnMode;
+            this.simulation = simulation;
+            this.changes = changes;
+            this.result = result;
+            this.requests = requests;
+        }
+
+        private boolean appliesTo(final CraftingTreeNode node, final MECraftingInventory inv, final CraftingJob job) {
+            if (this.dependsOnMode && this.simulation != job.isSimulation()) {
+                return false;
+            }
+
+            if (this.unmarked ? node.getMarks() != 0
+                    : node != this.owner || node.getMarkVersion() != this.markVersion) {
+                return false;
+            }
+
+            return this.inventoryReads.holdsFor(inv) && this.availableReads.holdsFor(job.getAvailableCheck());
+        }
+    }
+
+    /**
+     * The changes recorded for one node or process, found by its position below the recorded node.
+     */
+    private static final class NodeChanges {
+        private final int[] path;
+        private final List<IAEItemStack> used = new ArrayList<>();
+        private long bytes = 0;
+        private long missing = 0;
+        private long crafts = 0;
+        private long emitted = -1;
+        private boolean exhausted = false;
+        private int possible = -1;
+
+        private NodeChanges(final int[] path) {
+            this.path = path;
+        }
+
+        private void add(final ChangeMade made) {
+            switch (made.change) {
+                case BYTES:
+                    this.bytes += made.amount;
+                    break;
+                case USED:
+                    this.used.add(made.stack);
+                    break;
+                case MISSING:
+                    this.missing += made.amount;
+                    break;
+                case EMITTED:
+                    this.emitted = made.amount;
+                    break;
+                case EXHAUSTED:
+                    this.exhausted = true;
+                    break;
+                case CRAFTS:
+                    this.crafts += made.amount;
+                    break;
+                case POSSIBLE:
+                    this.possible = (int) made.amount;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown change " + made.change);
+            }
+        }
+
+        private void applyTo(final CraftingTreeNode root) {
+            Object target = root;
+            for (final int step : this.path) {
+                target = target instanceof CraftingTreeNode ? ((CraftingTreeNode) target).getProcess(step)
+                        : ((CraftingTreeProcess) target).getInput(step);
+            }
+
+            if (target instanceof CraftingTreeNode) {
+                final CraftingTreeNode node = (CraftingTreeNode) target;
+
+                if (this.bytes != 0) {
+                    node.change(Change.BYTES, this.bytes, null);
+                }
+                for (final IAEItemStack stack : this.used) {
+                    node.change(Change.USED, 0, stack.copy());
+                }
+                if (this.missing != 0) {
+                    node.change(Change.MISSING, this.missing, null);
+                }
+                if (this.emitted >= 0) {
+                    node.change(Change.EMITTED, this.emitted, null);
+                }
+                if (this.exhausted) {
+                    node.change(Change.EXHAUSTED, 0, null);
+                }
+            } else {
+                final CraftingTreeProcess process = (CraftingTreeProcess) target;
+
+                if (this.bytes != 0) {
+                    process.change(Change.BYTES, this.bytes);
+                }
+                if (this.crafts != 0) {
+                    process.change(Change.CRAFTS, this.crafts);
+                }
+                if (this.possible >= 0) {
+                    process.change(Change.POSSIBLE, this.possible);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the indices leading from the node to one of the nodes or processes below it
+     */
+    private static int[] pathTo(final CraftingTreeNode root, final Object target) {
+        final List<Integer> steps = new ArrayList<>();
+
+        for (Object at = target; at != root;) {
+            if (at instanceof CraftingTreeNode) {
+                final CraftingTreeNode node = (CraftingTreeNode) at;
+                steps.add(node.getIndex());
+                at = node.getParent();
+            } else {
+                final CraftingTreeProcess process = (CraftingTreeProcess) at;
+                steps.add(process.getIndex());
+                at = process.getParent();
+            }
+        }
+
+        final int[] path = new int[steps.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = steps.get(path.length - 1 - i);
+        }
+        return path;
+    }
+}
@@ -28,7 +28,6 @@
 
 import appeng.api.config.Actionable;
 import appeng.api.config.FuzzyMode;
-import appeng.api.networking.crafting.ICraftingGrid;
 import appeng.api.networking.crafting.ICraftingPatternDetails;
 import appeng.api.networking.security.IActionSource;
 import appeng.api.storage.channels.IItemStorageChannel;
@@ -41,6 +40,8 @@ public class CraftingTreeNode {
 
     // what slot!
     private final int slot;
+    // which input of the parent process
+    private final int index;
     private final CraftingJob job;
     private final IItemList<IAEItemStack> used = Api.instance().storage().getStorageChannel(IItemStorageChannel.class)
             .createList();
@@ -56,32 +57,44 @@ public class CraftingTreeNode {
     private long missing = 0;
     private long howManyEmitted = 0;
     private boolean exhausted = false;
+    private final CraftingTreeCache.Shape shape;
+    // exhausted nodes and impossible processes in this subtree, and how often that changed.
+    private int marks = 0;
+    private int markVersion = 0;
 
     private boolean sim;
 
-    public CraftingTreeNode(final ICraftingGrid cc, final CraftingJob job, final IAEItemStack wat,
-            final CraftingTreeProcess par, final int slot, final int depth) {
+    CraftingTreeNode(final CraftingTreeCache cache, final CraftingJob job, final IAEItemStack wat,
+            final CraftingTreeProcess par, final int slot, final int index, final int depth) {
         this.what = wat;
         this.parent = par;
         this.slot = slot;
+        this.index = index;
         this.world = job.getWorld();
         this.job = job;
         this.sim = false;
 
-        this.canEmit = cc.canEmitFor(this.what);
+        this.canEmit = cache.canEmitFor(this.what);
 
-        if (this.canEmit) {
-            return; // if you can emit for something, you can't make it with patterns.
+        // if you can emit for something, you can't make it with patterns.
+        if (!this.canEmit) {
+            for (final ICraftingPatternDetails details : cache.getCraftingFor(this.what,
+                    this.parent == null ? null : this.parent.details, slot))// in
+            // order.
+            {
+                if (this.parent == null || this.parent.notRecursive(details)) {
+                    this.nodes.add(new CraftingTreeProcess(cache, job, details, this, this.nodes.size(), depth + 1));
+                }
+            }
         }
 
-        for (final ICraftingPatternDetails details : cc.getCraftingFor(this.what,
-                this.parent == null ? null : this.parent.details, slot, this.world))// in
-        // order.
-        {
-            if (this.parent == null || this.parent.notRecursive(details)) {
-                this.nodes.add(new CraftingTreeProcess(cc, job, details, this, depth + 1));
-            }
+        final CraftingTreeCache.Shape[] processes = new CraftingTreeCache.Shape[this.nodes.size()];
+        for (int x = 0; x < processes.length; x++) {
+            processes[x] = this.nodes.get(x).getShape();
         }
+
+        this.shape = cache.getNodeShape(this.what, this.parent == null ? null : this.parent.details, slot,
+                this.canEmit, processes);
     }
 
     boolean notRecursive(final ICraftingPatternDetails details) {
@@ -108,10 +121,19 @@ boolean notRecursive(final ICraftingPatternDetails details) {
         return this.parent.notRecursive(details);
     }
 
-    IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource src)
+    IAEItemStack request(final MECraftingInventory inv, final long l, final IActionSource src)
             throws CraftBranchFailure, InterruptedException {
         this.job.handlePausing();
 
+        return this.job.getMemo().request(this, inv, l, src);
+    }
+
+    /**
+     * Resolves a request by walking this subtree. Every change to the nodes and processes of the subtree goes through
+     * {@link #change} and {@link CraftingTreeProcess#change}, so {@link CraftingTreeMemo} can repeat it.
+     */
+    IAEItemStack resolve(final MECraftingInventory inv, long l, final IActionSource src)
+            throws CraftBranchFailure, InterruptedException {
         final List<IAEItemStack> thingsUsed = new ArrayList<>();
 
         this.what.setStackSize(l);
@@ -150,11 +172,11 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
 
                             if (is != null) {
                                 thingsUsed.add(is.copy());
-                                this.used.add(is);
+                                this.change(CraftingTreeMemo.Change.USED, 0, is);
                             }
                         }
 
-                        this.bytes += available.getStackSize();
+                        this.change(CraftingTreeMemo.Change.BYTES, available.getStackSize(), null);
                         l -= available.getStackSize();
 
                         if (l == 0) {
@@ -172,11 +194,11 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
 
                     if (is != null) {
                         thingsUsed.add(is.copy());
-                        this.used.add(is);
+                        this.change(CraftingTreeMemo.Change.USED, 0, is);
                     }
                 }
 
-                this.bytes += available.getStackSize();
+                this.change(CraftingTreeMemo.Change.BYTES, available.getStackSize(), null);
                 l -= available.getStackSize();
 
                 if (l == 0) {
@@ -189,18 +211,18 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
             final IAEItemStack wat = this.what.copy();
             wat.setStackSize(l);
 
-            this.howManyEmitted = wat.getStackSize();
-            this.bytes += wat.getStackSize();
+            this.change(CraftingTreeMemo.Change.EMITTED, wat.getStackSize(), null);
+            this.change(CraftingTreeMemo.Change.BYTES, wat.getStackSize(), null);
 
             return wat;
         }
 
-        this.exhausted = true;
+        this.change(CraftingTreeMemo.Change.EXHAUSTED, 0, null);
 
         if (this.nodes.size() == 1) {
             final CraftingTreeProcess pro = this.nodes.get(0);
 
-            while (pro.possible && l > 0) {
+            while (pro.isPossible() && l > 0) {
                 final IAEItemStack madeWhat = pro.getAmountCrafted(this.what);
 
                 pro.request(inv, pro.getTimes(l, madeWhat.getStackSize()), src);
@@ -210,20 +232,20 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
                 final IAEItemStack available = inv.extractItems(madeWhat, Actionable.MODULATE, src);
 
                 if (available != null) {
-                    this.bytes += available.getStackSize();
+                    this.change(CraftingTreeMemo.Change.BYTES, available.getStackSize(), null);
                     l -= available.getStackSize();
 
                     if (l <= 0) {
                         return available;
                     }
                 } else {
-                    pro.possible = false; // ;P
+                    pro.setPossible(false); // ;P
                 }
             }
         } else if (this.nodes.size() > 1) {
             for (final CraftingTreeProcess pro : this.nodes) {
                 try {
-                    while (pro.possible && l > 0) {
+                    while (pro.isPossible() && l > 0) {
                         final MECraftingInventory subInv = new MECraftingInventory(inv, true, true, true);
                         pro.request(subInv, 1, src);
 
@@ -235,25 +257,27 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
                                 throw new CraftBranchFailure(this.what, l);
                             }
 
-                            this.bytes += available.getStackSize();
+                            this.change(CraftingTreeMemo.Change.BYTES, available.getStackSize(), null);
                             l -= available.getStackSize();
 
                             if (l <= 0) {
                                 return available;
                             }
                         } else {
-                            pro.possible = false; // ;P
+                            pro.setPossible(false); // ;P
                         }
                     }
                 } catch (final CraftBranchFailure fail) {
-                    pro.possible = true;
+                    pro.setPossible(true);
                 }
             }
         }
 
+        this.job.getMemo().reachedMissing();
+
         if (this.sim) {
-            this.missing += l;
-            this.bytes += l;
+            this.change(CraftingTreeMemo.Change.MISSING, l, null);
+            this.change(CraftingTreeMemo.Change.BYTES, l, null);
             final IAEItemStack rv = this.what.copy();
             rv.setStackSize(l);
             return rv;
@@ -262,12 +286,49 @@ IAEItemStack request(final MECraftingInventory inv, long l, final IActionSource
         for (final IAEItemStack o : thingsUsed) {
             this.job.refund(o.copy());
             o.setStackSize(-o.getStackSize());
-            this.used.add(o);
+            this.change(CraftingTreeMemo.Change.USED, 0, o);
         }
 
         throw new CraftBranchFailure(this.what, l);
     }
 
+    void change(final CraftingTreeMemo.Change change, final long amount, final IAEItemStack stack) {
+        switch (change) {
+            case BYTES:
+                this.bytes += amount;
+                break;
+            case USED:
+                this.used.add(stack);
+                break;
+            case MISSING:
+                this.missing += amount;
+                break;
+            case EMITTED:
+                this.howManyEmitted = amount;
+                break;
+            case EXHAUSTED:
+                if (this.exhausted) {
+                    return;
+                }
+                this.exhausted = true;
+                this.marked(1);
+                break;
+            default:
+                throw new IllegalArgumentException("Nodes can't change " + change);
+        }
+
+        this.job.getMemo().changed(this, change, amount, stack);
+    }
+
+    void marked(final int delta) {
+        this.marks += delta;
+        this.markVersion++;
+
+        if (this.parent != null) {
+            this.parent.marked(delta);
+        }
+    }
+
     void dive(final CraftingJob job) {
         if (this.missing > 0) {
             job.addMissing(this.getStack(this.missing));
@@ -293,10 +354,14 @@ void setSimulate() {
         this.bytes = 0;
         this.used.resetStatus();
         this.exhausted = false;
+        this.marks = 0;
 
         for (final CraftingTreeProcess pro : this.nodes) {
             pro.setSimulate();
+            this.marks += pro.getMarks();
         }
+
+        this.markVersion++;
     }
 
     public void setJob(final MECraftingInventory storage, final CraftingCPUCluster craftingCPUCluster,
@@ -347,4 +412,35 @@ void getPlan(final IItemList<IAEItemStack> plan) {
     int getSlot() {
         return this.slot;
     }
+
+    int getIndex() {
+        return this.index;
+    }
+
+    CraftingTreeProcess getParent() {
+        return this.parent;
+    }
+
+    CraftingTreeProcess getProcess(final int index) {
+        return this.nodes.get(index);
+    }
+
+    CraftingTreeCache.Shape getShape() {
+        return this.shape;
+    }
+
+    /**
+     * @return true if this node has patterns to craft its item with
+     */
+    boolean isCrafted() {
+        return !this.nodes.isEmpty();
+    }
+
+    int getMarks() {
+        return this.marks;
+    }
+
+    int getMarkVersion() {
+        return this.markVersion;
+    }
 }
@@ -18,7 +18,9 @@
 
 package appeng.crafting;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -29,7 +31,6 @@
 import net.minecraftforge.fml.hooks.BasicEventHooks;
 
 import appeng.api.config.Actionable;
-import appeng.api.networking.crafting.ICraftingGrid;
 import appeng.api.networking.crafting.ICraftingPatternDetails;
 import appeng.api.networking.security.IActionSource;
 import appeng.api.storage.channels.IItemStorageChannel;
@@ -45,9 +46,16 @@ public class CraftingTreeProcess {
     private final CraftingTreeNode parent;
     final ICraftingPatternDetails details;
     private final CraftingJob job;
-    private final Map<CraftingTreeNode, Long> nodes = new HashMap<>();
+    // in the order of the pattern's inputs, so equal processes request their inputs in the same order.
+    private final Map<CraftingTreeNode, Long> nodes = new LinkedHashMap<>();
+    private final CraftingTreeNode[] inputs;
+    // which process of the parent node
+    private final int index;
+    private final CraftingTreeCache.Shape shape;
     private final int depth;
-    boolean possible = true;
+    private boolean possible = true;
+    // exhausted nodes and impossible processes in this subtree.
+    private int marks = 0;
     private World world;
     private long crafts = 0;
     private boolean containerItems;
@@ -55,97 +63,32 @@ public class CraftingTreeProcess {
     private boolean fullSimulation;
     private long bytes = 0;
 
-    public CraftingTreeProcess(final ICraftingGrid cc, final CraftingJob job, final ICraftingPatternDetails details,
-            final CraftingTreeNode craftingTreeNode, final int depth) {
+    CraftingTreeProcess(final CraftingTreeCache cache, final CraftingJob job, final ICraftingPatternDetails details,
+            final CraftingTreeNode craftingTreeNode, final int index, final int depth) {
         this.parent = craftingTreeNode;
         this.details = details;
         this.job = job;
+        this.index = index;
         this.depth = depth;
-        final World world = job.getWorld();
 
-        if (details.isCraftable()) {
-            final IAEItemStack[] list = details.getSparseInputs();
-
-            final CraftingInventory ic = new CraftingInventory(new ContainerNull(), 3, 3);
-            final IAEItemStack[] is = details.getSparseInputs();
-            for (int x = 0; x < ic.getSizeInventory(); x++) {
-                ic.setInventorySlotContents(x, is[x] == null ? ItemStack.EMPTY : is[x].createItemStack());
-            }
-
-            BasicEventHooks.firePlayerCraftingEvent(Platform.getPlayer((ServerWorld) world),
-                    details.getOutput(ic, world), ic);
-
-            for (int x = 0; x < ic.getSizeInventory(); x++) {
-                final ItemStack g = ic.getStackInSlot(x);
-                if (!g.isEmpty() && g.getCount() > 1) {
-                    this.fullSimulation = true;
-                }
-            }
-
-            for (final IAEItemStack part : details.getInputs()) {
-                final ItemStack g = part.createItemStack();
-
-                boolean isAnInput = false;
-                for (final IAEItemStack a : details.getOutputs()) {
-                    if (!g.isEmpty() && a != null && a.equals(g)) {
-                        isAnInput = true;
-                    }
-                }
-
-                if (isAnInput) {
-                    this.limitQty = true;
-                }
-
-                if (g.getItem().hasContainerItem(g)) {
-                    this.limitQty = this.containerItems = true;
-                }
-            }
-
-            final boolean complicated = false;
-
-            if (this.containerItems || complicated) {
-                for (int x = 0; x < list.length; x++) {
-                    final IAEItemStack part = list[x];
-                    if (part != null) {
-                        this.nodes.put(new CraftingTreeNode(cc, job, part.copy(), this, x, depth + 1),
-                                part.getStackSize());
-                    }
-                }
-            } else {
-                // this is minor different then below, this slot uses the pattern, but kinda
-                // fudges it.
-                for (final IAEItemStack part : details.getInputs()) {
-                    for (int x = 0; x < list.length; x++) {
-                        final IAEItemStack comparePart = list[x];
-                        if (part != null && part.equals(comparePart)) {
-                            // use the first slot...
-                            this.nodes.put(new CraftingTreeNode(cc, job, part.copy(), this, x, depth + 1),
-                                    part.getStackSize());
-                            break;
-                        }
-                    }
-                }
-            }
-        } else {
-            for (final IAEItemStack part : details.getInputs()) {
-                final ItemStack g = part.createItemStack();
-
-                boolean isAnInput = false;
-                for (final IAEItemStack a : details.getOutputs()) {
-                    if (!g.isEmpty() && a != null && a.equals(g)) {
-                        isAnInput = true;
-                    }
-                }
-
-                if (isAnInput) {
-                    this.limitQty = true;
-                }
-            }
-
-            for (final IAEItemStack part : details.getInputs()) {
-                this.nodes.put(new CraftingTreeNode(cc, job, part.copy(), this, -1, depth + 1), part.getStackSize());
-            }
+        final Layout layout = cache.getLayout(details);
+        this.fullSimulation = layout.fullSimulation;
+        this.limitQty = layout.limitQty;
+        this.containerItems = layout.containerItems;
+
+        this.inputs = new CraftingTreeNode[layout.inputs.size()];
+        final CraftingTreeCache.Shape[] shapes = new CraftingTreeCache.Shape[this.inputs.length];
+        final long[] amounts = new long[this.inputs.length];
+
+        for (int x = 0; x < this.inputs.length; x++) {
+            final IAEItemStack part = layout.inputs.get(x);
+            this.inputs[x] = new CraftingTreeNode(cache, job, part.copy(), this, layout.slots.get(x), x, depth + 1);
+            this.nodes.put(this.inputs[x], part.getStackSize());
+            shapes[x] = this.inputs[x].getShape();
+            amounts[x] = part.getStackSize();
         }
+
+        this.shape = cache.getProcessShape(details, shapes, amounts);
     }
 
     boolean notRecursive(final ICraftingPatternDetails details) {
@@ -183,7 +126,7 @@ void request(final MECraftingInventory inv, final long i, final IActionSource sr
                 final IAEItemStack o = Api.instance().storage().getStorageChannel(IItemStorageChannel.class)
                         .createStack(is);
                 if (o != null) {
-                    this.bytes++;
+                    this.change(CraftingTreeMemo.Change.BYTES, 1);
                     inv.injectItems(o, Actionable.MODULATE, src);
                 }
             }
@@ -198,7 +141,7 @@ void request(final MECraftingInventory inv, final long i, final IActionSource sr
                     final IAEItemStack o = Api.instance().storage().getStorageChannel(IItemStorageChannel.class)
                             .createStack(is);
                     if (o != null) {
-                        this.bytes++;
+                        this.change(CraftingTreeMemo.Change.BYTES, 1);
                         inv.injectItems(o, Actionable.MODULATE, src);
                     }
                 }
@@ -214,7 +157,43 @@ void request(final MECraftingInventory inv, final long i, final IActionSource sr
             inv.injectItems(o, Actionable.MODULATE, src);
         }
 
-        this.crafts += i;
+        this.change(CraftingTreeMemo.Change.CRAFTS, i);
+    }
+
+    void change(final CraftingTreeMemo.Change change, final long amount) {
+        switch (change) {
+            case BYTES:
+                this.bytes += amount;
+                break;
+            case CRAFTS:
+                this.crafts += amount;
+                break;
+            case POSSIBLE:
+                final boolean possible = amount != 0;
+                if (this.possible == possible) {
+                    return;
+                }
+                this.possible = possible;
+                this.marked(possible ? -1 : 1);
+                break;
+            default:
+                throw new IllegalArgumentException("Processes can't change " + change);
+        }
+
+        this.job.getMemo().changed(this, change, amount, null);
+    }
+
+    void marked(final int delta) {
+        this.marks += delta;
+        this.parent.marked(delta);
+    }
+
+    boolean isPossible() {
+        return this.possible;
+    }
+
+    void setPossible(final boolean possible) {
+        this.change(CraftingTreeMemo.Change.POSSIBLE, possible ? 1 : 0);
     }
 
     void dive(final CraftingJob job) {
@@ -251,9 +230,11 @@ IAEItemStack getAmountCrafted(IAEItemStack what2) {
     void setSimulate() {
         this.crafts = 0;
         this.bytes = 0;
+        this.marks = this.possible ? 0 : 1;
 
         for (final CraftingTreeNode pro : this.nodes.keySet()) {
             pro.setSimulate();
+            this.marks += pro.getMarks();
         }
     }
 
@@ -277,4 +258,129 @@ void getPlan(final IItemList<IAEItemStack> plan) {
             pro.getPlan(plan);
         }
     }
+
+    int getIndex() {
+        return this.index;
+    }
+
+    CraftingTreeNode getParent() {
+        return this.parent;
+    }
+
+    CraftingTreeNode getInput(final int index) {
+        return this.inputs[index];
+    }
+
+    CraftingTreeCache.Shape getShape() {
+        return this.shape;
+    }
+
+    int getMarks() {
+        return this.marks;
+    }
+
+    /**
+     * How a pattern is turned into child nodes. This only depends on the pattern, so it is computed once per job by
+     * {@link CraftingTreeCache}.
+     */
+    static final class Layout {
+        private final List<IAEItemStack> inputs = new ArrayList<>();
+        private final List<Integer> slots = new ArrayList<>();
+        private boolean containerItems;
+        private boolean limitQty;
+        private boolean fullSimulation;
+
+        private void addInput(final IAEItemStack part, final int slot) {
+            this.inputs.add(part);
+            this.slots.add(slot);
+        }
+
+        static Layout of(final ICraftingPatternDetails details, final World world) {
+            final Layout layout = new Layout();
+
+            if (details.isCraftable()) {
+                final IAEItemStack[] list = details.getSparseInputs();
+
+                final CraftingInventory ic = new CraftingInventory(new ContainerNull(), 3, 3);
+                final IAEItemStack[] is = details.getSparseInputs();
+                for (int x = 0; x < ic.getSizeInventory(); x++) {
+                    ic.setInventorySlotContents(x, is[x] == null ? ItemStack.EMPTY : is[x].createItemStack());
+                }
+
+                BasicEventHooks.firePlayerCraftingEvent(Platform.getPlayer((ServerWorld) world),
+                        details.getOutput(ic, world), ic);
+
+                for (int x = 0; x < ic.getSizeInventory(); x++) {
+                    final ItemStack g = ic.getStackInSlot(x);
+                    if (!g.isEmpty() && g.getCount() > 1) {
+                        layout.fullSimulation = true;
+                    }
+                }
+
+                for (final IAEItemStack part : details.getInputs()) {
+                    final ItemStack g = part.createItemStack();
+
+                    boolean isAnInput = false;
+                    for (final IAEItemStack a : details.getOutputs()) {
+                        if (!g.isEmpty() && a != null && a.equals(g)) {
+                            isAnInput = true;
+                        }
+                    }
+
+                    if (isAnInput) {
+                        layout.limitQty = true;
+                    }
+
+                    if (g.getItem().hasContainerItem(g)) {
+                        layout.limitQty = layout.containerItems = true;
+                    }
+                }
+
+                final boolean complicated = false;
+
+                if (layout.containerItems || complicated) {
+                    for (int x = 0; x < list.length; x++) {
+                        final IAEItemStack part = list[x];
+                        if (part != null) {
+                            layout.addInput(part, x);
+                        }
+                    }
+                } else {
+                    // this is minor different then below, this slot uses the pattern, but kinda
+                    // fudges it.
+                    for (final IAEItemStack part : details.getInputs()) {
+                        for (int x = 0; x < list.length; x++) {
+                            final IAEItemStack comparePart = list[x];
+                            if (part != null && part.equals(comparePart)) {
+                                // use the first slot...
+                                layout.addInput(part, x);
+                                break;
+                            }
+                        }
+                    }
+                }
+            } else {
+                for (final IAEItemStack part : details.getInputs()) {
+                    final ItemStack g = part.createItemStack();
+
+                    boolean isAnInput = false;
+                    for (final IAEItemStack a : details.getOutputs()) {
+                        if (!g.isEmpty() && a != null && a.equals(g)) {
+                            isAnInput = true;
+                        }
+                    }
+
+                    if (isAnInput) {
+                        layout.limitQty = true;
+                    }
+                }
+
+                for (final IAEItemStack part : details.getInputs()) {
+                    layout.addInput(part, -1);
+                }
+            }
+
+            return layout;
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import appeng.api.config.Actionable;
+import appeng.api.networking.security.IActionSource;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+/**
+ * Records what a part of a crafting calculation relied on about the contents of a {@link MECraftingInventory} when it
+ * started, and the changes it made to that inventory, so {@link CraftingTreeMemo} can tell whether the same part would
+ * come to the same result on other contents and then repeat its changes.
+ * <p>
+ * The calculation only depends on amounts through extractions: one that got everything it asked for would have done
+ * the same with more, one that got less only with exactly as much. Missing entries count as empty. Lookups that
+ * depend on the order of the entries, like fuzzy searches, cannot be described this way and make the recording
+ * unusable.
+ */
+final class InventoryReads {
+
+    private final Map<IAEItemStack, Entry> entries = new HashMap<>();
+    private final List<Operation> operations = new ArrayList<>();
+    private boolean reusable = true;
+
+    /**
+     * Called whenever the recorded part looks up an entry, before it changes it.
+     *
+     * @param found what the inventory holds right now
+     */
+    void found(final IAEItemStack what, final IAEItemStack found) {
+        if (!this.entries.containsKey(what)) {
+            final Entry entry = new Entry(what, found);
+            this.entries.put(entry.what, entry);
+        }
+    }
+
+    /**
+     * The recorded part relied on there being at least the given amount, given it saw the other amount. It may have
+     * seen it in an inventory layered on top of the recorded one, which already changed the amount.
+     */
+    void relyOnAtLeast(final IAEItemStack what, final long seen, final long needed) {
+        final Entry entry = this.entries.get(what);
+
+        if (entry == null) {
+            this.reusable = false;
+        } else {
+            entry.atLeast = Math.max(entry.atLeast, entry.amount + needed - seen);
+        }
+    }
+
+    void relyOnExactly(final IAEItemStack what) {
+        final Entry entry = this.entries.get(what);
+
+        if (entry == null) {
+            this.reusable = false;
+        } else {
+            entry.exact = true;
+        }
+    }
+
+    void extracted(final IAEItemStack request) {
+        this.operations.add(new Operation(request.copy(), true));
+    }
+
+    void injected(final IAEItemStack input) {
+        this.operations.add(new Operation(input.copy(), false));
+    }
+
+    void notReusable() {
+        this.reusable = false;
+    }
+
+    boolean isReusable() {
+        return this.reusable;
+    }
+
+    /**
+     * @return true if the given inventory holds what the recorded part relied on
+     */
+    boolean holdsFor(final MECraftingInventory inv) {
+        final IItemList<IAEItemStack> contents = inv.getItemList();
+
+        for (final Entry entry : this.entries.values()) {
+            final IAEItemStack found = contents.findPrecise(entry.what);
+            final long amount = found == null ? 0 : found.getStackSize();
+            if (entry.exact ? amount != entry.amount : amount < entry.atLeast) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Makes the recorded changes to an inventory that {@link #holdsFor} accepted, in the same order.
+     */
+    void replay(final MECraftingInventory inv, final IActionSource src) {
+        final IItemList<IAEItemStack> contents = inv.getItemList();
+
+        // whatever records the given inventory relies on the same as the recorded part did
+        for (final Entry entry : this.entries.values()) {
+            if (entry.exact) {
+                inv.relyOnExactly(entry.what);
+            } else if (entry.atLeast > 0) {
+                final IAEItemStack found = contents.findPrecise(entry.what);
+                inv.relyOnAtLeast(entry.what, found == null ? 0 : found.getStackSize(), entry.atLeast);
+            }
+        }
+
+        for (final Operation operation : this.operations) {
+            if (operation.extract) {
+                inv.extractItems(operation.stack.copy(), Actionable.MODULATE, src);
+            } else {
+                inv.injectItems(operation.stack.copy(), Actionable.MODULATE, src);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final IAEItemStack what;
+        private final long amount;
+        private long atLeast = 0;
+        private boolean exact = false;
+
+        private Entry(final IAEItemStack what, final IAEItemStack found) {
+            this.what = what.copy();
+            this.amount = found == null ? 0 : found.getStackSize();
+        }
+    }
+
+    private static final class Operation {
+        private final IAEItemStack stack;
+        private final boolean extract;
+
+        private Operation(final IAEItemStack stack, final boolean extract) {
+            this.stack = stack;
+            this.extract = extract;
+        }
+    }
+}
@@ -18,7 +18,19 @@
 
 package appeng.crafting;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.collect.AbstractIterator;
+
+import net.minecraft.item.Item;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
 import appeng.api.config.Actionable;
+import appeng.api.config.FuzzyMode;
 import appeng.api.networking.security.IActionSource;
 import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEMonitor;
@@ -27,8 +39,16 @@
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
 import appeng.core.Api;
+import appeng.me.cache.NetworkMonitor;
 import appeng.util.inv.ItemListIgnoreCrafting;
 
+/**
+ * Simulated inventory used to plan and reserve crafting jobs.
+ * <p>
+ * Inventories created on top of another crafting inventory or a network do not copy its contents. They read through
+ * to that inventory and only keep a local copy of the entries they change, which requires the underlying inventory to
+ * stay unchanged while this one is in use.
+ */
 public class MECraftingInventory implements IMEInventory<IAEItemStack> {
 
     private final MECraftingInventory par;
@@ -36,6 +56,30 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack> {
     private final IMEInventory<IAEItemStack> target;
     private final IItemList<IAEItemStack> localCache;
 
+    /**
+     * Read-only contents this inventory is layered on top of, or null if {@link #localCache} holds everything.
+     */
+    private final IItemList<IAEItemStack> inherited;
+    /**
+     * Entries of {@link #localCache} that are not visible through {@link #inherited}, because it has no entry for them
+     * or only an empty one. Only these are iterated, entries shadowing an inherited one have to stay in
+     * {@link #localCache} even when they reach zero.
+     */
+    private final List<IAEItemStack> introduced;
+    private final IItemList<IAEItemStack> view;
+    /**
+     * Number of non-empty entries in {@link #inherited}, or -1 until it is first needed.
+     */
+    private int inheritedVisible = -1;
+    /**
+     * How many more non-empty entries the local changes make visible than {@link #inherited} has on its own.
+     */
+    private int localVisible = 0;
+    /**
+     * Number of changes made through this inventory per item, or null until {@link #getVersion(Item)} is first called.
+     */
+    private Reference2IntOpenHashMap<Item> versions = null;
+
     private final boolean logExtracted;
     private final IItemList<IAEItemStack> extractedCache;
 
@@ -45,6 +89,12 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack> {
     private final boolean logMissing;
     private final IItemList<IAEItemStack> missingCache;
 
+    /**
+     * Parts of a crafting calculation currently recorded on this inventory, innermost last, or null if nothing was
+     * recorded on it so far. See {@link CraftingTreeMemo}.
+     */
+    private List<InventoryReads> recordings = null;
+
     public MECraftingInventory() {
         this.localCache = new ItemListIgnoreCrafting<>(
                 Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createList());
@@ -56,6 +106,9 @@ public MECraftingInventory() {
         this.logMissing = false;
         this.target = null;
         this.par = null;
+        this.inherited = null;
+        this.introduced = null;
+        this.view = this.localCache;
     }
 
     public MECraftingInventory(final MECraftingInventory parent) {
@@ -82,8 +135,11 @@ public MECraftingInventory(final MECraftingInventory parent) {
             this.injectedCache = null;
         }
 
-        this.localCache = this.target.getAvailableItems(new ItemListIgnoreCrafting<>(
-                Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createList()));
+        this.localCache = new ItemListIgnoreCrafting<>(
+                Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createList());
+        this.inherited = parent.getItemList();
+        this.introduced = new ArrayList<>();
+        this.view = new LayeredItemList();
 
         this.par = parent;
     }
@@ -115,8 +171,20 @@ public MECraftingInventory(final IMEMonitor<IAEItemStack> target, final IActionS
 
         this.localCache = new ItemListIgnoreCrafting<>(
                 Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createList());
-        for (final IAEItemStack is : target.getStorageList()) {
-            this.localCache.add(target.extractItems(is, Actionable.SIMULATE, src));
+
+        if (target instanceof NetworkMonitor) {
+            final NetworkMonitor<IAEItemStack> network = (NetworkMonitor<IAEItemStack>) target;
+            this.inherited = network.canExtract(src) ? network.getStorageSnapshot() : null;
+            this.introduced = this.inherited != null ? new ArrayList<>() : null;
+            this.view = this.inherited != null ? new LayeredItemList() : this.localCache;
+        } else {
+            for (final IAEItemStack is : target.getStorageList()) {
+                this.localCache.add(target.extractItems(is, Actionable.SIMULATE, src));
+            }
+
+            this.inherited = null;
+            this.introduced = null;
+            this.view = this.localCache;
         }
 
         this.par = null;
@@ -147,8 +215,21 @@ public MECraftingInventory(final IMEInventory<IAEItemStack> target, final boolea
             this.injectedCache = null;
         }
 
-        this.localCache = target
-                .getAvailableItems(Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createList());
+        if (target instanceof MECraftingInventory || target instanceof NetworkMonitor) {
+            this.localCache = new ItemListIgnoreCrafting<>(
+                    Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createList());
+            this.inherited = target instanceof MECraftingInventory ? ((MECraftingInventory) target).getItemList()
+                    : ((NetworkMonitor<IAEItemStack>) target).getStorageSnapshot();
+            this.introduced = new ArrayList<>();
+            this.view = new LayeredItemList();
+        } else {
+            this.localCache = target.getAvailableItems(
+                    Api.instance().storage().getStorageChannel(IItemStorageChannel.class).createList());
+            this.inherited = null;
+            this.introduced = null;
+            this.view = this.localCache;
+        }
+
         this.par = null;
     }
 
@@ -159,10 +240,17 @@ public IAEItemStack injectItems(final IAEItemStack input, final Actionable mode,
         }
 
         if (mode == Actionable.MODULATE) {
+            if (this.isRecorded()) {
+                // looked up first, so the recordings know what the entry held before
+                this.view.findPrecise(input);
+                for (final InventoryReads reads : this.recordings) {
+                    reads.injected(input);
+                }
+            }
             if (this.logInjections) {
                 this.injectedCache.add(input);
             }
-            this.localCache.add(input);
+            this.addLocal(input);
         }
 
         return null;
@@ -174,14 +262,20 @@ public IAEItemStack extractItems(final IAEItemStack request, final Actionable mo
             return null;
         }
 
-        final IAEItemStack list = this.localCache.findPrecise(request);
+        final IAEItemStack list = this.view.findPrecise(request);
+        this.relyOnExtraction(request, list);
+
         if (list == null || list.getStackSize() == 0) {
             return null;
         }
 
         if (list.getStackSize() >= request.getStackSize()) {
             if (mode == Actionable.MODULATE) {
-                list.decStackSize(request.getStackSize());
+                this.recordExtraction(request);
+                final IAEItemStack local = this.copyOnWrite(request);
+                final boolean wasVisible = local.isMeaningful();
+                local.decStackSize(request.getStackSize());
+                this.updateVisible(wasVisible, local);
                 if (this.logExtracted) {
                     this.extractedCache.add(request);
                 }
@@ -194,7 +288,11 @@ public IAEItemStack extractItems(final IAEItemStack request, final Actionable mo
         ret.setStackSize(list.getStackSize());
 
         if (mode == Actionable.MODULATE) {
-            list.reset();
+            this.recordExtraction(request);
+            final IAEItemStack local = this.copyOnWrite(request);
+            final boolean wasVisible = local.isMeaningful();
+            local.reset();
+            this.updateVisible(wasVisible, local);
             if (this.logExtracted) {
                 this.extractedCache.add(ret);
             }
@@ -205,7 +303,7 @@ public IAEItemStack extractItems(final IAEItemStack request, final Actionable mo
 
     @Override
     public IItemList<IAEItemStack> getAvailableItems(final IItemList<IAEItemStack> out) {
-        for (final IAEItemStack is : this.localCache) {
+        for (final IAEItemStack is : this.view) {
             out.add(is);
         }
 
@@ -217,8 +315,12 @@ public IStorageChannel getChannel() {
         return Api.instance().storage().getStorageChannel(IItemStorageChannel.class);
     }
 
+    /**
+     * @return the contents of this inventory. For layered inventories the entries may belong to an underlying
+     *         inventory and must not be modified directly.
+     */
     public IItemList<IAEItemStack> getItemList() {
-        return this.localCache;
+        return this.view;
     }
 
     public boolean commit(final IActionSource src) {
@@ -286,9 +388,364 @@ private void addMissing(final IAEItemStack extra) {
     }
 
     void ignore(final IAEItemStack what) {
-        final IAEItemStack list = this.localCache.findPrecise(what);
+        this.notReusable();
+
+        final IAEItemStack list = this.copyOnWrite(what);
         if (list != null) {
+            final boolean wasVisible = list.isMeaningful();
             list.setStackSize(0);
+            this.updateVisible(wasVisible, list);
+        }
+    }
+
+    /**
+     * Allows callers to cache conclusions drawn from the stacks of an item in this inventory, regardless of their damage
+     * or NBT. Changes made directly to the entries of {@link #getItemList()} are not tracked.
+     */
+    public int getVersion(final Item item) {
+        if (this.versions == null) {
+            // only counted once somebody asks, crafting calculations don't
+            this.versions = new Reference2IntOpenHashMap<>();
+        }
+
+        return this.versions.getInt(item);
+    }
+
+    /**
+     * Starts recording what is read from and changed in this inventory, directly or through inventories layered on top
+     * of it. Recordings can be nested and are stopped in reverse order.
+     */
+    void startRecording(final InventoryReads reads) {
+        if (this.inherited == null) {
+            // lookups in an inventory holding everything itself are not followed
+            reads.notReusable();
+        }
+
+        if (this.recordings == null) {
+            this.recordings = new ArrayList<>(2);
+        }
+
+        this.recordings.add(reads);
+    }
+
+    void stopRecording(final InventoryReads reads) {
+        if (this.recordings.remove(this.recordings.size() - 1) != reads) {
+            throw new IllegalStateException("Recordings must be stopped in reverse order.");
+        }
+    }
+
+    private boolean isRecorded() {
+        return this.recordings != null && !this.recordings.isEmpty();
+    }
+
+    /**
+     * @return the crafting inventory this one is layered on, if any
+     */
+    private MECraftingInventory getLayeredOn() {
+        return this.target instanceof MECraftingInventory ? (MECraftingInventory) this.target : null;
+    }
+
+    private void relyOnExtraction(final IAEItemStack request, final IAEItemStack found) {
+        final long available = found == null ? 0 : found.getStackSize();
+
+        if (request.getStackSize() > 0 && available >= request.getStackSize()) {
+            this.relyOnAtLeast(request, available, request.getStackSize());
+        } else {
+            this.relyOnExactly(request);
+        }
+    }
+
+    /**
+     * Tells the recordings on this inventory and the ones below it that the calculation relied on this inventory
+     * holding at least the needed amount, while it held the seen amount.
+     */
+    void relyOnAtLeast(final IAEItemStack what, final long seen, final long needed) {
+        for (MECraftingInventory inv = this; inv != null; inv = inv.getLayeredOn()) {
+            if (inv.isRecorded()) {
+                for (final InventoryReads reads : inv.recordings) {
+                    reads.relyOnAtLeast(what, seen, needed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells the recordings on this inventory and the ones below it that the calculation relied on this inventory
+     * holding exactly the amount it holds.
+     */
+    void relyOnExactly(final IAEItemStack what) {
+        for (MECraftingInventory inv = this; inv != null; inv = inv.getLayeredOn()) {
+            if (inv.isRecorded()) {
+                for (final InventoryReads reads : inv.recordings) {
+                    reads.relyOnExactly(what);
+                }
+            }
+        }
+    }
+
+    private void recordExtraction(final IAEItemStack request) {
+        if (this.isRecorded()) {
+            for (final InventoryReads reads : this.recordings) {
+                reads.extracted(request);
+            }
+        }
+    }
+
+    private void found(final IAEItemStack what, final IAEItemStack found) {
+        if (this.isRecorded()) {
+            for (final InventoryReads reads : this.recordings) {
+                reads.found(what, found);
+            }
+        }
+    }
+
+    private void notReusable() {
+        if (this.isRecorded()) {
+            for (final InventoryReads reads : this.recordings) {
+                reads.notReusable();
+            }
+        }
+    }
+
+    /**
+     * Called before every change to the given stack.
+     *
+     * @return the local entry for the given stack, copied from {@link #inherited} if this inventory has not changed
+     *         it so far.
+     */
+    private IAEItemStack copyOnWrite(final IAEItemStack what) {
+        if (this.versions != null) {
+            this.versions.addTo(what.getItem(), 1);
+        }
+
+        final IAEItemStack local = this.localCache.findPrecise(what);
+        if (local != null || this.inherited == null) {
+            return local;
+        }
+
+        final IAEItemStack available = this.inherited.findPrecise(what);
+        if (available == null) {
+            return null;
+        }
+
+        this.localCache.add(available);
+        final IAEItemStack copy = this.localCache.findPrecise(what);
+
+        if (!available.isMeaningful()) {
+            // the inherited entry is skipped when iterating, so the local one has to be iterated on its own
+            this.introduced.add(copy);
+        }
+
+        return copy;
+    }
+
+    private void addLocal(final IAEItemStack option) {
+        if (option == null) {
+            return;
+        }
+
+        final IAEItemStack existing = this.copyOnWrite(option);
+        final boolean wasVisible = existing != null && existing.isMeaningful();
+        this.localCache.add(option);
+
+        final IAEItemStack local = this.localCache.findPrecise(option);
+        if (existing == null && this.introduced != null) {
+            this.introduced.add(local);
+        }
+
+        this.updateVisible(wasVisible, local);
+    }
+
+    /**
+     * Keeps the number of visible entries in step after a local entry was changed.
+     */
+    private void updateVisible(final boolean wasVisible, final IAEItemStack local) {
+        final boolean visible = local != null && local.isMeaningful();
+
+        if (visible && !wasVisible) {
+            this.localVisible++;
+        } else if (wasVisible && !visible) {
+            this.localVisible--;
+        }
+    }
+
+    private static int countVisible(final IItemList<IAEItemStack> list) {
+        if (list instanceof MECraftingInventory.LayeredItemList) {
+            return list.size();
+        }
+
+        int visible = 0;
+        for (final IAEItemStack is : list) {
+            if (is.isMeaningful()) {
+                visible++;
+            }
+        }
+
+        return visible;
+    }
+
+    /**
+     * Combines {@link #inherited} with the local changes of this inventory.
+     * <p>
+     * Keeps count of its visible entries, so only the first call to {@link #size()} walks the inherited entries.
+     */
+    private class LayeredItemList implements IItemList<IAEItemStack> {
+
+        @Override
+        public void add(final IAEItemStack option) {
+            MECraftingInventory.this.notReusable();
+            MECraftingInventory.this.addLocal(option);
+        }
+
+        @Override
+        public IAEItemStack findPrecise(final IAEItemStack i) {
+            if (i == null) {
+                return null;
+            }
+
+            final IAEItemStack local = MECraftingInventory.this.localCache.findPrecise(i);
+            final IAEItemStack found = local != null ? local : MECraftingInventory.this.inherited.findPrecise(i);
+            MECraftingInventory.this.found(i, found);
+            return found;
+        }
+
+        @Override
+        public Collection<IAEItemStack> findFuzzy(final IAEItemStack input, final FuzzyMode fuzzy) {
+            MECraftingInventory.this.notReusable();
+
+            final Collection<IAEItemStack> inheritedMatches = MECraftingInventory.this.inherited.findFuzzy(input,
+                    fuzzy);
+            final Collection<IAEItemStack> localMatches = MECraftingInventory.this.localCache.findFuzzy(input, fuzzy);
+
+            if (localMatches.isEmpty()) {
+                return inheritedMatches;
+            }
+
+            final List<IAEItemStack> matches = new ArrayList<>(inheritedMatches.size() + localMatches.size());
+            for (final IAEItemStack is : inheritedMatches) {
+                final IAEItemStack local = MECraftingInventory.this.localCache.findPrecise(is);
+                matches.add(local != null ? local : is);
+            }
+
+            for (final IAEItemStack is : localMatches) {
+                if (MECraftingInventory.this.inherited.findPrecise(is) == null) {
+                    matches.add(is);
+                }
+            }
+
+            return matches;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            if (MECraftingInventory.this.inheritedVisible < 0) {
+                // stops at the first visible entry instead of counting all inherited ones
+                return !this.iterator().hasNext();
+            }
+
+            return this.size() == 0;
+        }
+
+        @Override
+        public void addStorage(final IAEItemStack option) {
+            MECraftingInventory.this.notReusable();
+
+            if (option != null) {
+                final IAEItemStack stored = option.copy();
+                stored.setCraftable(false);
+                stored.setCountRequestable(0);
+                MECraftingInventory.this.addLocal(stored);
+            }
+        }
+
+        @Override
+        public void addCrafting(final IAEItemStack option) {
+            // crafting inventories ignore craftable entries.
+        }
+
+        @Override
+        public void addRequestable(final IAEItemStack option) {
+            MECraftingInventory.this.notReusable();
+
+            if (option != null) {
+                final IAEItemStack requestable = option.copy();
+                requestable.setStackSize(0);
+                requestable.setCraftable(false);
+                MECraftingInventory.this.addLocal(requestable);
+            }
+        }
+
+        @Override
+        public IAEItemStack getFirstItem() {
+            final Iterator<IAEItemStack> i = this.iterator();
+            return i.hasNext() ? i.next() : null;
+        }
+
+        @Override
+        public int size() {
+            MECraftingInventory.this.notReusable();
+
+            if (MECraftingInventory.this.inheritedVisible < 0) {
+                MECraftingInventory.this.inheritedVisible = countVisible(MECraftingInventory.this.inherited);
+            }
+
+            return MECraftingInventory.this.inheritedVisible + MECraftingInventory.this.localVisible;
+        }
+
+        /**
+         * Visits the non-empty inherited entries, replaced by their local copy if there is one, and then the non-empty
+         * entries only this inventory has.
+         */
+        @Override
+        public Iterator<IAEItemStack> iterator() {
+            MECraftingInventory.this.notReusable();
+
+            final Iterator<IAEItemStack> inheritedEntries = MECraftingInventory.this.inherited.iterator();
+
+            return new AbstractIterator<IAEItemStack>() {
+                private int nextIntroduced = 0;
+
+                @Override
+                protected IAEItemStack computeNext() {
+                    while (inheritedEntries.hasNext()) {
+                        final IAEItemStack is = inheritedEntries.next();
+                        if (!is.isMeaningful()) {
+                            continue;
+                        }
+
+                        final IAEItemStack local = MECraftingInventory.this.localCache.findPrecise(is);
+                        final IAEItemStack current = local != null ? local : is;
+                        if (current.isMeaningful()) {
+                            return current;
+                        }
+                    }
+
+                    // by index, so entries introduced while iterating don't break the iteration
+                    final List<IAEItemStack> introduced = MECraftingInventory.this.introduced;
+                    while (this.nextIntroduced < introduced.size()) {
+                        final IAEItemStack is = introduced.get(this.nextIntroduced++);
+                        if (is.isMeaningful()) {
+                            return is;
+                        }
+                    }
+
+                    return this.endOfData();
+                }
+            };
+        }
+
+        @Override
+        public void resetStatus() {
+            final List<IAEItemStack> visible = new ArrayList<>();
+            for (final IAEItemStack is : this) {
+                visible.add(is);
+            }
+
+            for (final IAEItemStack is : visible) {
+                final IAEItemStack local = MECraftingInventory.this.copyOnWrite(is);
+                local.reset();
+                MECraftingInventory.this.updateVisible(true, local);
+            }
         }
     }
 }
@@ -69,7 +69,13 @@ public IAEFluidStack injectItems(IAEFluidStack input, Actionable type, IActionSo
         FluidStack fluidStack = input.getFluidStack();
 
         // Insert
+        if (type == Actionable.MODULATE) {
+            this.cache.beforeChange();
+        }
         int wasFillled = this.fluidHandler.fill(fluidStack, type.getFluidAction());
+        if (type == Actionable.MODULATE) {
+            this.cache.afterChange();
+        }
         int remaining = fluidStack.getAmount() - wasFillled;
         if (fluidStack.getAmount() == remaining) {
             // The stack was unmodified, target tank is full
@@ -94,7 +100,13 @@ public IAEFluidStack extractItems(IAEFluidStack request, Actionable mode, IActio
         FluidStack requestedFluidStack = request.getFluidStack();
 
         // Drain the fluid from the tank
+        if (mode == Actionable.MODULATE) {
+            this.cache.beforeChange();
+        }
         FluidStack gathered = this.fluidHandler.drain(requestedFluidStack, mode.getFluidAction());
+        if (mode == Actionable.MODULATE) {
+            this.cache.afterChange();
+        }
         if (gathered.isEmpty()) {
             // If nothing was pulled from the tank, return null
             return null;
@@ -160,15 +172,44 @@ private void postDifference(Iterable<IAEFluidStack> a) {
         }
     }
 
+    /**
+     * Keeps a copy of the tanks' content to find out what changed since the last update.
+     * <p/>
+     * Changes made through this adapter are taken over right away without reporting them, because the network already
+     * accounted for them when it filled or drained the tanks.
+     */
     private static class InventoryCache {
         private IAEFluidStack[] cachedAeStacks = new IAEFluidStack[0];
         private final IFluidHandler fluidHandler;
+        private final List<IAEFluidStack> pendingChanges = new ArrayList<>();
 
         public InventoryCache(IFluidHandler fluidHandler) {
             this.fluidHandler = fluidHandler;
         }
 
+        /**
+         * Brings the copy up to date before the adapter changes the tanks, so changes made from outside in the
+         * meantime are still reported with the next update.
+         */
+        public void beforeChange() {
+            this.pendingChanges.addAll(this.update());
+        }
+
+        /**
+         * Takes over the changes the adapter made without reporting them.
+         */
+        public void afterChange() {
+            this.scan();
+        }
+
         public List<IAEFluidStack> update() {
+            final List<IAEFluidStack> changes = new ArrayList<>(this.pendingChanges);
+            this.pendingChanges.clear();
+            changes.addAll(this.scan());
+            return changes;
+        }
+
+        private List<IAEFluidStack> scan() {
             final List<IAEFluidStack> changes = new ArrayList<>();
             final int slots = fluidHandler.getTanks();
 
@@ -115,6 +115,19 @@ public long getReportingValue() {
 
     public void setReportingValue(final long v) {
         this.reportingValue = v;
+
+        // the stack watcher only tells us about changes across the threshold, so move it and look again
+        final IAEFluidStack myStack = this.config.getFluidInSlot(0);
+        if (this.stackWatcher != null && myStack != null && this.stackWatcher.remove(myStack)) {
+            this.stackWatcher.add(myStack, v);
+            try {
+                this.updateReportingValue(this.getProxy().getStorage()
+                        .getInventory(Api.instance().storage().getStorageChannel(IFluidStorageChannel.class)));
+            } catch (final GridAccessException e) {
+                // NOP
+            }
+        }
+
         this.updateState();
     }
 
@@ -219,7 +232,7 @@ private void configureWatchers() {
             try {
                 if (myStack != null) {
                     this.getProxy().getStorage().getInventory(channel).removeListener(this);
-                    this.stackWatcher.add(myStack);
+                    this.stackWatcher.add(myStack, this.reportingValue);
                 } else {
                     this.getProxy().getStorage().getInventory(channel).addListener(this, this.getProxy().getGrid());
                 }
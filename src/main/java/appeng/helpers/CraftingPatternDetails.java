@@ -22,12 +22,10 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -55,7 +53,13 @@
 import appeng.util.Platform;
 import appeng.util.item.AEItemStack;
 
-public class CraftingPatternDetails implements ICraftingPatternDetails, Comparable<CraftingPatternDetails> {
+/**
+ * Decoded patterns are immutable apart from remembering which items were already tested for a slot, so a single
+ * instance is shared by everything holding an equal encoded pattern.
+ *
+ * @see DecodedPatternCache
+ */
+public class CraftingPatternDetails implements ICraftingPatternDetails {
 
     private static final int CRAFTING_GRID_DIMENSION = 3;
     private static final int ALL_INPUT_LIMIT = CRAFTING_GRID_DIMENSION * CRAFTING_GRID_DIMENSION;
@@ -66,20 +70,22 @@ public class CraftingPatternDetails implements ICraftingPatternDetails, Comparab
             .compare(right.getStackSize(), left.getStackSize());
 
     private final CraftingInventory crafting = new CraftingInventory(new ContainerNull(), 3, 3);
-    private final CraftingInventory testFrame = new CraftingInventory(new ContainerNull(), 3, 3);
     private final ItemStack correctOutput;
     private final ICraftingRecipe standardRecipe;
     private final List<IAEItemStack> inputs;
     private final List<IAEItemStack> outputs;
     private final IAEItemStack[] sparseInputs;
     private final IAEItemStack[] sparseOutputs;
-    private final Map<Integer, List<IAEItemStack>> substituteInputs;
+    /**
+     * Candidates per sparse input slot, resolved once so crafting CPUs and calculations can match against them
+     * without touching the recipe.
+     */
+    private final List<List<IAEItemStack>> substituteInputs;
     private final boolean isCraftable;
     private final boolean canSubstitute;
-    private final Set<TestLookup> failCache = new HashSet<>();
-    private final Set<TestLookup> passCache = new HashSet<>();
+    private final Set<TestLookup> failCache = ConcurrentHashMap.newKeySet();
+    private final Set<TestLookup> passCache = ConcurrentHashMap.newKeySet();
     private final IAEItemStack pattern;
-    private int priority = 0;
 
     public CraftingPatternDetails(final IAEItemStack is, final World w) {
         Preconditions.checkArgument(is.getItem() instanceof EncodedPatternItem,
@@ -110,7 +116,6 @@ public CraftingPatternDetails(final IAEItemStack is, final World w) {
             }
 
             in.add(ais != null ? ais.copy() : null);
-            this.testFrame.setInventorySlotContents(x, gs);
         }
 
         if (this.isCraftable) {
@@ -139,7 +144,7 @@ public CraftingPatternDetails(final IAEItemStack is, final World w) {
         final int outputLength = this.isCraftable ? CRAFTING_OUTPUT_LIMIT : PROCESSING_OUTPUT_LIMIT;
         this.sparseInputs = in.toArray(new IAEItemStack[ALL_INPUT_LIMIT]);
         this.sparseOutputs = out.toArray(new IAEItemStack[outputLength]);
-        this.substituteInputs = new HashMap<>(ALL_INPUT_LIMIT);
+        this.substituteInputs = this.resolveSubstituteInputs();
 
         this.inputs = this.condenseStacks(in);
         this.outputs = this.condenseStacks(out);
@@ -158,8 +163,12 @@ public ItemStack getPattern() {
         return this.pattern.createItemStack();
     }
 
+    IAEItemStack getPatternStack() {
+        return this.pattern;
+    }
+
     @Override
-    public synchronized boolean isValidItemForSlot(final int slotIndex, final ItemStack i, final World w) {
+    public boolean isValidItemForSlot(final int slotIndex, final ItemStack i, final World w) {
         if (!this.isCraftable) {
             throw new IllegalStateException("Only crafting recipes supported.");
         }
@@ -176,11 +185,13 @@ public synchronized boolean isValidItemForSlot(final int slotIndex, final ItemSt
                 break;
         }
 
+        // a frame of its own, so slots can be tested concurrently
+        final CraftingInventory testFrame = new CraftingInventory(new ContainerNull(), 3, 3);
         for (int x = 0; x < this.crafting.getSizeInventory(); x++) {
-            this.testFrame.setInventorySlotContents(x, this.crafting.getStackInSlot(x));
+            testFrame.setInventorySlotContents(x, this.crafting.getStackInSlot(x));
         }
 
-        this.testFrame.setInventorySlotContents(slotIndex, i);
+        testFrame.setInventorySlotContents(slotIndex, i);
 
         // If we cannot substitute, the items must match exactly
         if (!canSubstitute && slotIndex < sparseInputs.length) {
@@ -190,11 +201,10 @@ public synchronized boolean isValidItemForSlot(final int slotIndex, final ItemSt
             }
         }
 
-        if (this.standardRecipe.matches(this.testFrame, w)) {
-            final ItemStack testOutput = this.standardRecipe.getCraftingResult(this.testFrame);
+        if (this.standardRecipe.matches(testFrame, w)) {
+            final ItemStack testOutput = this.standardRecipe.getCraftingResult(testFrame);
 
             if (Platform.itemComparisons().isSameItem(this.correctOutput, testOutput)) {
-                this.testFrame.setInventorySlotContents(slotIndex, this.crafting.getStackInSlot(slotIndex));
                 this.markItemAs(slotIndex, i, TestStatus.ACCEPT);
                 return true;
             }
@@ -236,22 +246,33 @@ public boolean canSubstitute() {
 
     @Override
     public List<IAEItemStack> getSubstituteInputs(int slot) {
-        if (this.sparseInputs[slot] == null) {
-            return Collections.emptyList();
-        }
+        return this.substituteInputs.get(slot);
+    }
+
+    private List<List<IAEItemStack>> resolveSubstituteInputs() {
+        final List<List<IAEItemStack>> result = new ArrayList<>(this.sparseInputs.length);
+
+        for (int slot = 0; slot < this.sparseInputs.length; slot++) {
+            if (this.sparseInputs[slot] == null) {
+                result.add(Collections.emptyList());
+            } else if (!this.isCraftable) {
+                result.add(Collections.singletonList(this.sparseInputs[slot]));
+            } else {
+                ItemStack[] matchingStacks = getRecipeIngredient(slot).getMatchingStacks();
+                List<IAEItemStack> itemList = new ArrayList<>(matchingStacks.length + 1);
 
-        return this.substituteInputs.computeIfAbsent(slot, value -> {
-            ItemStack[] matchingStacks = getRecipeIngredient(slot).getMatchingStacks();
-            List<IAEItemStack> itemList = new ArrayList<>(matchingStacks.length + 1);
-            for (ItemStack matchingStack : matchingStacks) {
-                itemList.add(AEItemStack.fromItemStack(matchingStack));
+                // Ensure that the specific item put in by the user is at the beginning,
+                // so that it takes precedence over substitutions
+                itemList.add(this.sparseInputs[slot]);
+                for (ItemStack matchingStack : matchingStacks) {
+                    itemList.add(AEItemStack.fromItemStack(matchingStack));
+                }
+
+                result.add(Collections.unmodifiableList(itemList));
             }
+        }
 
-            // Ensure that the specific item put in by the user is at the beginning,
-            // so that it takes precedence over substitutions
-            itemList.add(0, this.sparseInputs[slot]);
-            return itemList;
-        });
+        return Collections.unmodifiableList(result);
     }
 
     /**
@@ -368,19 +389,23 @@ private TestStatus getStatus(final int slotIndex, final ItemStack i) {
         return TestStatus.TEST;
     }
 
+    /**
+     * Shared patterns have no priority of their own, the crafting grid orders them by the priority of their providers.
+     */
     @Override
     public int getPriority() {
-        return this.priority;
+        return 0;
     }
 
+    /**
+     * Does nothing, because the pattern is shared by everything holding an equal encoded pattern. The crafting grid
+     * takes the priority from the provider instead.
+     *
+     * @deprecated set the priority on the {@link IPriorityHost} providing the pattern
+     */
+    @Deprecated
     @Override
     public void setPriority(final int priority) {
-        this.priority = priority;
-    }
-
-    @Override
-    public int compareTo(final CraftingPatternDetails o) {
-        return Integer.compare(o.priority, this.priority);
     }
 
     @Override
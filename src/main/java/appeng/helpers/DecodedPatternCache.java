@@ -0,0 +1,153 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.helpers;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.IRecipeType;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.world.World;
+
+/**
+ * Shares decoded patterns between everything holding an equal encoded pattern, so interfaces and molecular assemblers
+ * do not look up the recipe and convert the ingredients of the same pattern over and over again.
+ * <p>
+ * Decoded patterns are remembered per crafting recipe table, one for the server and one for the client. Reloading
+ * recipes replaces that table, which drops every pattern decoded against the old recipes. Only the most recently used
+ * patterns are kept, patterns dropped before that are simply decoded again.
+ */
+public final class DecodedPatternCache {
+
+    private static final long MAX_PATTERNS = 4096;
+
+    private static final Generation[] GENERATIONS = new Generation[2];
+
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private DecodedPatternCache() {
+    }
+
+    /**
+     * @return the earlier decoded equal pattern, or null if the pattern has to be decoded.
+     */
+    @Nullable
+    public static synchronized CraftingPatternDetails get(final ItemStack pattern, final World world) {
+        final CompoundNBT tag = pattern.getTag();
+        final CraftingPatternDetails decoded = tag != null
+                ? getGeneration(world).patterns.getIfPresent(new Key(pattern.getItem(), tag))
+                : null;
+
+        if (decoded == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return decoded;
+    }
+
+    public static synchronized void put(final CraftingPatternDetails details, final World world) {
+        final ItemStack pattern = details.getPatternStack().getDefinition();
+        final CompoundNBT tag = pattern.getTag();
+
+        if (tag != null) {
+            getGeneration(world).patterns.put(new Key(pattern.getItem(), tag.copy()), details);
+        }
+    }
+
+    public static synchronized long getHits() {
+        return hits;
+    }
+
+    public static synchronized long getMisses() {
+        return misses;
+    }
+
+    public static synchronized long getSize() {
+        long size = 0;
+        for (final Generation generation : GENERATIONS) {
+            if (generation != null) {
+                size += generation.patterns.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The crafting recipe table is replaced whenever recipes are (re)loaded, on the server as well as on the client.
+     */
+    private static Generation getGeneration(final World world) {
+        final int side = world.isRemote() ? 1 : 0;
+        final Object recipes = world.getRecipeManager().getRecipes(IRecipeType.CRAFTING);
+
+        if (GENERATIONS[side] == null || GENERATIONS[side].recipes != recipes) {
+            GENERATIONS[side] = new Generation(recipes);
+        }
+
+        return GENERATIONS[side];
+    }
+
+    private static final class Generation {
+        private final Object recipes;
+        private final Cache<Key, CraftingPatternDetails> patterns = CacheBuilder.newBuilder()
+                .maximumSize(MAX_PATTERNS).build();
+
+        private Generation(final Object recipes) {
+            this.recipes = recipes;
+        }
+    }
+
+    /**
+     * The tag only describes the pattern together with the item holding it.
+     */
+    private static final class Key {
+        private final Item item;
+        private final CompoundNBT tag;
+        private final int hash;
+
+        private Key(final Item item, final CompoundNBT tag) {
+            this.item = item;
+            this.tag = tag;
+            this.hash = Objects.hash(item, tag);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) obj;
+            return this.item == other.item && this.tag.equals(other.tag);
+        }
+    }
+}
@@ -860,7 +860,6 @@ private boolean acceptsItems(final InventoryAdaptor ad, final CraftingInventory
     public void provideCrafting(final ICraftingProviderHelper craftingTracker) {
         if (this.gridProxy.isActive() && this.craftingList != null) {
             for (final ICraftingPatternDetails details : this.craftingList) {
-                details.setPriority(this.priority);
                 craftingTracker.addCraftingOption(this, details);
             }
         }
@@ -61,6 +61,7 @@
 import appeng.core.Api;
 import appeng.core.AppEng;
 import appeng.crafting.CraftingJob;
+import appeng.crafting.CraftingJobScheduler;
 import appeng.items.misc.PaintBallItem;
 import appeng.me.Grid;
 import appeng.tile.AEBaseTileEntity;
@@ -314,6 +315,9 @@ public void onServerTick(final ServerTickEvent ev) {
                 g.update();
             }
 
+            // drop crafting calculations nobody is waiting for anymore before a worker picks them up
+            CraftingJobScheduler.dropStaleRequests();
+
             // cross world queue.
             processQueueElementsRemaining += this.processQueue(this.serverQueue, null);
 
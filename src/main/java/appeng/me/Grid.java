@@ -214,6 +214,13 @@ public IReadOnlyCollection<Class<? extends IGridHost>> getMachinesClasses() {
         return new ReadOnlyCollection<>(machineKeys);
     }
 
+    /**
+     * @return the machines of the given class, or null if there are none, without allocating an empty set.
+     */
+    MachineSet getMachineSet(final Class<? extends IGridHost> c) {
+        return this.machines.get(c);
+    }
+
     @Override
     public IMachineSet getMachines(final Class<? extends IGridHost> c) {
         final MachineSet s = this.machines.get(c);
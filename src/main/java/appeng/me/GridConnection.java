@@ -36,6 +36,7 @@
 import appeng.api.util.IReadOnlyCollection;
 import appeng.core.AEConfig;
 import appeng.core.AELog;
+import appeng.me.cache.PathGridCache;
 import appeng.me.pathfinding.IPathItem;
 import appeng.util.Platform;
 import appeng.util.ReadOnlyCollection;
@@ -47,6 +48,7 @@ public class GridConnection implements IGridConnection, IPathItem {
     private static final MENetworkChannelsChanged EVENT = new MENetworkChannelsChanged();
     private int channelData = 0;
     private Object visitorIterationNumber = null;
+    private int pathId = -1;
     private GridNode sideA;
     private AEPartLocation fromAtoB;
     private GridNode sideB;
@@ -88,15 +90,13 @@ public AEPartLocation getDirection(final IGridNode side) {
 
     @Override
     public void destroy() {
-        // a connection was destroyed RE-PATH!!
-        final IPathingGrid p = this.sideA.getInternalGrid().getCache(IPathingGrid.class);
-        p.repath();
+        final PathGridCache p = this.sideA.getInternalGrid().getCache(IPathingGrid.class);
+        p.onConnectionDestroyed(this);
 
         this.sideA.removeConnection(this);
         this.sideB.removeConnection(this);
 
-        this.sideA.validateGrid();
-        this.sideB.validateGrid();
+        GridSplitDetector.onDisconnected(this.sideA, this.sideB);
     }
 
     @Override
@@ -143,7 +143,12 @@ public void setControllerRoute(final IPathItem fast, final boolean zeroOut) {
 
     @Override
     public boolean canSupportMoreChannels() {
-        return this.getLastUsedChannels() < 32; // max, PERIOD.
+        return this.getLastUsedChannels() < this.getMaxChannels();
+    }
+
+    @Override
+    public int getMaxChannels() {
+        return 32; // max, PERIOD.
     }
 
     @Override
@@ -161,6 +166,21 @@ public EnumSet<GridFlags> getFlags() {
         return EnumSet.noneOf(GridFlags.class);
     }
 
+    @Override
+    public boolean hasFlag(final GridFlags flag) {
+        return false;
+    }
+
+    @Override
+    public int getPathId() {
+        return this.pathId;
+    }
+
+    @Override
+    public void setPathId(final int pathId) {
+        this.pathId = pathId;
+    }
+
     @Override
     public void finalizeChannels() {
         if (this.getUsedChannels() != this.getLastUsedChannels()) {
@@ -177,6 +197,13 @@ public void finalizeChannels() {
         }
     }
 
+    /**
+     * Sets the channel count without routing, see {@link GridNode#restoreSavedChannels()}.
+     */
+    void restoreChannels(final int channels) {
+        this.channelData = (this.channelData & ~0xff) | channels;
+    }
+
     private int getLastUsedChannels() {
         return this.channelData & 0xff;
     }
@@ -244,13 +271,12 @@ public static GridConnection create(final IGridNode aNode, final IGridNode bNode
             }
         }
 
-        // a connection was destroyed RE-PATH!!
-        final IPathingGrid p = connection.sideA.getInternalGrid().getCache(IPathingGrid.class);
-        p.repath();
-
         connection.sideA.addConnection(connection);
         connection.sideB.addConnection(connection);
 
+        final PathGridCache p = connection.sideA.getInternalGrid().getCache(IPathingGrid.class);
+        p.onConnectionCreated(connection);
+
         return connection;
     }
 }
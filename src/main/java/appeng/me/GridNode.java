@@ -72,10 +72,14 @@ public class GridNode implements IGridNode, IPathItem {
     private GridStorage myStorage = null;
     private Grid myGrid;
     private Object visitorIterationNumber = null;
+    private int pathId = -1;
     // connection criteria
     private int compressedData = 0;
     private int usedChannels = 0;
     private int lastUsedChannels = 0;
+    // channels of this node and of its connections per side when it was saved, -1 if unknown
+    private int savedChannels = -1;
+    private int[] savedSideChannels = null;
 
     public GridNode(final IGridBlock what) {
         this.gridProxy = what;
@@ -124,15 +128,6 @@ boolean hasConnection(final IGridNode otherSide) {
         return false;
     }
 
-    void validateGrid() {
-        final GridSplitDetector gsd = new GridSplitDetector(this.getInternalGrid().getPivot());
-        this.beginVisit(gsd);
-        if (!gsd.isPivotFound()) {
-            final IGridVisitor gp = new GridPropagator(Grid.create(this));
-            this.beginVisit(gp);
-        }
-    }
-
     public Grid getInternalGrid() {
         if (this.myGrid == null) {
             this.myGrid = Grid.create(this);
@@ -287,6 +282,11 @@ public void loadFromNBT(final String name, final CompoundNBT nodeData) {
             this.playerID = node.getInt("p");
             this.setLastSecurityKey(node.getLong("k"));
 
+            if (node.contains("c") && node.getIntArray("sc").length == AEPartLocation.SIDE_LOCATIONS.length) {
+                this.savedChannels = node.getInt("c");
+                this.savedSideChannels = node.getIntArray("sc");
+            }
+
             final long storageID = node.getLong("g");
             final GridStorage gridStorage = WorldData.instance().storageData().getGridStorage(storageID);
             this.setGridStorage(gridStorage);
@@ -304,6 +304,17 @@ public void saveToNBT(final String name, final CompoundNBT nodeData) {
             node.putLong("k", this.getLastSecurityKey());
             node.putLong("g", this.myStorage.getID());
 
+            final int[] sideChannels = new int[AEPartLocation.SIDE_LOCATIONS.length];
+            for (final IGridConnection gc : this.connections) {
+                final AEPartLocation dir = gc.getDirection(this);
+                if (dir != AEPartLocation.INTERNAL) {
+                    sideChannels[dir.ordinal()] = gc.getUsedChannels();
+                }
+            }
+
+            node.putInt("c", this.lastUsedChannels);
+            node.putIntArray("sc", sideChannels);
+
             nodeData.put(name, node);
         } else {
             nodeData.remove(name);
@@ -494,6 +505,14 @@ private void visitorNode(final Object tracker, final IGridVisitor g, final Deque
         }
     }
 
+    Object getVisitorIterationNumber() {
+        return this.visitorIterationNumber;
+    }
+
+    void setVisitorIterationNumber(final Object visitorIterationNumber) {
+        this.visitorIterationNumber = visitorIterationNumber;
+    }
+
     GridStorage getGridStorage() {
         return this.myStorage;
     }
@@ -531,7 +550,8 @@ public boolean canSupportMoreChannels() {
         return this.getUsedChannels() < this.getMaxChannels();
     }
 
-    private int getMaxChannels() {
+    @Override
+    public int getMaxChannels() {
         return CHANNEL_COUNT[this.compressedData & 0x03];
     }
 
@@ -550,6 +570,16 @@ public EnumSet<GridFlags> getFlags() {
         return this.gridProxy.getFlags();
     }
 
+    @Override
+    public int getPathId() {
+        return this.pathId;
+    }
+
+    @Override
+    public void setPathId(final int pathId) {
+        this.pathId = pathId;
+    }
+
     @Override
     public void finalizeChannels() {
         if (this.getFlags().contains(GridFlags.CANNOT_CARRY)) {
@@ -569,6 +599,35 @@ private int getLastUsedChannels() {
         return this.lastUsedChannels;
     }
 
+    public boolean hasSavedChannels() {
+        return this.savedChannels >= 0;
+    }
+
+    /**
+     * Puts back the channels this node and its connections had when the world was saved, without routing them. The
+     * channels of connections inside a block are not saved, they carry as many channels as the emptier of their two
+     * nodes, which is right for parts attached to a cable.
+     */
+    public void restoreSavedChannels() {
+        this.usedChannels = this.savedChannels;
+
+        for (final IGridConnection gc : this.connections) {
+            final AEPartLocation dir = gc.getDirection(this);
+            final GridNode other = (GridNode) gc.getOtherSide(this);
+
+            if (dir == AEPartLocation.INTERNAL) {
+                ((GridConnection) gc).restoreChannels(Math.min(this.savedChannels, other.savedChannels));
+            } else {
+                ((GridConnection) gc).restoreChannels(this.savedSideChannels[dir.ordinal()]);
+            }
+        }
+    }
+
+    public void clearSavedChannels() {
+        this.savedChannels = -1;
+        this.savedSideChannels = null;
+    }
+
     public long getLastSecurityKey() {
         return this.lastSecurityKey;
     }
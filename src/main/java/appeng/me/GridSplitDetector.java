@@ -18,32 +18,98 @@
 
 package appeng.me;
 
-import appeng.api.networking.IGridNode;
-import appeng.api.networking.IGridVisitor;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
-class GridSplitDetector implements IGridVisitor {
+import appeng.api.networking.IGridConnection;
 
-    private final IGridNode pivot;
-    private boolean pivotFound;
+/**
+ * Finds out whether removing a connection split a grid in two.
+ * <p>
+ * Searches outward from both former ends of the connection at the same pace, and stops as soon as the two searches
+ * meet or one of them runs out of nodes. A split therefore only costs time proportional to the smaller part, which is
+ * also the part that is moved to a new grid. The larger part keeps the existing grid.
+ */
+final class GridSplitDetector {
 
-    public GridSplitDetector(final IGridNode pivot) {
-        this.pivot = pivot;
+    private GridSplitDetector() {
     }
 
-    @Override
-    public boolean visitNode(final IGridNode n) {
-        if (n == this.pivot) {
-            this.setPivotFound(true);
-        }
+    static void onDisconnected(final GridNode a, final GridNode b) {
+        final Search searchA = new Search(a);
+        final Search searchB = new Search(b);
+
+        while (true) {
+            if (searchA.isExhausted()) {
+                split(searchA, b);
+                return;
+            }
+            if (searchA.step(searchB)) {
+                return;
+            }
 
-        return !this.isPivotFound();
+            if (searchB.isExhausted()) {
+                split(searchB, a);
+                return;
+            }
+            if (searchB.step(searchA)) {
+                return;
+            }
+        }
     }
 
-    public boolean isPivotFound() {
-        return this.pivotFound;
+    /**
+     * Moves the completely visited part of the grid to a new grid.
+     */
+    private static void split(final Search smaller, final GridNode remaining) {
+        final Grid grid = smaller.start.getInternalGrid();
+
+        final GridNode pivot = (GridNode) grid.getPivot();
+        if (pivot != null && pivot.getVisitorIterationNumber() == smaller.tracker) {
+            grid.setPivot(remaining);
+        }
+
+        smaller.start.beginVisit(new GridPropagator(Grid.create(smaller.start)));
     }
 
-    private void setPivotFound(final boolean pivotFound) {
-        this.pivotFound = pivotFound;
+    private static final class Search {
+        private final Object tracker = new Object();
+        private final Deque<GridNode> queue = new ArrayDeque<>();
+        private final GridNode start;
+
+        private Search(final GridNode start) {
+            this.start = start;
+            start.setVisitorIterationNumber(this.tracker);
+            this.queue.add(start);
+        }
+
+        private boolean isExhausted() {
+            return this.queue.isEmpty();
+        }
+
+        /**
+         * Visits the neighbours of the next node in line.
+         *
+         * @return true if this search reached a node already visited by the other search.
+         */
+        private boolean step(final Search other) {
+            final GridNode node = this.queue.poll();
+
+            for (final IGridConnection gc : node.getConnections()) {
+                final GridNode next = (GridNode) gc.getOtherSide(node);
+                final Object visitedBy = next.getVisitorIterationNumber();
+
+                if (visitedBy == other.tracker) {
+                    return true;
+                }
+
+                if (visitedBy != this.tracker) {
+                    next.setVisitorIterationNumber(this.tracker);
+                    this.queue.add(next);
+                }
+            }
+
+            return false;
+        }
     }
 }
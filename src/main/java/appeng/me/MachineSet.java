@@ -19,6 +19,7 @@
 package appeng.me;
 
 import java.util.HashSet;
+import java.util.Iterator;
 
 import appeng.api.networking.IGridHost;
 import appeng.api.networking.IGridNode;
@@ -28,12 +29,72 @@ public class MachineSet extends HashSet<IGridNode> implements IMachineSet {
 
     private static final long serialVersionUID = 3224660708327386933L;
 
+    private static final IGridNode[] NO_NODES = new IGridNode[0];
+
     private final Class<? extends IGridHost> machine;
+    private transient IGridNode[] snapshot = NO_NODES;
 
     MachineSet(final Class<? extends IGridHost> m) {
         this.machine = m;
     }
 
+    /**
+     * @return the current members. The array is shared until this set changes and must not be modified, but stays
+     *         valid for iteration while nodes are added or removed.
+     */
+    IGridNode[] snapshot() {
+        if (this.snapshot == null) {
+            this.snapshot = this.toArray(NO_NODES);
+        }
+        return this.snapshot;
+    }
+
+    @Override
+    public boolean add(final IGridNode node) {
+        if (super.add(node)) {
+            this.snapshot = null;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        if (super.remove(o)) {
+            this.snapshot = null;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.snapshot = null;
+    }
+
+    @Override
+    public Iterator<IGridNode> iterator() {
+        final Iterator<IGridNode> parent = super.iterator();
+        return new Iterator<IGridNode>() {
+            @Override
+            public boolean hasNext() {
+                return parent.hasNext();
+            }
+
+            @Override
+            public IGridNode next() {
+                return parent.next();
+            }
+
+            @Override
+            public void remove() {
+                parent.remove();
+                MachineSet.this.snapshot = null;
+            }
+        };
+    }
+
     @Override
     public Class<? extends IGridHost> getMachineClass() {
         return this.machine;
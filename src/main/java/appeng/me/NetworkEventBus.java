@@ -18,6 +18,11 @@
 
 package appeng.me;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -26,9 +31,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 
 import appeng.api.networking.IGridNode;
-import appeng.api.networking.IMachineSet;
 import appeng.api.networking.events.MENetworkEvent;
 import appeng.api.networking.events.MENetworkEventSubscribe;
 import appeng.core.AELog;
@@ -93,12 +98,13 @@ MENetworkEvent postEvent(final Grid g, final MENetworkEvent e) {
                         target.invoke(cache.getCache(), e);
                     }
 
-                    // events may create or remove grid nodes in rare cases
-                    final IMachineSet machines = g.getMachines(subscriber.getKey());
-                    final List<IGridNode> work = new ArrayList<>(machines.size());
-                    machines.forEach(work::add);
+                    final MachineSet machines = g.getMachineSet(subscriber.getKey());
+                    if (machines == null) {
+                        continue;
+                    }
 
-                    for (final IGridNode obj : work) {
+                    // events may create or remove grid nodes in rare cases, the snapshot is not affected by that
+                    for (final IGridNode obj : machines.snapshot()) {
                         // stil part of grid?
                         if (machines.contains(obj)) {
                             x++;
@@ -135,6 +141,38 @@ MENetworkEvent postEventTo(final Grid grid, final GridNode node, final MENetwork
         return e;
     }
 
+    /**
+     * Binds the subscriber method to a generated {@link BiConsumer}, so events are delivered by a direct call instead
+     * of through reflection. Falls back to a method handle if the subscriber cannot be linked directly, e.g. because
+     * its class is not accessible from here.
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, MENetworkEvent> createInvoker(final Method method) throws Throwable {
+        method.setAccessible(true);
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle handle = lookup.unreflect(method);
+
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]));
+            return (BiConsumer<Object, MENetworkEvent>) site.getTarget().invokeExact();
+        } catch (final Throwable t) {
+            final MethodHandle generic = handle
+                    .asType(MethodType.methodType(void.class, Object.class, MENetworkEvent.class));
+            return (obj, e) -> {
+                try {
+                    generic.invokeExact(obj, e);
+                } catch (final RuntimeException | Error ex) {
+                    throw ex;
+                } catch (final Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+        }
+    }
+
     private static class NetworkEventDone extends Throwable {
 
         private static final long serialVersionUID = -3079021487019171205L;
@@ -143,18 +181,18 @@ private static class NetworkEventDone extends Throwable {
     private class EventMethod {
 
         private final Class objClass;
-        private final Method objMethod;
+        private final BiConsumer<Object, MENetworkEvent> invoker;
         private final Class objEvent;
 
-        public EventMethod(final Class Event, final Class ObjClass, final Method ObjMethod) {
+        public EventMethod(final Class Event, final Class ObjClass, final Method ObjMethod) throws Throwable {
             this.objClass = ObjClass;
-            this.objMethod = ObjMethod;
+            this.invoker = createInvoker(ObjMethod);
             this.objEvent = Event;
         }
 
         private void invoke(final Object obj, final MENetworkEvent e) throws NetworkEventDone {
             try {
-                this.objMethod.invoke(obj, e);
+                this.invoker.accept(obj, e);
             } catch (final Throwable e1) {
                 AELog.error("[AppEng] Network Event caused exception:");
                 AELog.error("Class: %1s, Object: %2s", obj.getClass().getName(), obj.toString());
@@ -172,7 +210,7 @@ private class MENetworkEventInfo {
 
         private final List<EventMethod> methods = new ArrayList<>();
 
-        private void Add(final Class Event, final Class ObjClass, final Method ObjMethod) {
+        private void Add(final Class Event, final Class ObjClass, final Method ObjMethod) throws Throwable {
             this.methods.add(new EventMethod(Event, ObjClass, ObjMethod));
         }
 
@@ -27,23 +27,25 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 
 import net.minecraft.world.World;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
 import appeng.api.config.AccessRestriction;
 import appeng.api.config.Actionable;
 import appeng.api.networking.IGrid;
@@ -78,10 +80,12 @@
 import appeng.api.storage.data.IItemList;
 import appeng.core.Api;
 import appeng.crafting.CraftingJob;
+import appeng.crafting.CraftingJobScheduler;
 import appeng.crafting.CraftingLink;
 import appeng.crafting.CraftingLinkNexus;
 import appeng.crafting.CraftingWatcher;
 import appeng.helpers.CraftingPatternDetails;
+import appeng.helpers.IPriorityHost;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
 import appeng.me.helpers.BaseActionSource;
 import appeng.me.helpers.GenericInterestManager;
@@ -91,27 +95,22 @@
 public class CraftingGridCache
         implements ICraftingGrid, ICraftingProviderHelper, ICellProvider, IMEInventoryHandler<IAEItemStack> {
 
-    private static final ExecutorService CRAFTING_POOL;
-    private static final Comparator<ICraftingPatternDetails> COMPARATOR = (firstDetail,
-            nextDetail) -> nextDetail.getPriority() - firstDetail.getPriority();
-
-    static {
-        final ThreadFactory factory = ar -> {
-            final Thread crafting = new Thread(ar, "AE Crafting Calculator");
-            crafting.setDaemon(true);
-            return crafting;
-        };
-
-        CRAFTING_POOL = Executors.newCachedThreadPool(factory);
-    }
-
     private final Set<CraftingCPUCluster> craftingCPUClusters = new HashSet<>();
     private final Set<ICraftingProvider> craftingProviders = new HashSet<>();
+    private final Map<ICraftingProvider, ProviderPatterns> providerPatterns = new HashMap<>();
     private final Map<IGridNode, ICraftingWatcher> craftingWatchers = new HashMap<>();
     private final IGrid grid;
     private final Map<ICraftingPatternDetails, List<ICraftingMedium>> craftingMethods = new HashMap<>();
+    /**
+     * Priority of the provider of each medium. Decoded patterns are shared between providers, so the priority of a
+     * pattern is the highest priority of its mediums.
+     */
+    private final Reference2IntMap<ICraftingMedium> mediumPriorities = new Reference2IntOpenHashMap<>();
+    private final Comparator<ICraftingPatternDetails> byPriority = Comparator.comparingInt(this::getPriority)
+            .reversed();
+    private final Map<IAEItemStack, Set<ICraftingPatternDetails>> patternsByOutput = new HashMap<>();
     private final Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> craftableItems = new HashMap<>();
-    private final Set<IAEItemStack> emitableItems = new HashSet<>();
+    private final Multiset<IAEItemStack> emitableItems = HashMultiset.create();
     private final Map<String, CraftingLinkNexus> craftingLinks = new HashMap<>();
     private final Multimap<IAEStack, CraftingWatcher> interests = HashMultimap.create();
     private final GenericInterestManager<CraftingWatcher> interestManager = new GenericInterestManager<>(
@@ -119,6 +118,7 @@
     private IStorageGrid storageGrid;
     private IEnergyGrid energyGrid;
     private boolean updateList = false;
+    private ProviderPatterns collecting;
 
     public CraftingGridCache(final IGrid grid) {
         this.grid = grid;
@@ -175,7 +175,7 @@ public void removeNode(final IGridNode gridNode, final IGridHost machine) {
 
         if (machine instanceof ICraftingProvider) {
             this.craftingProviders.remove(machine);
-            this.updatePatterns();
+            this.updatePatterns((ICraftingProvider) machine);
         }
     }
 
@@ -202,7 +202,7 @@ public void addNode(final IGridNode gridNode, final IGridHost machine) {
 
         if (machine instanceof ICraftingProvider) {
             this.craftingProviders.add((ICraftingProvider) machine);
-            this.updatePatterns();
+            this.updatePatterns((ICraftingProvider) machine);
         }
     }
 
@@ -221,50 +221,169 @@ public void populateGridStorage(final IGridStorage destinationStorage) {
     }
 
     private void updatePatterns() {
-        final Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> oldItems = this.craftableItems;
+        final Set<IAEItemStack> changed = new HashSet<>();
+        for (final ICraftingProvider provider : this.craftingProviders) {
+            this.updatePatterns(provider, changed);
+        }
+        this.postChanges(changed);
+    }
+
+    private void updatePatterns(final ICraftingProvider provider) {
+        final Set<IAEItemStack> changed = new HashSet<>();
+        this.updatePatterns(provider, changed);
+        this.postChanges(changed);
+    }
+
+    /**
+     * Replaces the patterns and emitable items of a single provider, and collects the outputs that actually became or
+     * stopped being craftable, or whose patterns have to be ordered differently.
+     */
+    private void updatePatterns(final ICraftingProvider provider, final Set<IAEItemStack> changed) {
+        ProviderPatterns current = null;
+        if (this.craftingProviders.contains(provider)) {
+            current = new ProviderPatterns();
+            current.priority = provider instanceof IPriorityHost ? ((IPriorityHost) provider).getPriority() : 0;
+            this.collecting = current;
+            try {
+                provider.provideCrafting(this);
+            } finally {
+                this.collecting = null;
+            }
+        }
+
+        // patterns shared with other providers stay, but their priority might change
+        final ProviderPatterns previous = this.providerPatterns.remove(provider);
+        final Object2IntMap<ICraftingPatternDetails> priorities = new Object2IntOpenHashMap<>();
+        this.rememberPriorities(previous, priorities);
+        this.rememberPriorities(current, priorities);
+
+        if (previous != null) {
+            this.removePatterns(previous, changed);
+        }
+
+        if (current != null) {
+            this.providerPatterns.put(provider, current);
+            this.addPatterns(current, changed);
+        }
+
+        for (final Object2IntMap.Entry<ICraftingPatternDetails> entry : priorities.object2IntEntrySet()) {
+            final ICraftingPatternDetails details = entry.getKey();
+            if (this.craftingMethods.containsKey(details) && this.getPriority(details) != entry.getIntValue()) {
+                for (IAEItemStack out : details.getOutputs()) {
+                    out = out.copy();
+                    out.reset();
+                    out.setCraftable(true);
+                    changed.add(out);
+                }
+            }
+        }
+    }
 
-        // erase list.
-        this.craftingMethods.clear();
-        this.craftableItems.clear();
-        this.emitableItems.clear();
+    /**
+     * Tells the network about the outputs collected by {@link #updatePatterns(ICraftingProvider, Set)} all at once.
+     */
+    private void postChanges(final Set<IAEItemStack> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        final List<IAEItemStack> alterations = new ArrayList<>(changed.size());
+        for (final IAEItemStack out : changed) {
+            final Set<ICraftingPatternDetails> methods = this.patternsByOutput.get(out);
+            if (methods == null) {
+                this.craftableItems.remove(out);
+            } else if (methods.size() == 1) {
+                this.craftableItems.put(out, ImmutableList.of(methods.iterator().next()));
+            } else {
+                this.craftableItems.put(out, ImmutableList.sortedCopyOf(this.byPriority, methods));
+            }
+
+            // the network looks up whether the output is still craftable when it sees the flag
+            final IAEItemStack alteration = out.copy();
+            alteration.reset();
+            alteration.setCraftable(true);
+            alterations.add(alteration);
+        }
 
-        // update the stuff that was in the list...
         this.storageGrid.postAlterationOfStoredItems(
-                Api.instance().storage().getStorageChannel(IItemStorageChannel.class), oldItems.keySet(),
+                Api.instance().storage().getStorageChannel(IItemStorageChannel.class), alterations,
                 new BaseActionSource());
+    }
 
-        // re-create list..
-        for (final ICraftingProvider provider : this.craftingProviders) {
-            provider.provideCrafting(this);
+    private void rememberPriorities(final ProviderPatterns patterns,
+            final Object2IntMap<ICraftingPatternDetails> priorities) {
+        if (patterns == null) {
+            return;
+        }
+
+        for (final ICraftingPatternDetails details : patterns.details) {
+            if (this.craftingMethods.containsKey(details)) {
+                priorities.put(details, this.getPriority(details));
+            }
         }
+    }
+
+    private void addPatterns(final ProviderPatterns patterns, final Set<IAEItemStack> changed) {
+        for (int i = 0; i < patterns.details.size(); i++) {
+            final ICraftingPatternDetails details = patterns.details.get(i);
+            List<ICraftingMedium> mediums = this.craftingMethods.get(details);
 
-        final Map<IAEItemStack, Set<ICraftingPatternDetails>> tmpCraft = new HashMap<>();
+            if (mediums == null) {
+                this.craftingMethods.put(details, mediums = new ArrayList<>());
+
+                for (IAEItemStack out : details.getOutputs()) {
+                    out = out.copy();
+                    out.reset();
+                    out.setCraftable(true);
+
+                    this.patternsByOutput.computeIfAbsent(out, o -> new HashSet<>()).add(details);
+                    changed.add(out);
+                }
+            }
+
+            mediums.add(patterns.mediums.get(i));
+            this.mediumPriorities.put(patterns.mediums.get(i), patterns.priority);
+        }
+
+        for (final IAEItemStack emitable : patterns.emitables) {
+            if (this.emitableItems.add(emitable, 1) == 0) {
+                changed.add(emitable);
+            }
+        }
+    }
+
+    private void removePatterns(final ProviderPatterns patterns, final Set<IAEItemStack> changed) {
+        for (int i = 0; i < patterns.details.size(); i++) {
+            final ICraftingPatternDetails details = patterns.details.get(i);
+            final List<ICraftingMedium> mediums = this.craftingMethods.get(details);
+            this.mediumPriorities.removeInt(patterns.mediums.get(i));
+
+            if (mediums == null || !mediums.remove(patterns.mediums.get(i)) || !mediums.isEmpty()) {
+                continue;
+            }
+
+            this.craftingMethods.remove(details);
 
-        // new craftables!
-        for (final ICraftingPatternDetails details : this.craftingMethods.keySet()) {
             for (IAEItemStack out : details.getOutputs()) {
                 out = out.copy();
                 out.reset();
                 out.setCraftable(true);
 
-                Set<ICraftingPatternDetails> methods = tmpCraft.get(out);
-
-                if (methods == null) {
-                    tmpCraft.put(out, methods = new TreeSet<>(COMPARATOR));
+                final Set<ICraftingPatternDetails> methods = this.patternsByOutput.get(out);
+                if (methods != null && methods.remove(details)) {
+                    if (methods.isEmpty()) {
+                        this.patternsByOutput.remove(out);
+                    }
+                    changed.add(out);
                 }
-
-                methods.add(details);
             }
         }
 
-        // make them immutable
-        for (final Entry<IAEItemStack, Set<ICraftingPatternDetails>> e : tmpCraft.entrySet()) {
-            this.craftableItems.put(e.getKey(), ImmutableList.copyOf(e.getValue()));
+        for (final IAEItemStack emitable : patterns.emitables) {
+            if (this.emitableItems.remove(emitable, 1) == 1) {
+                changed.add(emitable);
+            }
         }
-
-        this.storageGrid.postAlterationOfStoredItems(
-                Api.instance().storage().getStorageChannel(IItemStorageChannel.class), this.craftableItems.keySet(),
-                new BaseActionSource());
     }
 
     private void updateCPUClusters() {
@@ -304,26 +423,31 @@ public void updateCPUClusters(final MENetworkCraftingCpuChange c) {
 
     @MENetworkEventSubscribe
     public void updateCPUClusters(final MENetworkCraftingPatternChange c) {
-        this.updatePatterns();
+        // interfaces post the event for their duality, while the grid knows the part or tile hosting it
+        if (this.craftingProviders.contains(c.provider)) {
+            this.updatePatterns(c.provider);
+        } else if (c.node != null && this.craftingProviders.contains(c.node.getMachine())) {
+            this.updatePatterns((ICraftingProvider) c.node.getMachine());
+        } else {
+            this.updatePatterns();
+        }
     }
 
     @Override
     public void addCraftingOption(final ICraftingMedium medium, final ICraftingPatternDetails api) {
         Preconditions.checkArgument(api.getClass() == CraftingPatternDetails.class,
                 "Only supports internal ICraftingPatternDetails for now");
-        List<ICraftingMedium> details = this.craftingMethods.get(api);
-        if (details == null) {
-            details = new ArrayList<>();
-            details.add(medium);
-            this.craftingMethods.put(api, details);
-        } else {
-            details.add(medium);
-        }
+        Preconditions.checkState(this.collecting != null, "Crafting options can only be added while providing");
+        this.collecting.details.add(api);
+        this.collecting.mediums.add(medium);
     }
 
     @Override
     public void setEmitable(final IAEItemStack someItem) {
-        this.emitableItems.add(someItem.copy());
+        Preconditions.checkState(this.collecting != null, "Emitable items can only be set while providing");
+        final IAEItemStack emitable = someItem.copy();
+        emitable.reset();
+        this.collecting.emitables.add(emitable);
     }
 
     @Override
@@ -394,7 +518,7 @@ public IItemList<IAEItemStack> getAvailableItems(final IItemList<IAEItemStack> o
             out.addCrafting(stack);
         }
 
-        for (final IAEItemStack st : this.emitableItems) {
+        for (final IAEItemStack st : this.emitableItems.elementSet()) {
             out.addCrafting(st);
         }
 
@@ -441,7 +565,7 @@ public Future<ICraftingJob> beginCraftingJob(final World world, final IGrid grid
 
         final CraftingJob job = new CraftingJob(world, grid, actionSrc, slotItem, cb);
 
-        return CRAFTING_POOL.submit(job, (ICraftingJob) job);
+        return CraftingJobScheduler.instance().submit(job, grid, actionSrc);
     }
 
     @Override
@@ -503,6 +627,13 @@ public boolean canEmitFor(final IAEItemStack someItem) {
         return this.emitableItems.contains(someItem);
     }
 
+    /**
+     * @return true if the network lists the given item as craftable, i.e. it has a pattern for it or can emit it.
+     */
+    boolean isCraftable(final IAEItemStack someItem) {
+        return this.craftableItems.containsKey(someItem) || this.emitableItems.contains(someItem);
+    }
+
     @Override
     public boolean isRequesting(final IAEItemStack what) {
         return this.requesting(what) > 0;
@@ -530,6 +661,14 @@ public List<ICraftingMedium> getMediums(final ICraftingPatternDetails key) {
         return mediums;
     }
 
+    private int getPriority(final ICraftingPatternDetails details) {
+        int priority = Integer.MIN_VALUE;
+        for (final ICraftingMedium medium : this.getMediums(details)) {
+            priority = Math.max(priority, this.mediumPriorities.getInt(medium));
+        }
+        return priority;
+    }
+
     public boolean hasCpu(final ICraftingCPU cpu) {
         return this.craftingCPUClusters.contains(cpu);
     }
@@ -577,4 +716,14 @@ public void remove() {
             // no..
         }
     }
+
+    /**
+     * Everything a single {@link ICraftingProvider} contributed the last time it was asked.
+     */
+    private static final class ProviderPatterns {
+        private int priority;
+        private final List<ICraftingPatternDetails> details = new ArrayList<>();
+        private final List<ICraftingMedium> mediums = new ArrayList<>();
+        private final List<IAEItemStack> emitables = new ArrayList<>();
+    }
 }
@@ -25,13 +25,11 @@
 import java.util.List;
 import java.util.Map;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
-
 import appeng.api.networking.IGrid;
 import appeng.api.networking.IGridHost;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.IGridStorage;
+import appeng.api.networking.crafting.ICraftingGrid;
 import appeng.api.networking.events.MENetworkCellArrayUpdate;
 import appeng.api.networking.events.MENetworkEventSubscribe;
 import appeng.api.networking.security.IActionHost;
@@ -45,13 +43,14 @@
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.cells.ICellContainer;
 import appeng.api.storage.cells.ICellProvider;
+import appeng.api.storage.channels.IItemStorageChannel;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
 import appeng.core.Api;
 import appeng.me.helpers.BaseActionSource;
-import appeng.me.helpers.GenericInterestManager;
 import appeng.me.helpers.MachineSource;
+import appeng.me.helpers.ThresholdInterestManager;
 import appeng.me.storage.ItemWatcher;
 import appeng.me.storage.NetworkInventoryHandler;
 
@@ -60,11 +59,12 @@ public class GridStorageCache implements IStorageGrid {
     private final IGrid myGrid;
     private final HashSet<ICellProvider> activeCellProviders = new HashSet<>();
     private final HashSet<ICellProvider> inactiveCellProviders = new HashSet<>();
-    private final SetMultimap<IAEStack, ItemWatcher> interests = HashMultimap.create();
-    private final GenericInterestManager<ItemWatcher> interestManager = new GenericInterestManager<>(this.interests);
+    private final ThresholdInterestManager<ItemWatcher> interestManager = new ThresholdInterestManager<>();
     private final HashMap<IGridNode, IStackWatcher> watchers = new HashMap<>();
     private Map<IStorageChannel<? extends IAEStack>, NetworkInventoryHandler<?>> storageNetworks;
     private Map<IStorageChannel<? extends IAEStack>, NetworkMonitor<?>> storageMonitors;
+    private final IItemStorageChannel itemChannel;
+    private final ItemLevelAggregator itemLevels;
 
     public GridStorageCache(final IGrid g) {
         this.myGrid = g;
@@ -73,11 +73,16 @@ public GridStorageCache(final IGrid g) {
 
         Api.instance().storage().storageChannels()
                 .forEach(channel -> this.storageMonitors.put(channel, new NetworkMonitor<>(this, channel)));
+
+        this.itemChannel = Api.instance().storage().getStorageChannel(IItemStorageChannel.class);
+        this.itemLevels = new ItemLevelAggregator(
+                (NetworkMonitor<IAEItemStack>) this.storageMonitors.get(this.itemChannel));
     }
 
     @Override
     public void onUpdateTick() {
         this.storageMonitors.forEach((channel, monitor) -> monitor.onTick());
+        this.itemLevels.onTick();
     }
 
     @Override
@@ -101,6 +106,8 @@ public void removeNode(final IGridNode node, final IGridHost machine) {
                 this.watchers.remove(machine);
             }
         }
+
+        this.itemLevels.removeWatch(node);
     }
 
     @Override
@@ -244,7 +251,16 @@ private <T extends IAEStack<T>, C extends IStorageChannel<T>> NetworkInventoryHa
     @Override
     public void postAlterationOfStoredItems(final IStorageChannel<?> chan, final Iterable<? extends IAEStack<?>> input,
             final IActionSource src) {
-        this.storageMonitors.get(chan).postChange(true, (Iterable) input, src);
+        final NetworkMonitor<?> monitor = this.storageMonitors.get(chan);
+
+        // unless we are the cause, the changes happened outside of the network storage and any known routes for them
+        // can no longer be trusted
+        final NetworkInventoryHandler<?> storageNetwork = this.storageNetworks.get(chan);
+        if (storageNetwork != null && !monitor.isOperationInProgress()) {
+            storageNetwork.invalidateRoutes(input);
+        }
+
+        monitor.postChange(true, (Iterable) input, src);
     }
 
     @Override
@@ -259,7 +275,45 @@ public void unregisterCellProvider(final ICellProvider provider) {
         this.inactiveCellProviders.remove(provider);
     }
 
-    public GenericInterestManager<ItemWatcher> getInterestManager() {
+    /**
+     * @return the running totals of stored items used by fuzzy and "all items" level emitters
+     */
+    public ItemLevelAggregator getItemLevels() {
+        return this.itemLevels;
+    }
+
+    void onStoredAmountChanged(final IStorageChannel<?> chan, final IAEStack<?> stack, final long amount) {
+        if (chan == this.itemChannel) {
+            this.itemLevels.onStoredAmountChanged((IAEItemStack) stack, amount);
+        }
+    }
+
+    /**
+     * @return true if the given stack is craftable on this network. Only the crafting grid lists craftable items.
+     */
+    boolean isCraftable(final IStorageChannel<?> chan, final IAEStack<?> stack) {
+        if (chan != this.itemChannel) {
+            return false;
+        }
+
+        final ICraftingGrid craftingGrid = this.getGrid().getCache(ICraftingGrid.class);
+        return craftingGrid instanceof CraftingGridCache
+                && ((CraftingGridCache) craftingGrid).isCraftable((IAEItemStack) stack);
+    }
+
+    void onStorageListInvalidated(final IStorageChannel<?> chan) {
+        if (chan == this.itemChannel) {
+            this.itemLevels.onStorageListInvalidated();
+        }
+    }
+
+    void onStorageListRebuilt(final IStorageChannel<?> chan, final IItemList<?> storageList) {
+        if (chan == this.itemChannel) {
+            this.itemLevels.onStorageListRebuilt((IItemList<IAEItemStack>) storageList);
+        }
+    }
+
+    public ThresholdInterestManager<ItemWatcher> getInterestManager() {
         return this.interestManager;
     }
 
@@ -0,0 +1,288 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.networking.IGridNode;
+import appeng.api.storage.data.IAEItemStack;
+
+/**
+ * Keeps running totals of the stored amounts watched by level emitters that don't use a precise filter: the total of
+ * all stored items, or the total of all variants of an item within a fuzzy damage range.
+ * <p>
+ * The totals follow the differences applied to the storage list of the item {@link NetworkMonitor}, so reading them is
+ * free and a storage change only costs a lookup by item. Watches are only called back when the amount they watch
+ * crosses their threshold.
+ */
+public final class ItemLevelAggregator {
+
+    private final NetworkMonitor<IAEItemStack> monitor;
+    private final Counter total = new Counter(null, 0, 0);
+    private final Map<Item, List<Counter>> fuzzyCounters = new IdentityHashMap<>();
+    private final Map<IGridNode, Watch> watches = new HashMap<>();
+    /**
+     * Set while the storage list waits for a full rebuild, the totals are recounted once that happened.
+     */
+    private boolean recountNeeded = true;
+
+    ItemLevelAggregator(final NetworkMonitor<IAEItemStack> monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Starts watching the amount matched by the given filter, replacing any previous watch of the node.
+     *
+     * @param filter    the item to watch, or null to watch the total of all items
+     * @param threshold onCrossed is called whenever the amount goes from below this value to at least this value, or
+     *                  the other way around
+     */
+    public Watch watch(final IGridNode node, @Nullable final IAEItemStack filter, final FuzzyMode mode,
+            final long threshold, final Runnable onCrossed) {
+        this.removeWatch(node);
+
+        final Counter counter = filter == null ? this.total : this.getOrCreateCounter(filter, mode);
+        final Watch watch = new Watch(node, counter, threshold, onCrossed);
+        this.watches.put(node, watch);
+        counter.addWatch(watch);
+        return watch;
+    }
+
+    void removeWatch(final IGridNode node) {
+        final Watch watch = this.watches.remove(node);
+
+        if (watch != null) {
+            watch.removed = true;
+            final Counter counter = watch.counter;
+            counter.removeWatch(watch);
+
+            if (counter != this.total && counter.thresholds.isEmpty()) {
+                final List<Counter> counters = this.fuzzyCounters.get(counter.item);
+                counters.remove(counter);
+                if (counters.isEmpty()) {
+                    this.fuzzyCounters.remove(counter.item);
+                }
+            }
+        }
+    }
+
+    void onTick() {
+        // nobody else might look at the storage list for a while, but the watches still want to hear about it
+        if (this.recountNeeded && !this.watches.isEmpty()) {
+            this.monitor.getStorageList();
+        }
+    }
+
+    void onStoredAmountChanged(final IAEItemStack stack, final long amount) {
+        if (this.recountNeeded) {
+            return;
+        }
+
+        this.total.add(amount);
+
+        final List<Counter> counters = this.fuzzyCounters.get(stack.getItem());
+        if (counters != null) {
+            final int damage = stack.getItemDamage();
+            for (final Counter counter : counters) {
+                if (counter.matches(damage)) {
+                    counter.add(amount);
+                }
+            }
+        }
+    }
+
+    void onStorageListInvalidated() {
+        this.recountNeeded = true;
+    }
+
+    void onStorageListRebuilt(final Iterable<IAEItemStack> storageList) {
+        this.recountNeeded = false;
+
+        final List<Counter> counters = new ArrayList<>();
+        counters.add(this.total);
+        this.fuzzyCounters.values().forEach(counters::addAll);
+
+        final long[] previous = new long[counters.size()];
+        for (int i = 0; i < previous.length; i++) {
+            previous[i] = counters.get(i).amount;
+            counters.get(i).amount = 0;
+        }
+
+        for (final IAEItemStack stack : storageList) {
+            this.total.amount += stack.getStackSize();
+
+            final List<Counter> itemCounters = this.fuzzyCounters.get(stack.getItem());
+            if (itemCounters != null) {
+                final int damage = stack.getItemDamage();
+                for (final Counter counter : itemCounters) {
+                    if (counter.matches(damage)) {
+                        counter.amount += stack.getStackSize();
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < previous.length; i++) {
+            counters.get(i).notifyCrossed(previous[i]);
+        }
+    }
+
+    private void ensureCounted() {
+        if (this.recountNeeded) {
+            this.monitor.getStorageList();
+        }
+    }
+
+    private Counter getOrCreateCounter(final IAEItemStack filter, final FuzzyMode mode) {
+        final ItemStack definition = filter.getDefinition();
+        final Item item = definition.getItem();
+
+        // The same damage range that FuzzyItemVariantList#findFuzzy selects, any variant matches for other items
+        int lowerDamage = 0;
+        int upperDamage = 0;
+        if (item.isDamageable()) {
+            final int breakpoint = mode.calculateBreakPoint(definition.getMaxDamage());
+            final boolean damaged = mode != FuzzyMode.IGNORE_ALL && definition.getDamage() > breakpoint;
+            lowerDamage = mode == FuzzyMode.IGNORE_ALL || damaged ? definition.getMaxDamage() : breakpoint;
+            upperDamage = mode == FuzzyMode.IGNORE_ALL || !damaged ? -1 : breakpoint;
+        }
+
+        final List<Counter> counters = this.fuzzyCounters.computeIfAbsent(item, i -> new ArrayList<>());
+        for (final Counter counter : counters) {
+            if (counter.lowerDamage == lowerDamage && counter.upperDamage == upperDamage) {
+                return counter;
+            }
+        }
+
+        final Counter counter = new Counter(item, lowerDamage, upperDamage);
+        counters.add(counter);
+
+        if (!this.recountNeeded) {
+            for (final IAEItemStack stack : this.monitor.getStorageList().findFuzzy(filter, mode)) {
+                counter.amount += stack.getStackSize();
+            }
+        }
+
+        return counter;
+    }
+
+    /**
+     * The total for one item within a damage range, or the grand total if there is no item.
+     */
+    private static final class Counter {
+        private final Item item;
+        // matched damage values are in (upperDamage, lowerDamage], or anything if both are equal
+        private final int lowerDamage;
+        private final int upperDamage;
+        private final NavigableMap<Long, List<Watch>> thresholds = new TreeMap<>();
+        private long amount;
+
+        private Counter(final Item item, final int lowerDamage, final int upperDamage) {
+            this.item = item;
+            this.lowerDamage = lowerDamage;
+            this.upperDamage = upperDamage;
+        }
+
+        private boolean matches(final int damage) {
+            return this.lowerDamage == this.upperDamage || this.upperDamage < damage && damage <= this.lowerDamage;
+        }
+
+        private void add(final long amount) {
+            final long previous = this.amount;
+            this.amount += amount;
+            this.notifyCrossed(previous);
+        }
+
+        private void notifyCrossed(final long previous) {
+            if (previous == this.amount || this.thresholds.isEmpty()) {
+                return;
+            }
+
+            // a threshold is crossed if exactly one of the two amounts is at least the threshold
+            final NavigableMap<Long, List<Watch>> crossed = this.thresholds.subMap(Math.min(previous, this.amount),
+                    false, Math.max(previous, this.amount), true);
+
+            if (!crossed.isEmpty()) {
+                // the callbacks may well change our watches, and even remove the ones still to be notified
+                final List<Watch> toNotify = new ArrayList<>();
+                crossed.values().forEach(toNotify::addAll);
+                for (final Watch watch : toNotify) {
+                    if (!watch.removed) {
+                        watch.onCrossed.run();
+                    }
+                }
+            }
+        }
+
+        private void addWatch(final Watch watch) {
+            this.thresholds.computeIfAbsent(watch.threshold, t -> new ArrayList<>(1)).add(watch);
+        }
+
+        private void removeWatch(final Watch watch) {
+            final List<Watch> list = this.thresholds.get(watch.threshold);
+            if (list != null && list.remove(watch) && list.isEmpty()) {
+                this.thresholds.remove(watch.threshold);
+            }
+        }
+    }
+
+    public final class Watch {
+        private final IGridNode node;
+        private final Counter counter;
+        private final Runnable onCrossed;
+        private long threshold;
+        private boolean removed = false;
+
+        private Watch(final IGridNode node, final Counter counter, final long threshold, final Runnable onCrossed) {
+            this.node = node;
+            this.counter = counter;
+            this.threshold = threshold;
+            this.onCrossed = onCrossed;
+        }
+
+        public long getAmount() {
+            ItemLevelAggregator.this.ensureCounted();
+            return this.counter.amount;
+        }
+
+        public void setThreshold(final long threshold) {
+            this.counter.removeWatch(this);
+            this.threshold = threshold;
+            this.counter.addWatch(this);
+        }
+
+        public void remove() {
+            if (ItemLevelAggregator.this.watches.get(this.node) == this) {
+                ItemLevelAggregator.this.removeWatch(this.node);
+            }
+        }
+    }
+}
@@ -18,10 +18,11 @@
 
 package appeng.me.cache;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -42,12 +43,21 @@
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.core.AELog;
+import appeng.me.helpers.ThresholdInterestManager;
 import appeng.me.storage.ItemWatcher;
+import appeng.me.storage.NetworkInventoryHandler;
 
 public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
     @Nonnull
     private static final Deque<NetworkMonitor<?>> GLOBAL_DEPTH = Queues.newArrayDeque();
 
+    /**
+     * Ticks between two consistency checks of the incrementally maintained storage list, if enabled.
+     */
+    private static final int CONSISTENCY_CHECK_INTERVAL = 20 * 60;
+
     @Nonnull
     private final GridStorageCache myGridCache;
     @Nonnull
@@ -58,15 +68,32 @@
     private final Map<IMEMonitorHandlerReceiver<T>, Object> listeners;
 
     private boolean sendEvent = false;
-    private boolean hasChanged = false;
+    /**
+     * Set when {@link #cachedList} can no longer be kept up to date from differences and has to be rebuilt from the
+     * network storage, i.e. after the cell array changed.
+     */
+    private boolean hasChanged = true;
     @Nonnegative
     private int localDepthSemaphore = 0;
+    /**
+     * Number of our own injections/extractions in progress, their combined difference is applied once they are done.
+     */
+    @Nonnegative
+    private int operationDepth = 0;
+    private int ticksUntilConsistencyCheck = CONSISTENCY_CHECK_INTERVAL;
+    @Nonnull
+    private final StorageSnapshot<T> storageSnapshot;
+    /**
+     * Set when {@link #cachedList} was rebuilt and {@link #storageSnapshot} has to start over from it.
+     */
+    private boolean storageSnapshotStale = true;
 
     public NetworkMonitor(final GridStorageCache cache, final IStorageChannel<T> chan) {
         this.myGridCache = cache;
         this.myChannel = chan;
         this.cachedList = chan.createList();
         this.listeners = new HashMap<>();
+        this.storageSnapshot = new StorageSnapshot<>(chan::createList);
     }
 
     @Override
@@ -86,11 +113,15 @@ public T extractItems(final T request, final Actionable mode, final IActionSourc
         }
 
         this.localDepthSemaphore++;
+        this.operationDepth++;
         final T leftover = this.getHandler().extractItems(request, mode, src);
         this.localDepthSemaphore--;
+        this.operationDepth--;
 
         if (this.localDepthSemaphore == 0) {
             this.monitorDifference(request.copy(), leftover, true, src);
+        } else if (this.operationDepth == 0) {
+            this.applyDifference(this.getDifference(request, leftover, true));
         }
 
         return leftover;
@@ -126,13 +157,40 @@ public int getSlot() {
     public IItemList<T> getStorageList() {
         if (this.hasChanged) {
             this.hasChanged = false;
+            this.storageSnapshotStale = true;
             this.cachedList.resetStatus();
-            return this.getAvailableItems(this.cachedList);
+            this.getAvailableItems(this.cachedList);
+            this.myGridCache.onStorageListRebuilt(this.myChannel, this.cachedList);
         }
 
         return this.cachedList;
     }
 
+    /**
+     * Returns a read-only copy of the stored amounts of this network, see {@link StorageSnapshot} for what it holds.
+     * The copy is shared by all callers until the storage list changes and may be read from other threads, which is
+     * what allows crafting calculations to use it as their base instead of copying the network for every job.
+     */
+    @Nonnull
+    public IItemList<T> getStorageSnapshot() {
+        final IItemList<T> storageList = this.getStorageList();
+
+        if (this.storageSnapshotStale) {
+            this.storageSnapshotStale = false;
+            this.storageSnapshot.reset(storageList);
+        }
+
+        return this.storageSnapshot.get();
+    }
+
+    /**
+     * @return true if the given source may extract from this network at all.
+     */
+    public boolean canExtract(final IActionSource src) {
+        final IMEInventoryHandler<T> handler = this.getHandler();
+        return !(handler instanceof NetworkInventoryHandler) || ((NetworkInventoryHandler<T>) handler).canExtract(src);
+    }
+
     @Override
     public T injectItems(final T input, final Actionable mode, final IActionSource src) {
         if (mode == Actionable.SIMULATE) {
@@ -140,11 +198,15 @@ public T injectItems(final T input, final Actionable mode, final IActionSource s
         }
 
         this.localDepthSemaphore++;
+        this.operationDepth++;
         final T leftover = this.getHandler().injectItems(input, mode, src);
         this.localDepthSemaphore--;
+        this.operationDepth--;
 
         if (this.localDepthSemaphore == 0) {
             this.monitorDifference(input.copy(), leftover, false, src);
+        } else if (this.operationDepth == 0) {
+            this.applyDifference(this.getDifference(input, leftover, false));
         }
 
         return leftover;
@@ -176,6 +238,16 @@ private Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> getListeners() {
 
     private T monitorDifference(final IAEStack<T> original, final T leftOvers, final boolean extraction,
             final IActionSource src) {
+        final T diff = this.getDifference(original, leftOvers, extraction);
+
+        if (diff.getStackSize() != 0) {
+            this.postChangesToListeners(ImmutableList.of(diff), src);
+        }
+
+        return leftOvers;
+    }
+
+    private T getDifference(final IAEStack<T> original, final T leftOvers, final boolean extraction) {
         final T diff = original.copy();
 
         if (extraction) {
@@ -184,15 +256,86 @@ private T monitorDifference(final IAEStack<T> original, final T leftOvers, final
             diff.decStackSize(leftOvers.getStackSize());
         }
 
-        if (diff.getStackSize() != 0) {
-            this.postChangesToListeners(ImmutableList.of(diff), src);
+        return diff;
+    }
+
+    /**
+     * Applies the given changes to {@link #cachedList}. Changes that only carry crafting information (no amount) update
+     * the craftable and requestable state of the entry in place.
+     */
+    private void applyChanges(final boolean add, final Iterable<T> changes) {
+        for (final T changedItem : changes) {
+            if (this.hasChanged) {
+                // a full rebuild is pending anyway
+                return;
+            }
+
+            if (changedItem == null) {
+                continue;
+            }
+
+            if (changedItem.getStackSize() == 0) {
+                if (changedItem.isCraftable() || changedItem.getCountRequestable() > 0) {
+                    this.applyCraftingState(changedItem, add);
+                }
+            } else {
+                this.applyDifference(changedItem, add ? changedItem.getStackSize() : -changedItem.getStackSize());
+            }
         }
+    }
 
-        return leftOvers;
+    private void applyDifference(final T diff) {
+        if (!this.hasChanged && diff.getStackSize() != 0) {
+            this.applyDifference(diff, diff.getStackSize());
+        }
     }
 
-    private void notifyListenersOfChange(final Iterable<T> diff, final IActionSource src) {
+    private void applyDifference(final T changedItem, final long amount) {
+        if (!this.storageSnapshotStale) {
+            this.storageSnapshot.applyDifference(changedItem, amount);
+        }
+
+        final T existing = this.cachedList.findPrecise(changedItem);
+
+        if (existing != null) {
+            existing.incStackSize(amount);
+        } else {
+            final T added = changedItem.empty();
+            added.setStackSize(amount);
+            this.cachedList.addStorage(added);
+        }
+
+        this.myGridCache.onStoredAmountChanged(this.myChannel, changedItem, amount);
+    }
+
+    /**
+     * A craftable flag on a change only says that the craftability of the stack may have changed, so the current state
+     * is looked up. Requestable amounts are differences like stored amounts.
+     */
+    private void applyCraftingState(final T changedItem, final boolean add) {
+        T existing = this.cachedList.findPrecise(changedItem);
+
+        if (existing == null) {
+            this.cachedList.addStorage(changedItem.empty());
+            existing = this.cachedList.findPrecise(changedItem);
+        }
+
+        if (changedItem.isCraftable()) {
+            existing.setCraftable(this.myGridCache.isCraftable(this.myChannel, changedItem));
+        }
+
+        final long requestable = changedItem.getCountRequestable();
+        if (requestable > 0) {
+            existing.setCountRequestable(Math.max(0, existing.getCountRequestable() + (add ? requestable : -requestable)));
+        }
+    }
+
+    private void invalidateStorageList() {
         this.hasChanged = true;
+        this.myGridCache.onStorageListInvalidated(this.myChannel);
+    }
+
+    private void notifyListenersOfChange(final Iterable<T> diff, final IActionSource src) {
         final Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> i = this.getListeners();
 
         while (i.hasNext()) {
@@ -212,6 +355,11 @@ private void postChangesToListeners(final Iterable<T> changes, final IActionSour
 
     protected void postChange(final boolean add, final Iterable<T> changes, final IActionSource src) {
         if (this.localDepthSemaphore > 0 || GLOBAL_DEPTH.contains(this)) {
+            // Changes caused by one of our own operations are covered by its difference, everything else (i.e. changes
+            // made by a listener) still has to end up in the storage list.
+            if (this.operationDepth == 0) {
+                this.applyChanges(add, changes);
+            }
             return;
         }
 
@@ -220,49 +368,95 @@ protected void postChange(final boolean add, final Iterable<T> changes, final IA
 
         this.sendEvent = true;
 
+        this.applyChanges(add, changes);
+
         this.notifyListenersOfChange(changes, src);
 
+        this.notifyWatchers(add, changes, src);
+
+        final NetworkMonitor<?> last = GLOBAL_DEPTH.pop();
+        this.localDepthSemaphore--;
+
+        if (last != this) {
+            throw new IllegalStateException("Invalid Access to Networked Storage API detected.");
+        }
+    }
+
+    /**
+     * Tells the watchers of the changed stacks about the changes, once they have been applied. Watchers with a
+     * threshold only hear about changes that cross it. A stack may change more than once in a batch, so each change is
+     * checked against the amounts right before and after it.
+     */
+    private void notifyWatchers(final boolean add, final Iterable<T> changes, final IActionSource src) {
+        final ThresholdInterestManager<ItemWatcher> interests = this.myGridCache.getInterestManager();
+        Map<T, Long> amounts = null;
+
         for (final T changedItem : changes) {
+            if (changedItem != null && interests.containsKey(changedItem)) {
+                if (amounts == null) {
+                    amounts = new HashMap<>();
+                }
+
+                amounts.merge(changedItem, add ? -changedItem.getStackSize() : changedItem.getStackSize(), Long::sum);
+            }
+        }
+
+        if (amounts == null) {
+            return;
+        }
+
+        // turn the summed differences into the amounts before the batch
+        final IItemList<T> storageList = this.getStorageList();
+        for (final Entry<T, Long> entry : amounts.entrySet()) {
+            final T stored = storageList.findPrecise(entry.getKey());
+            entry.setValue(entry.getValue() + (stored == null ? 0 : stored.getStackSize()));
+        }
+
+        final List<ItemWatcher> watchers = new ArrayList<>();
+        for (final T changedItem : changes) {
+            if (changedItem == null || !amounts.containsKey(changedItem)) {
+                continue;
+            }
+
             T difference = changedItem;
 
-            if (!add && changedItem != null) {
+            if (!add) {
                 difference = changedItem.copy();
                 difference.setStackSize(-changedItem.getStackSize());
             }
 
-            if (this.myGridCache.getInterestManager().containsKey(changedItem)) {
-                final Collection<ItemWatcher> list = this.myGridCache.getInterestManager().get(changedItem);
+            final long before = amounts.get(changedItem);
+            final long after = before + difference.getStackSize();
+            amounts.put(changedItem, after);
 
-                if (!list.isEmpty()) {
-                    IAEStack<T> fullStack = this.getStorageList().findPrecise(changedItem);
-
-                    if (fullStack == null) {
-                        fullStack = changedItem.copy();
-                        fullStack.setStackSize(0);
-                    }
+            watchers.clear();
+            interests.collect(changedItem, before, after, watchers);
+            if (watchers.isEmpty()) {
+                continue;
+            }
 
-                    this.myGridCache.getInterestManager().enableTransactions();
+            IAEStack<T> fullStack = storageList.findPrecise(changedItem);
+            if (fullStack == null || fullStack.getStackSize() != after) {
+                fullStack = changedItem.copy();
+                fullStack.setStackSize(after);
+            }
 
-                    for (final ItemWatcher iw : list) {
-                        iw.getHost().onStackChange(this.getStorageList(), fullStack, difference, src,
-                                this.getChannel());
-                    }
+            interests.enableTransactions();
 
-                    this.myGridCache.getInterestManager().disableTransactions();
-                }
+            for (final ItemWatcher iw : watchers) {
+                iw.getHost().onStackChange(storageList, fullStack, difference, src, this.getChannel());
             }
-        }
 
-        final NetworkMonitor<?> last = GLOBAL_DEPTH.pop();
-        this.localDepthSemaphore--;
-
-        if (last != this) {
-            throw new IllegalStateException("Invalid Access to Networked Storage API detected.");
+            interests.disableTransactions();
         }
     }
 
+    boolean isOperationInProgress() {
+        return this.operationDepth > 0;
+    }
+
     void forceUpdate() {
-        this.hasChanged = true;
+        this.invalidateStorageList();
 
         final Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> i = this.getListeners();
         while (i.hasNext()) {
@@ -282,5 +476,44 @@ void onTick() {
             this.sendEvent = false;
             this.myGridCache.getGrid().postEvent(new MENetworkStorageEvent(this, this.myChannel));
         }
+
+        if (AEConfig.instance().isStorageListConsistencyCheck() && --this.ticksUntilConsistencyCheck <= 0) {
+            this.ticksUntilConsistencyCheck = CONSISTENCY_CHECK_INTERVAL;
+            this.checkConsistency();
+        }
+    }
+
+    /**
+     * Compares {@link #cachedList} against a full rebuild, reports any drift and schedules a rebuild if needed.
+     */
+    private void checkConsistency() {
+        if (this.hasChanged) {
+            return;
+        }
+
+        final IItemList<T> expected = this.getAvailableItems(this.myChannel.createList());
+        int drifted = 0;
+        T example = null;
+
+        for (final T stack : expected) {
+            final T cached = this.cachedList.findPrecise(stack);
+            if (cached == null ? stack.getStackSize() != 0 : cached.getStackSize() != stack.getStackSize()) {
+                drifted++;
+                example = example == null ? stack : example;
+            }
+        }
+
+        for (final T cached : this.cachedList) {
+            if (cached.getStackSize() != 0 && expected.findPrecise(cached) == null) {
+                drifted++;
+                example = example == null ? cached : example;
+            }
+        }
+
+        if (drifted > 0) {
+            AELog.warn("Storage list of %s drifted from the network storage for %d entries (e.g. %s), rebuilding it",
+                    this.myChannel.getClass().getSimpleName(), drifted, example);
+            this.invalidateStorageList();
+        }
     }
 }
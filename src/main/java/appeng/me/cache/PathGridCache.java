@@ -19,6 +19,7 @@
 package appeng.me.cache;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -27,6 +28,7 @@
 
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.nbt.CompoundNBT;
 
 import appeng.api.features.AEFeature;
 import appeng.api.networking.GridFlags;
@@ -56,10 +58,14 @@
 import appeng.me.pathfinding.ControllerValidator;
 import appeng.me.pathfinding.IPathItem;
 import appeng.me.pathfinding.PathSegment;
+import appeng.me.pathfinding.PathingGraph;
 import appeng.tile.networking.ControllerTileEntity;
 
 public class PathGridCache implements IPathingGrid {
 
+    private static final String TAG_TOPOLOGY = "channelTopology";
+    private static final String TAG_CHANNELS_BY_BLOCKS = "channelsByBlocks";
+
     private final List<PathSegment> active = new ArrayList<>();
     private final Set<ControllerTileEntity> controllers = new HashSet<>();
     private final Set<IGridNode> requireChannels = new HashSet<>();
@@ -74,7 +80,18 @@ public class PathGridCache implements IPathingGrid {
     private ControllerState controllerState = ControllerState.NO_CONTROLLER;
     private int ticksUntilReady = 20;
     private int lastChannels = 0;
-    private HashSet<IPathItem> semiOpen = new HashSet<>();
+    private final List<IPathItem> route = new ArrayList<>();
+    // nodes that joined since the last tick, which can maybe get a channel without rebooting the network
+    private final Set<GridNode> pendingNodes = new HashSet<>();
+    // nodes whose channel was already given back when their last connection was destroyed
+    private final Set<IGridNode> releasedNodes = new HashSet<>();
+    private boolean allChannelsAssigned = false;
+    // routes and channels of the network while it is being routed
+    private PathingGraph graph = null;
+    // channels saved with the world, used to bring the network online before routing has finished
+    private boolean hasSavedChannels = false;
+    private long savedTopology;
+    private int savedChannelsByBlocks;
 
     public PathGridCache(final IGrid g) {
         this.myGrid = g;
@@ -86,8 +103,22 @@ public void onUpdateTick() {
             this.recalcController();
         }
 
+        if (!this.pendingNodes.isEmpty()) {
+            if (!this.updateNetwork && !this.assignPendingChannels()) {
+                this.repath();
+            }
+
+            this.pendingNodes.clear();
+        }
+
         if (this.updateNetwork) {
-            if (!this.booting) {
+            this.graph = null;
+
+            // the saved channels keep the network online while the routes are checked
+            final boolean restored = this.controllerState == ControllerState.CONTROLLER_ONLINE
+                    && this.restoreSavedChannels();
+
+            if (!this.booting && !restored) {
                 this.myGrid.postEvent(new MENetworkBootingStatusChange());
             }
 
@@ -116,21 +147,19 @@ public void onUpdateTick() {
             } else {
                 final int nodes = this.myGrid.getNodes().size();
                 this.ticksUntilReady = 20 + Math.max(0, nodes / 100 - 20);
-                final HashSet<IPathItem> closedList = new HashSet<>();
-                this.semiOpen = new HashSet<>();
+                this.graph = PathingGraph.build(this.myGrid);
+                final BitSet closedList = new BitSet(this.graph.size());
+                final BitSet semiOpen = new BitSet(this.graph.size());
 
-                // myGrid.getPivot().beginVisit( new AdHocChannelUpdater( 0 )
-                // );
                 for (final IGridNode node : this.myGrid.getMachines(ControllerTileEntity.class)) {
-                    closedList.add((IPathItem) node);
+                    final int controllerId = ((IPathItem) node).getPathId();
+                    closedList.set(controllerId);
                     for (final IGridConnection gcc : node.getConnections()) {
                         final GridConnection gc = (GridConnection) gcc;
                         if (!(gc.getOtherSide(node).getMachine() instanceof ControllerTileEntity)) {
-                            final List<IPathItem> open = new ArrayList<>();
-                            closedList.add(gc);
-                            open.add(gc);
-                            gc.setControllerRoute((GridNode) node, true);
-                            this.active.add(new PathSegment(this, open, this.semiOpen, closedList));
+                            closedList.set(gc.getPathId());
+                            this.graph.setControllerRoute(gc.getPathId(), controllerId);
+                            this.active.add(new PathSegment(this, this.graph, gc.getPathId(), semiOpen, closedList));
                         }
                     }
                 }
@@ -151,16 +180,28 @@ public void onUpdateTick() {
 
             if (this.active.isEmpty() && this.ticksUntilReady <= 0) {
                 if (this.controllerState == ControllerState.CONTROLLER_ONLINE) {
-                    final Iterator<ControllerTileEntity> controllerIterator = this.controllers.iterator();
-                    if (controllerIterator.hasNext()) {
-                        final ControllerTileEntity controller = controllerIterator.next();
-                        controller.getGridNode(AEPartLocation.INTERNAL).beginVisit(new ControllerChannelUpdater());
+                    if (this.graph != null) {
+                        this.graph.apply();
+                        this.graph = null;
                     }
+
+                    this.finalizeControllerChannels();
+
+                    // the network was routed with the current topology, anything saved before is outdated now
+                    this.hasSavedChannels = false;
                 }
 
                 // check for achievements
                 this.achievementPost();
 
+                this.allChannelsAssigned = this.controllerState == ControllerState.CONTROLLER_ONLINE;
+                for (final IGridNode node : this.requireChannels) {
+                    if (!node.meetsChannelRequirements()) {
+                        this.allChannelsAssigned = false;
+                        break;
+                    }
+                }
+
                 this.booting = false;
                 this.setChannelPowerUsage(this.getChannelsByBlocks() / 128.0);
                 this.myGrid.postEvent(new MENetworkBootingStatusChange());
@@ -185,7 +226,10 @@ public void removeNode(final IGridNode gridNode, final IGridHost machine) {
             this.blockDense.remove(gridNode);
         }
 
-        this.repath();
+        this.pendingNodes.remove(gridNode);
+        if (!this.releasedNodes.remove(gridNode)) {
+            this.repath();
+        }
     }
 
     @Override
@@ -205,7 +249,148 @@ public void addNode(final IGridNode gridNode, final IGridHost machine) {
             this.blockDense.add(gridNode);
         }
 
-        this.repath();
+        if (machine instanceof ControllerTileEntity || flags.contains(GridFlags.MULTIBLOCK)) {
+            this.repath();
+        } else {
+            // wait for the connection that brought this node in
+            this.pendingNodes.add((GridNode) gridNode);
+        }
+    }
+
+    /**
+     * Called after a connection was created on this grid. Attaching a new node to the end of an existing route can be
+     * handled without rebooting the network, anything else needs new routes.
+     */
+    public void onConnectionCreated(final GridConnection connection) {
+        if (!this.pendingNodes.contains(connection.a()) && !this.pendingNodes.contains(connection.b())) {
+            this.repath();
+        }
+    }
+
+    /**
+     * Called before a connection of this grid is destroyed. If it only connected a single node to the rest of the
+     * network, the channel of that node is given back directly. Otherwise, the network has to be routed again.
+     */
+    public void onConnectionDestroyed(final GridConnection connection) {
+        final GridNode leaf;
+        if (connection.a().getConnections().size() == 1) {
+            leaf = (GridNode) connection.a();
+        } else if (connection.b().getConnections().size() == 1) {
+            leaf = (GridNode) connection.b();
+        } else {
+            leaf = null;
+        }
+
+        final int channels = connection.getUsedChannels();
+
+        // the connection has to lead away from the leaf towards a controller
+        if (leaf == null || connection.a() == leaf || channels > 1 || leaf.hasFlag(GridFlags.MULTIBLOCK)
+                || leaf.getMachine() instanceof ControllerTileEntity || !this.pendingNodes.isEmpty()
+                || !this.isIncrementalUpdatePossible()) {
+            this.repath();
+            return;
+        }
+
+        if (channels > 0) {
+            // the leaf and its connection
+            int routeLength = 2;
+
+            IPathItem pi = connection.getControllerRoute();
+            while (pi != null) {
+                pi.incrementChannelCount(-channels);
+                pi.finalizeChannels();
+                routeLength++;
+                pi = pi.getControllerRoute();
+            }
+
+            this.setChannelsInUse(this.getChannelsInUse() - channels);
+            this.setChannelsByBlocks(this.getChannelsByBlocks() - channels * routeLength);
+            this.setChannelPowerUsage(this.getChannelsByBlocks() / 128.0);
+        }
+
+        this.releasedNodes.add(leaf);
+    }
+
+    /**
+     * Routes nodes that joined an online network through a single new connection, and gives them a channel if they
+     * need one.
+     *
+     * @return false if the network has to be routed from scratch instead.
+     */
+    private boolean assignPendingChannels() {
+        if (!this.isIncrementalUpdatePossible()) {
+            return false;
+        }
+
+        for (final GridNode node : this.pendingNodes) {
+            if (node.getConnections().size() != 1) {
+                return false;
+            }
+
+            final GridConnection connection = (GridConnection) node.getConnections().iterator().next();
+            final GridNode parent = (GridNode) connection.getOtherSide(node);
+
+            // the new connection must not have replaced the parent's own route
+            if (this.pendingNodes.contains(parent) || parent.getControllerRoute() == connection) {
+                return false;
+            }
+
+            connection.setControllerRoute(parent, true);
+            node.setControllerRoute(connection, true);
+
+            final EnumSet<GridFlags> flags = node.getFlags();
+            if (flags.contains(GridFlags.REQUIRE_CHANNEL)
+                    && !this.useChannel(node, flags.contains(GridFlags.COMPRESSED_CHANNEL))) {
+                return false;
+            }
+
+            IPathItem pi = node;
+            while (pi != null) {
+                pi.finalizeChannels();
+                pi = pi.getControllerRoute();
+            }
+        }
+
+        this.setChannelPowerUsage(this.getChannelsByBlocks() / 128.0);
+        this.achievementPost();
+        return true;
+    }
+
+    /**
+     * Channels can only be handed out along the existing routes while the network is online and no node is missing a
+     * channel, otherwise the result could differ from routing the network from scratch.
+     */
+    private boolean isIncrementalUpdatePossible() {
+        return this.controllerState == ControllerState.CONTROLLER_ONLINE && !this.recalculateControllerNextTick
+                && !this.updateNetwork && !this.booting && this.active.isEmpty() && this.allChannelsAssigned;
+    }
+
+    /**
+     * Reserves a channel on every step of the route from the given item to a controller.
+     *
+     * @return false if any step of the route is already full.
+     */
+    public boolean useChannel(final IPathItem start, final boolean dense) {
+        // walk the route only once, and remember it in case it can carry another channel
+        this.route.clear();
+
+        IPathItem pi = start;
+        while (pi != null) {
+            if (!pi.canSupportMoreChannels() || dense && pi.hasFlag(GridFlags.CANNOT_CARRY_COMPRESSED)) {
+                return false;
+            }
+
+            this.route.add(pi);
+            pi = pi.getControllerRoute();
+        }
+
+        for (int i = 0; i < this.route.size(); i++) {
+            this.route.get(i).incrementChannelCount(1);
+        }
+
+        this.setChannelsByBlocks(this.getChannelsByBlocks() + this.route.size());
+        this.setChannelsInUse(this.getChannelsInUse() + 1);
+        return true;
     }
 
     @Override
@@ -215,12 +400,111 @@ public void onSplit(final IGridStorage storageB) {
 
     @Override
     public void onJoin(final IGridStorage storageB) {
+        final CompoundNBT data = storageB.dataObject();
 
+        if (data.contains(TAG_TOPOLOGY)) {
+            this.hasSavedChannels = true;
+            this.savedTopology = data.getLong(TAG_TOPOLOGY);
+            this.savedChannelsByBlocks = data.getInt(TAG_CHANNELS_BY_BLOCKS);
+        }
     }
 
     @Override
     public void populateGridStorage(final IGridStorage storage) {
+        final CompoundNBT data = storage.dataObject();
+
+        // only a completely routed network can be restored
+        if (this.controllerState == ControllerState.CONTROLLER_ONLINE && !this.updateNetwork && !this.booting
+                && this.active.isEmpty() && this.pendingNodes.isEmpty()) {
+            data.putLong(TAG_TOPOLOGY, this.getTopologyFingerprint());
+            data.putInt(TAG_CHANNELS_BY_BLOCKS, this.getChannelsByBlocks());
+        } else if (this.hasSavedChannels) {
+            // still loading, pass the saved channels on to whichever grid this one ends up in
+            data.putLong(TAG_TOPOLOGY, this.savedTopology);
+            data.putInt(TAG_CHANNELS_BY_BLOCKS, this.savedChannelsByBlocks);
+        } else {
+            data.remove(TAG_TOPOLOGY);
+            data.remove(TAG_CHANNELS_BY_BLOCKS);
+        }
+    }
+
+    /**
+     * Brings the network online with the channels its nodes had when the world was saved, if the network still looks
+     * exactly like it did back then. The network is still routed afterwards, and any channel that turns out different
+     * is corrected once routing has finished.
+     *
+     * @return true if the saved channels were used.
+     */
+    private boolean restoreSavedChannels() {
+        if (!this.hasSavedChannels) {
+            return false;
+        }
+
+        for (final IGridNode node : this.myGrid.getNodes()) {
+            if (!((GridNode) node).hasSavedChannels()) {
+                return false;
+            }
+        }
+
+        // parts of the network may still be loading, try again on the next repath
+        if (this.getTopologyFingerprint() != this.savedTopology) {
+            return false;
+        }
+
+        for (final IGridNode node : this.myGrid.getNodes()) {
+            ((GridNode) node).restoreSavedChannels();
+            ((GridNode) node).clearSavedChannels();
+        }
+
+        this.finalizeControllerChannels();
+        this.hasSavedChannels = false;
+        this.setChannelPowerUsage(this.savedChannelsByBlocks / 128.0);
+        return true;
+    }
+
+    private void finalizeControllerChannels() {
+        final Iterator<ControllerTileEntity> controllerIterator = this.controllers.iterator();
+        if (controllerIterator.hasNext()) {
+            final ControllerTileEntity controller = controllerIterator.next();
+            controller.getGridNode(AEPartLocation.INTERNAL).beginVisit(new ControllerChannelUpdater());
+        }
+    }
+
+    /**
+     * Sums up the position, type, flags and connected sides of every node, independent of the order the nodes are
+     * visited in.
+     */
+    private long getTopologyFingerprint() {
+        long fingerprint = 0;
+
+        for (final IGridNode node : this.myGrid.getNodes()) {
+            final DimensionalCoord dc = node.getGridBlock().getLocation();
+
+            long hash = ((long) dc.x & 0x3FFFFFF) << 38 | ((long) dc.z & 0x3FFFFFF) << 12 | (long) dc.y & 0xFFF;
+            hash = hash * 31 + dc.getWorld().getDimensionKey().getLocation().hashCode();
+            hash = hash * 31 + node.getMachine().getClass().getName().hashCode();
+
+            for (final GridFlags flag : node.getGridBlock().getFlags()) {
+                hash = hash * 31 + flag.ordinal();
+            }
+
+            int sides = 0;
+            for (final IGridConnection gc : node.getConnections()) {
+                sides |= 1 << gc.getDirection(node).ordinal();
+            }
+            hash = hash * 31 + sides;
+            hash = hash * 31 + node.getConnections().size();
+
+            fingerprint += mix(hash);
+        }
+
+        return fingerprint;
+    }
 
+    private static long mix(final long hash) {
+        long h = (hash ^ hash >>> 33) * 0xff51afd7ed558ccdL;
+        h = (h ^ h >>> 33) * 0xc4ceb9fe1a85ec53L;
+        return h ^ h >>> 33;
     }
 
     private void recalcController() {
@@ -254,11 +538,11 @@ private void recalcController() {
     }
 
     private int calculateRequiredChannels() {
-        this.semiOpen.clear();
+        final Set<IPathItem> semiOpen = new HashSet<>();
 
         int depth = 0;
         for (final IGridNode nodes : this.requireChannels) {
-            if (!this.semiOpen.contains(nodes)) {
+            if (!semiOpen.contains(nodes)) {
                 final IGridBlock gb = nodes.getGridBlock();
                 final EnumSet<GridFlags> flags = gb.getFlags();
 
@@ -272,7 +556,7 @@ private int calculateRequiredChannels() {
                     final IGridMultiblock gmb = (IGridMultiblock) gb;
                     final Iterator<IGridNode> i = gmb.getMultiblockNodes();
                     while (i.hasNext()) {
-                        this.semiOpen.add((IPathItem) i.next());
+                        semiOpen.add((IPathItem) i.next());
                     }
                 }
             }
@@ -0,0 +1,292 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.AbstractIterator;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+
+/**
+ * Read-only copies of the amounts stored in a network, which crafting calculations use as their base instead of
+ * copying the network for every job.
+ * <p>
+ * The copies hold what the network stores, not what a given source could extract right now. Items that a storage
+ * handler lists but refuses to hand out, e.g. a storage bus on an inventory that limits extraction, are planned with
+ * and only found to be missing when the job is started, just like items that were taken out after planning.
+ * <p>
+ * The copies share a base that is only rebuilt once enough entries changed. Entries changed since then are kept in a
+ * small overlay, which is patched with the same differences as the network's storage list. Neither is changed once it
+ * is part of a handed out copy, so other threads can read the copies, and the overlay is copied before the next patch.
+ */
+final class StorageSnapshot<T extends IAEStack<T>> {
+
+    /**
+     * The overlay may grow to this many entries, or to a 16th of the base if that is more, before the base is rebuilt.
+     */
+    static final int MIN_OVERLAY_LIMIT = 256;
+
+    private final Supplier<IItemList<T>> listFactory;
+
+    /**
+     * Stacks that had a stored amount when the base was built.
+     */
+    private IItemList<T> base;
+    private int baseSize;
+    /**
+     * Entries changed since the base was built, replacing those of {@link #base}. They may be empty to hide a base
+     * entry.
+     */
+    private IItemList<T> overlay;
+    private List<T> overlayEntries;
+    /**
+     * Set once {@link #overlay} is part of a handed out copy and must not be changed anymore.
+     */
+    private boolean overlayShared;
+    @Nullable
+    private IItemList<T> published;
+
+    StorageSnapshot(final Supplier<IItemList<T>> listFactory) {
+        this.listFactory = listFactory;
+        this.reset(Collections.emptyList());
+    }
+
+    /**
+     * Starts over from the stored amounts of the given stacks.
+     */
+    void reset(final Iterable<T> storageList) {
+        final IItemList<T> base = this.listFactory.get();
+        int size = 0;
+
+        for (final T stack : storageList) {
+            if (stack.getStackSize() > 0) {
+                base.add(stored(stack, stack.getStackSize()));
+                size++;
+            }
+        }
+
+        this.base = base;
+        this.baseSize = size;
+        this.overlay = this.listFactory.get();
+        this.overlayEntries = new ArrayList<>();
+        this.overlayShared = false;
+        this.published = null;
+    }
+
+    /**
+     * Changes the stored amount of the given stack by the given amount.
+     */
+    void applyDifference(final T stack, final long amount) {
+        if (amount == 0) {
+            return;
+        }
+
+        if (this.overlayShared) {
+            this.copyOverlay();
+        }
+        this.published = null;
+
+        T entry = this.overlay.findPrecise(stack);
+        if (entry == null) {
+            final T inBase = this.base.findPrecise(stack);
+            this.overlay.add(stored(stack, inBase == null ? 0 : inBase.getStackSize()));
+            entry = this.overlay.findPrecise(stack);
+            this.overlayEntries.add(entry);
+        }
+
+        entry.incStackSize(amount);
+    }
+
+    /**
+     * @return a copy of the current stored amounts, which stays the same until it is no longer current.
+     */
+    IItemList<T> get() {
+        if (this.published == null) {
+            if (this.overlayEntries.size() > Math.max(MIN_OVERLAY_LIMIT, this.baseSize / 16)) {
+                this.reset(new View<>(this.base, this.overlay, this.overlayEntries));
+            }
+
+            this.published = new View<>(this.base, this.overlay, this.overlayEntries);
+            this.overlayShared = true;
+        }
+
+        return this.published;
+    }
+
+    private void copyOverlay() {
+        final IItemList<T> overlay = this.listFactory.get();
+        final List<T> overlayEntries = new ArrayList<>(this.overlayEntries.size());
+
+        for (final T entry : this.overlayEntries) {
+            overlay.add(entry);
+            overlayEntries.add(overlay.findPrecise(entry));
+        }
+
+        this.overlay = overlay;
+        this.overlayEntries = overlayEntries;
+        this.overlayShared = false;
+    }
+
+    private static <T extends IAEStack<T>> T stored(final T stack, final long amount) {
+        final T stored = stack.empty();
+        stored.setStackSize(amount);
+        return stored;
+    }
+
+    /**
+     * The base with the overlay on top. Only stacks with a stored amount are visible.
+     */
+    private static final class View<T extends IAEStack<T>> implements IItemList<T> {
+        private final IItemList<T> base;
+        private final IItemList<T> overlay;
+        private final List<T> overlayEntries;
+
+        private View(final IItemList<T> base, final IItemList<T> overlay, final List<T> overlayEntries) {
+            this.base = base;
+            this.overlay = overlay;
+            this.overlayEntries = overlayEntries;
+        }
+
+        @Override
+        public T findPrecise(final T i) {
+            if (i == null) {
+                return null;
+            }
+
+            final T changed = this.overlay.findPrecise(i);
+            final T current = changed != null ? changed : this.base.findPrecise(i);
+            return current != null && current.getStackSize() > 0 ? current : null;
+        }
+
+        @Override
+        public Collection<T> findFuzzy(final T input, final FuzzyMode fuzzy) {
+            final Collection<T> baseMatches = this.base.findFuzzy(input, fuzzy);
+            final Collection<T> overlayMatches = this.overlay.findFuzzy(input, fuzzy);
+
+            if (overlayMatches.isEmpty()) {
+                return baseMatches;
+            }
+
+            final List<T> matches = new ArrayList<>(baseMatches.size() + overlayMatches.size());
+            for (final T is : baseMatches) {
+                final T changed = this.overlay.findPrecise(is);
+                if (changed == null) {
+                    matches.add(is);
+                }
+            }
+
+            for (final T is : overlayMatches) {
+                if (is.getStackSize() > 0) {
+                    matches.add(is);
+                }
+            }
+
+            return matches;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !this.iterator().hasNext();
+        }
+
+        @Override
+        public T getFirstItem() {
+            final Iterator<T> i = this.iterator();
+            return i.hasNext() ? i.next() : null;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (final Iterator<T> i = this.iterator(); i.hasNext(); i.next()) {
+                size++;
+            }
+
+            return size;
+        }
+
+        /**
+         * Visits the base entries, replaced by their changed version if there is one, and then the entries only the
+         * overlay has.
+         */
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<T> baseEntries = this.base.iterator();
+            final Iterator<T> overlayEntries = this.overlayEntries.iterator();
+
+            return new AbstractIterator<T>() {
+                @Override
+                protected T computeNext() {
+                    while (baseEntries.hasNext()) {
+                        final T is = baseEntries.next();
+                        final T changed = View.this.overlay.findPrecise(is);
+                        final T current = changed != null ? changed : is;
+                        if (current.getStackSize() > 0) {
+                            return current;
+                        }
+                    }
+
+                    while (overlayEntries.hasNext()) {
+                        final T is = overlayEntries.next();
+                        if (is.getStackSize() > 0 && View.this.base.findPrecise(is) == null) {
+                            return is;
+                        }
+                    }
+
+                    return this.endOfData();
+                }
+            };
+        }
+
+        @Override
+        public void add(final T option) {
+            throw new UnsupportedOperationException("Storage snapshots are read-only");
+        }
+
+        @Override
+        public void addStorage(final T option) {
+            throw new UnsupportedOperationException("Storage snapshots are read-only");
+        }
+
+        @Override
+        public void addCrafting(final T option) {
+            throw new UnsupportedOperationException("Storage snapshots are read-only");
+        }
+
+        @Override
+        public void addRequestable(final T option) {
+            throw new UnsupportedOperationException("Storage snapshots are read-only");
+        }
+
+        @Override
+        public void resetStatus() {
+            throw new UnsupportedOperationException("Storage snapshots are read-only");
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package appeng.me.cache;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.PriorityQueue;
 
 import com.google.common.base.Preconditions;
@@ -35,6 +36,7 @@
 import appeng.api.networking.ticking.ITickManager;
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.networking.ticking.TickingRequest;
+import appeng.core.AEConfig;
 import appeng.me.cache.helpers.TickTracker;
 
 public class TickManagerCache implements ITickManager {
@@ -60,12 +62,62 @@ public long getAvgNanoTime(final IGridNode node) {
             return -1;
         }
 
-        return 0;
+        return Math.max(0, tt.getAvgNanos());
+    }
+
+    public long getMaxNanoTime(final IGridNode node) {
+        TickTracker tt = this.awake.get(node);
+
+        if (tt == null) {
+            tt = this.sleeping.get(node);
+        }
+
+        if (tt == null) {
+            return -1;
+        }
+
+        return tt.getMaxNanos();
+    }
+
+    /**
+     * @return the estimated nanoseconds this grid's nodes spend per server tick. Each awake node's average is spread
+     *         over its current tick interval, sleeping nodes are not ticked and cost nothing.
+     */
+    public long getAvgNanoTime() {
+        long total = 0;
+
+        for (final TickTracker tt : this.awake.values()) {
+            total += tt.getAvgNanosPerTick();
+        }
+
+        return total;
+    }
+
+    /**
+     * Sums up the tick times of this grid's nodes by the class of the machine being ticked.
+     */
+    public Map<Class<?>, TickTime> getTickTimeByMachine() {
+        final Map<Class<?>, TickTime> times = new HashMap<>();
+
+        for (final TickTracker tt : this.awake.values()) {
+            times.computeIfAbsent(tt.getGridTickable().getClass(), c -> new TickTime()).add(tt, true);
+        }
+        for (final TickTracker tt : this.sleeping.values()) {
+            times.computeIfAbsent(tt.getGridTickable().getClass(), c -> new TickTime()).add(tt, false);
+        }
+
+        return times;
+    }
+
+    public void resetTickTimes() {
+        this.awake.values().forEach(TickTracker::resetTickTime);
+        this.sleeping.values().forEach(TickTracker::resetTickTime);
     }
 
     @Override
     public void onUpdateTick() {
         TickTracker tt = null;
+        final boolean timing = AEConfig.instance().isTickTiming();
 
         try {
             this.currentTick++;
@@ -81,7 +133,15 @@ public void onUpdateTick() {
                 this.upcomingTicks.poll();
 
                 final int diff = (int) (this.currentTick - tt.getLastTick());
-                final TickRateModulation mod = tt.getGridTickable().tickingRequest(tt.getNode(), diff);
+                final TickRateModulation mod;
+
+                if (timing) {
+                    final long start = System.nanoTime();
+                    mod = tt.getGridTickable().tickingRequest(tt.getNode(), diff);
+                    tt.recordTickTime(System.nanoTime() - start);
+                } else {
+                    mod = tt.getGridTickable().tickingRequest(tt.getNode(), diff);
+                }
 
                 switch (mod) {
                     case FASTER:
@@ -224,4 +284,39 @@ public boolean wakeDevice(final IGridNode node) {
 
         return false;
     }
+
+    /**
+     * Tick time of all nodes of one machine type.
+     */
+    public static final class TickTime {
+        private int nodes;
+        private long avgNanos;
+        private long maxNanos;
+
+        private void add(final TickTracker tt, final boolean awake) {
+            this.nodes++;
+            if (awake) {
+                this.avgNanos += tt.getAvgNanosPerTick();
+            }
+            this.maxNanos = Math.max(this.maxNanos, tt.getMaxNanos());
+        }
+
+        public int getNodes() {
+            return this.nodes;
+        }
+
+        /**
+         * @return the estimated nanoseconds all nodes spend per server tick, see {@link TickManagerCache#getAvgNanoTime()}.
+         */
+        public long getAvgNanos() {
+            return this.avgNanos;
+        }
+
+        /**
+         * @return the slowest single tick of any node.
+         */
+        public long getMaxNanos() {
+            return this.maxNanos;
+        }
+    }
 }
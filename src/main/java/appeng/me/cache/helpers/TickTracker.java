@@ -37,6 +37,9 @@ public class TickTracker implements Comparable<TickTracker> {
     private long lastTick;
     private int currentRate;
 
+    private long avgNanos = -1;
+    private long maxNanos;
+
     public TickTracker(final TickingRequest req, final IGridNode node, final IGridTickable gt, final long currentTick) {
         this.request = req;
         this.gt = gt;
@@ -103,6 +106,44 @@ public void setLastTick(final long lastTick) {
         this.lastTick = lastTick;
     }
 
+    /**
+     * Records how long one call to {@link IGridTickable#tickingRequest} took. Keeps a rolling average that follows
+     * the most recent ~16 calls, and the slowest call seen so far.
+     */
+    public void recordTickTime(final long nanos) {
+        if (this.avgNanos < 0) {
+            this.avgNanos = nanos;
+        } else {
+            this.avgNanos += (nanos - this.avgNanos) >> 4;
+        }
+
+        this.maxNanos = Math.max(this.maxNanos, nanos);
+    }
+
+    /**
+     * @return rolling average nanoseconds per call, or -1 if this node was never timed.
+     */
+    public long getAvgNanos() {
+        return this.avgNanos;
+    }
+
+    /**
+     * @return rolling average nanoseconds per call spread over the current tick interval, i.e. what this node costs
+     *         per server tick while it is awake.
+     */
+    public long getAvgNanosPerTick() {
+        return Math.max(0, this.avgNanos) / Math.max(1, this.currentRate);
+    }
+
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    public void resetTickTime() {
+        this.avgNanos = -1;
+        this.maxNanos = 0;
+    }
+
     public IGridNode getNode() {
         return this.node;
     }
@@ -21,15 +21,21 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SetMultimap;
 
 import net.minecraft.inventory.CraftingInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
@@ -39,6 +45,8 @@
 import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.fml.hooks.BasicEventHooks;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
 import appeng.api.config.Actionable;
 import appeng.api.config.FuzzyMode;
 import appeng.api.config.PowerMultiplier;
@@ -87,6 +95,17 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU {
     private final BlockPos boundsMax;
     private final int[] usedOps = new int[3];
     private final Map<ICraftingPatternDetails, TaskProgress> tasks = new HashMap<>();
+    /**
+     * Tasks that are looked at every tick. Tasks that are missing ingredients are moved to {@link #blockedTasks} and
+     * only come back once an item they could use arrives in {@link #inventory}.
+     */
+    private final Set<ICraftingPatternDetails> readyTasks = new LinkedHashSet<>();
+    private final Set<ICraftingPatternDetails> blockedTasks = new HashSet<>();
+    private final SetMultimap<Item, ICraftingPatternDetails> blockedByItem = HashMultimap.create();
+    /**
+     * Scratch space of {@link #canCraft(ICraftingPatternDetails)}.
+     */
+    private final Object2IntOpenHashMap<IAEItemStack> consumedCount = new Object2IntOpenHashMap<>();
     // INSTANCE sate
     private final List<CraftingTileEntity> tiles = new ArrayList<>();
     private final List<CraftingTileEntity> storage = new ArrayList<>();
@@ -307,6 +326,7 @@ public IAEItemStack injectItems(final IAEItemStack input, final Actionable type,
                     }
 
                     // 2000
+                    this.unblockTasks(what);
                     return this.inventory.injectItems(what, type, src);
                 }
 
@@ -337,6 +357,7 @@ public IAEItemStack injectItems(final IAEItemStack input, final Actionable type,
                     return leftover; // ignore it.
                 }
 
+                this.unblockTasks(insert);
                 this.inventory.injectItems(insert, type, src);
                 this.markDirty();
 
@@ -449,13 +470,70 @@ private IGrid getGrid() {
         return null;
     }
 
+    private void clearTasks() {
+        this.tasks.clear();
+        this.readyTasks.clear();
+        this.blockedTasks.clear();
+        this.blockedByItem.clear();
+    }
+
+    /**
+     * Takes a task that is missing ingredients out of the tick loop until one of its possible ingredients arrives.
+     */
+    private void blockTask(final ICraftingPatternDetails details) {
+        this.readyTasks.remove(details);
+        this.blockedTasks.add(details);
+
+        for (final Item item : this.tasks.get(details).inputItems) {
+            this.blockedByItem.put(item, details);
+        }
+    }
+
+    private void unblockTasks(final IAEItemStack arrived) {
+        if (arrived == null || this.blockedTasks.isEmpty()) {
+            return;
+        }
+
+        for (final ICraftingPatternDetails details : this.blockedByItem.removeAll(arrived.getItem())) {
+            if (this.blockedTasks.remove(details)) {
+                this.readyTasks.add(details);
+            }
+        }
+
+        if (this.blockedTasks.isEmpty()) {
+            this.blockedByItem.clear();
+        }
+    }
+
+    /**
+     * Only checks the inventory again if the stacks of one of the task's possible ingredients changed since the last
+     * check for this task, so crafting one task does not make every other task check again.
+     */
+    private boolean canCraft(final ICraftingPatternDetails details, final TaskProgress progress) {
+        // versions only grow, so their sum changes whenever one of them does
+        int version = 0;
+        for (final Item item : progress.inputItems) {
+            version += this.inventory.getVersion(item);
+        }
+
+        if (progress.checkedInventory != this.inventory || progress.checkedVersion != version) {
+            progress.craftable = this.canCraft(details);
+            progress.checkedInventory = this.inventory;
+            progress.checkedVersion = version;
+        }
+
+        return progress.craftable;
+    }
+
     private boolean canCraft(final ICraftingPatternDetails details) {
 
+        // the stacks are looked up in the inventory's own list, so their sizes are what extracting them would get
+        final IItemList<IAEItemStack> inventoryList = this.inventory.getItemList();
+
         if (!details.isCraftable()) {
             // Processing patterns are relatively easy
             for (IAEItemStack input : details.getInputs()) {
-                final IAEItemStack ais = this.inventory.extractItems(input.copy(), Actionable.SIMULATE,
-                        this.machineSrc);
+                final IAEItemStack ais = inventoryList.findPrecise(input);
 
                 if (ais == null || ais.getStackSize() < input.getStackSize()) {
                     return false;
@@ -465,7 +543,7 @@ private boolean canCraft(final ICraftingPatternDetails details) {
 
             // When substitutions are allowed, we have to keep track of which items we've reserved
             IAEItemStack[] sparseInputs = details.getSparseInputs();
-            Map<IAEItemStack, Integer> consumedCount = new HashMap<>();
+            this.consumedCount.clear();
             for (int i = 0; i < sparseInputs.length; i++) {
                 List<IAEItemStack> substitutes = details.getSubstituteInputs(i);
                 if (substitutes.isEmpty()) {
@@ -474,20 +552,11 @@ private boolean canCraft(final ICraftingPatternDetails details) {
 
                 boolean found = false;
                 for (IAEItemStack substitute : substitutes) {
-                    for (IAEItemStack fuzz : this.inventory.getItemList().findFuzzy(substitute, FuzzyMode.IGNORE_ALL)) {
-                        int alreadyConsumed = consumedCount.getOrDefault(fuzz, 0);
-                        if (fuzz.getStackSize() - alreadyConsumed <= 0) {
-                            continue; // Already fully consumed by a previous slot of this recipe
-                        }
-
-                        fuzz = fuzz.copy();
-                        fuzz.setStackSize(1); // We're iterating over SPARSE inputs which means there's 1 of each needed
-                        final IAEItemStack ais = this.inventory.extractItems(fuzz, Actionable.SIMULATE,
-                                this.machineSrc);
-
-                        if (ais != null && ais.getStackSize() > 0) {
+                    for (IAEItemStack fuzz : inventoryList.findFuzzy(substitute, FuzzyMode.IGNORE_ALL)) {
+                        // We're iterating over SPARSE inputs which means there's 1 of each needed
+                        if (fuzz.getStackSize() - this.consumedCount.getInt(fuzz) > 0) {
                             // Mark 1 of the stack as consumed
-                            consumedCount.merge(fuzz, 1, Integer::sum);
+                            this.consumedCount.addTo(fuzz, 1);
                             found = true;
                             break;
                         }
@@ -507,19 +576,15 @@ private boolean canCraft(final ICraftingPatternDetails details) {
             // When no substitutions can occur, we can simply check that all items are accounted since
             // each type of item should only occur once
             for (IAEItemStack g : details.getInputs()) {
+                long needed = g.getStackSize();
                 boolean found = false;
 
-                for (IAEItemStack fuzz : this.inventory.getItemList().findFuzzy(g, FuzzyMode.IGNORE_ALL)) {
-                    fuzz = fuzz.copy();
-                    fuzz.setStackSize(g.getStackSize());
-                    final IAEItemStack ais = this.inventory.extractItems(fuzz, Actionable.SIMULATE, this.machineSrc);
-
-                    if (ais != null && ais.getStackSize() >= g.getStackSize()) {
+                for (IAEItemStack fuzz : inventoryList.findFuzzy(g, FuzzyMode.IGNORE_ALL)) {
+                    if (fuzz.getStackSize() >= needed) {
                         found = true;
                         break;
-                    } else if (ais != null) {
-                        g = g.copy();
-                        g.decStackSize(ais.getStackSize());
+                    } else if (fuzz.getStackSize() > 0) {
+                        needed -= fuzz.getStackSize();
                     }
                 }
 
@@ -533,6 +598,46 @@ private boolean canCraft(final ICraftingPatternDetails details) {
         return true;
     }
 
+    /**
+     * Takes the ingredient for a slot of a crafting pattern from the inventory, trying the pattern's candidates for the
+     * slot in order.
+     *
+     * @return the extracted ingredient, or {@link ItemStack#EMPTY} if none is available
+     */
+    private ItemStack extractIngredient(final ICraftingPatternDetails details, final int slot,
+            final IAEItemStack input) {
+        if (details.canSubstitute()) {
+            for (final IAEItemStack substitute : details.getSubstituteInputs(slot)) {
+                for (final IAEItemStack fuzz : this.inventory.getItemList().findFuzzy(substitute,
+                        FuzzyMode.IGNORE_ALL)) {
+                    final ItemStack is = this.extractIngredient(details, slot, input, fuzz);
+
+                    if (!is.isEmpty()) {
+                        return is;
+                    }
+                }
+            }
+
+            return ItemStack.EMPTY;
+        }
+
+        final IAEItemStack item = this.inventory.getItemList().findPrecise(input);
+        return item == null ? ItemStack.EMPTY : this.extractIngredient(details, slot, input, item);
+    }
+
+    private ItemStack extractIngredient(final ICraftingPatternDetails details, final int slot,
+            final IAEItemStack input, final IAEItemStack candidate) {
+        final IAEItemStack fuzz = candidate.copy();
+        fuzz.setStackSize(input.getStackSize());
+
+        if (!details.isValidItemForSlot(slot, fuzz.createItemStack(), this.getWorld())) {
+            return ItemStack.EMPTY;
+        }
+
+        final IAEItemStack ais = this.inventory.extractItems(fuzz, Actionable.MODULATE, this.machineSrc);
+        return ais == null ? ItemStack.EMPTY : ais.createItemStack();
+    }
+
     public void cancel() {
         if (this.myLastLink != null) {
             this.myLastLink.cancel();
@@ -547,7 +652,7 @@ public void cancel() {
 
         this.isComplete = true;
         this.myLastLink = null;
-        this.tasks.clear();
+        this.clearTasks();
 
         // final ImmutableSet<IAEItemStack> items = ImmutableSet.copyOf( this.waitingFor
         // );
@@ -596,7 +701,7 @@ public void updateCraftingLogic(final IGrid grid, final IEnergyGrid eg, final Cr
         this.remainingOperations = this.accelerator + 1 - (this.usedOps[0] + this.usedOps[1] + this.usedOps[2]);
         final int started = this.remainingOperations;
 
-        if (this.remainingOperations > 0) {
+        if (this.remainingOperations > 0 && !this.readyTasks.isEmpty()) {
             do {
                 this.somethingChanged = false;
                 this.executeCrafting(eg, cc);
@@ -612,173 +717,140 @@ public void updateCraftingLogic(final IGrid grid, final IEnergyGrid eg, final Cr
     }
 
     private void executeCrafting(final IEnergyGrid eg, final CraftingGridCache cc) {
-        final Iterator<Entry<ICraftingPatternDetails, TaskProgress>> i = this.tasks.entrySet().iterator();
-
-        while (i.hasNext()) {
-            final Entry<ICraftingPatternDetails, TaskProgress> e = i.next();
-
-            if (e.getValue().value <= 0) {
-                i.remove();
+        // pushing patterns can hand items back to us, which may unblock other tasks while we iterate
+        for (final ICraftingPatternDetails details : this.readyTasks
+                .toArray(new ICraftingPatternDetails[this.readyTasks.size()])) {
+            final TaskProgress progress = this.tasks.get(details);
+
+            if (progress == null || progress.value <= 0) {
+                this.tasks.remove(details);
+                this.readyTasks.remove(details);
                 continue;
             }
 
-            final ICraftingPatternDetails details = e.getKey();
-
-            if (this.canCraft(details)) {
-                CraftingInventory ic = null;
+            if (!this.canCraft(details, progress)) {
+                this.blockTask(details);
+                continue;
+            }
 
-                for (final ICraftingMedium m : cc.getMediums(e.getKey())) {
-                    if (e.getValue().value <= 0) {
-                        continue;
-                    }
+            CraftingInventory ic = null;
 
-                    if (!m.isBusy()) {
-                        if (ic == null) {
-                            final IAEItemStack[] input = details.getSparseInputs();
-                            double sum = 0;
+            for (final ICraftingMedium m : cc.getMediums(details)) {
+                if (progress.value <= 0) {
+                    continue;
+                }
 
-                            for (final IAEItemStack anInput : input) {
-                                if (anInput != null) {
-                                    sum += anInput.getStackSize();
-                                }
-                            }
+                if (!m.isBusy()) {
+                    if (ic == null) {
+                        final IAEItemStack[] input = details.getSparseInputs();
+                        double sum = 0;
 
-                            // power...
-                            if (eg.extractAEPower(sum, Actionable.MODULATE, PowerMultiplier.CONFIG) < sum - 0.01) {
-                                continue;
+                        for (final IAEItemStack anInput : input) {
+                            if (anInput != null) {
+                                sum += anInput.getStackSize();
                             }
+                        }
 
-                            ic = new CraftingInventory(new ContainerNull(), 3, 3);
-                            boolean found = false;
-
-                            for (int x = 0; x < input.length; x++) {
-                                if (input[x] != null) {
-                                    found = false;
-
-                                    if (details.isCraftable()) {
-                                        final Collection<IAEItemStack> itemList;
+                        // power...
+                        if (eg.extractAEPower(sum, Actionable.MODULATE, PowerMultiplier.CONFIG) < sum - 0.01) {
+                            continue;
+                        }
 
-                                        if (details.canSubstitute()) {
-                                            final List<IAEItemStack> substitutes = details.getSubstituteInputs(x);
-                                            itemList = new ArrayList<>(substitutes.size());
+                        ic = new CraftingInventory(new ContainerNull(), 3, 3);
+                        boolean found = false;
 
-                                            for (IAEItemStack stack : substitutes) {
-                                                itemList.addAll(this.inventory.getItemList().findFuzzy(stack,
-                                                        FuzzyMode.IGNORE_ALL));
-                                            }
-                                        } else {
-                                            itemList = new ArrayList<>(1);
+                        for (int x = 0; x < input.length; x++) {
+                            if (input[x] != null) {
+                                found = false;
 
-                                            final IAEItemStack item = this.inventory.getItemList()
-                                                    .findPrecise(input[x]);
+                                if (details.isCraftable()) {
+                                    final ItemStack is = this.extractIngredient(details, x, input[x]);
 
-                                            if (item != null) {
-                                                itemList.add(item);
-                                            }
-                                        }
+                                    if (!is.isEmpty()) {
+                                        this.postChange(AEItemStack.fromItemStack(is), this.machineSrc);
+                                        ic.setInventorySlotContents(x, is);
+                                        found = true;
+                                    }
+                                } else {
+                                    final IAEItemStack ais = this.inventory.extractItems(input[x].copy(),
+                                            Actionable.MODULATE, this.machineSrc);
+                                    final ItemStack is = ais == null ? ItemStack.EMPTY : ais.createItemStack();
 
-                                        for (IAEItemStack fuzz : itemList) {
-                                            fuzz = fuzz.copy();
-                                            fuzz.setStackSize(input[x].getStackSize());
-
-                                            if (details.isValidItemForSlot(x, fuzz.createItemStack(),
-                                                    this.getWorld())) {
-                                                final IAEItemStack ais = this.inventory.extractItems(fuzz,
-                                                        Actionable.MODULATE, this.machineSrc);
-                                                final ItemStack is = ais == null ? ItemStack.EMPTY
-                                                        : ais.createItemStack();
-
-                                                if (!is.isEmpty()) {
-                                                    this.postChange(AEItemStack.fromItemStack(is), this.machineSrc);
-                                                    ic.setInventorySlotContents(x, is);
-                                                    found = true;
-                                                    break;
-                                                }
-                                            }
-                                        }
-                                    } else {
-                                        final IAEItemStack ais = this.inventory.extractItems(input[x].copy(),
-                                                Actionable.MODULATE, this.machineSrc);
-                                        final ItemStack is = ais == null ? ItemStack.EMPTY : ais.createItemStack();
-
-                                        if (!is.isEmpty()) {
-                                            this.postChange(input[x], this.machineSrc);
-                                            ic.setInventorySlotContents(x, is);
-                                            if (is.getCount() == input[x].getStackSize()) {
-                                                found = true;
-                                                continue;
-                                            }
+                                    if (!is.isEmpty()) {
+                                        this.postChange(input[x], this.machineSrc);
+                                        ic.setInventorySlotContents(x, is);
+                                        if (is.getCount() == input[x].getStackSize()) {
+                                            found = true;
+                                            continue;
                                         }
                                     }
+                                }
 
-                                    if (!found) {
-                                        break;
-                                    }
+                                if (!found) {
+                                    break;
                                 }
                             }
+                        }
 
-                            if (!found) {
-                                // put stuff back..
-                                for (int x = 0; x < ic.getSizeInventory(); x++) {
-                                    final ItemStack is = ic.getStackInSlot(x);
-                                    if (!is.isEmpty()) {
-                                        this.inventory.injectItems(AEItemStack.fromItemStack(is), Actionable.MODULATE,
-                                                this.machineSrc);
-                                    }
+                        if (!found) {
+                            // put stuff back..
+                            for (int x = 0; x < ic.getSizeInventory(); x++) {
+                                final ItemStack is = ic.getStackInSlot(x);
+                                if (!is.isEmpty()) {
+                                    this.addStorage(AEItemStack.fromItemStack(is));
                                 }
-                                ic = null;
-                                break;
                             }
+                            ic = null;
+                            break;
                         }
+                    }
 
-                        if (m.pushPattern(details, ic)) {
-                            this.somethingChanged = true;
-                            this.remainingOperations--;
+                    if (m.pushPattern(details, ic)) {
+                        this.somethingChanged = true;
+                        this.remainingOperations--;
 
-                            for (final IAEItemStack out : details.getOutputs()) {
-                                this.postChange(out, this.machineSrc);
-                                this.waitingFor.add(out.copy());
-                                this.postCraftingStatusChange(out.copy());
-                            }
+                        for (final IAEItemStack out : details.getOutputs()) {
+                            this.postChange(out, this.machineSrc);
+                            this.waitingFor.add(out.copy());
+                            this.postCraftingStatusChange(out.copy());
+                        }
 
-                            if (details.isCraftable()) {
-                                BasicEventHooks.firePlayerCraftingEvent(Platform.getPlayer((ServerWorld) getWorld()),
-                                        details.getOutput(ic, this.getWorld()), ic);
-
-                                for (int x = 0; x < ic.getSizeInventory(); x++) {
-                                    final ItemStack output = Platform.getContainerItem(ic.getStackInSlot(x));
-                                    if (!output.isEmpty()) {
-                                        final IAEItemStack cItem = AEItemStack.fromItemStack(output);
-                                        this.postChange(cItem, this.machineSrc);
-                                        this.waitingFor.add(cItem);
-                                        this.postCraftingStatusChange(cItem);
-                                    }
+                        if (details.isCraftable()) {
+                            BasicEventHooks.firePlayerCraftingEvent(Platform.getPlayer((ServerWorld) getWorld()),
+                                    details.getOutput(ic, this.getWorld()), ic);
+
+                            for (int x = 0; x < ic.getSizeInventory(); x++) {
+                                final ItemStack output = Platform.getContainerItem(ic.getStackInSlot(x));
+                                if (!output.isEmpty()) {
+                                    final IAEItemStack cItem = AEItemStack.fromItemStack(output);
+                                    this.postChange(cItem, this.machineSrc);
+                                    this.waitingFor.add(cItem);
+                                    this.postCraftingStatusChange(cItem);
                                 }
                             }
+                        }
 
-                            ic = null; // hand off complete!
-                            this.markDirty();
+                        ic = null; // hand off complete!
+                        this.markDirty();
 
-                            e.getValue().value--;
-                            if (e.getValue().value <= 0) {
-                                continue;
-                            }
+                        progress.value--;
+                        if (progress.value <= 0) {
+                            continue;
+                        }
 
-                            if (this.remainingOperations == 0) {
-                                return;
-                            }
+                        if (this.remainingOperations == 0) {
+                            return;
                         }
                     }
                 }
+            }
 
-                if (ic != null) {
-                    // put stuff back..
-                    for (int x = 0; x < ic.getSizeInventory(); x++) {
-                        final ItemStack is = ic.getStackInSlot(x);
-                        if (!is.isEmpty()) {
-                            this.inventory.injectItems(AEItemStack.fromItemStack(is), Actionable.MODULATE,
-                                    this.machineSrc);
-                        }
+            if (ic != null) {
+                // put stuff back..
+                for (int x = 0; x < ic.getSizeInventory(); x++) {
+                    final ItemStack is = ic.getStackInSlot(x);
+                    if (!is.isEmpty()) {
+                        this.addStorage(AEItemStack.fromItemStack(is));
                     }
                 }
             }
@@ -876,11 +948,11 @@ public ICraftingLink submitJob(final IGrid g, final ICraftingJob job, final IAct
 
                 return whatLink;
             } else {
-                this.tasks.clear();
+                this.clearTasks();
                 this.inventory.getItemList().resetStatus();
             }
         } catch (final CraftBranchFailure e) {
-            this.tasks.clear();
+            this.clearTasks();
             this.inventory.getItemList().resetStatus();
             // AELog.error( e );
         }
@@ -1003,6 +1075,7 @@ public void getListOfItem(final IItemList<IAEItemStack> list, final CraftingItem
     }
 
     public void addStorage(final IAEItemStack extractItems) {
+        this.unblockTasks(extractItems);
         this.inventory.injectItems(extractItems, Actionable.MODULATE, null);
     }
 
@@ -1015,7 +1088,8 @@ public void addCrafting(final ICraftingPatternDetails details, final long crafts
         TaskProgress i = this.tasks.get(details);
 
         if (i == null) {
-            this.tasks.put(details, i = new TaskProgress());
+            this.tasks.put(details, i = new TaskProgress(details));
+            this.readyTasks.add(details);
         }
 
         i.value += crafts;
@@ -1144,9 +1218,10 @@ public void readFromNBT(final CompoundNBT data) {
                 final ICraftingPatternDetails details = craftingHelper.decodePattern(pattern.createItemStack(),
                         this.getWorld());
                 if (details != null) {
-                    final TaskProgress tp = new TaskProgress();
+                    final TaskProgress tp = new TaskProgress(details);
                     tp.value = item.getLong("craftingProgress");
                     this.tasks.put(details, tp);
+                    this.readyTasks.add(details);
                 }
             }
         }
@@ -1250,5 +1325,34 @@ public long getStartItemCount() {
 
     private static class TaskProgress {
         private long value;
+        /**
+         * Every item the task may take from the inventory. Ingredients are matched while ignoring damage and NBT, so
+         * the item is precise enough to tell whether a change to the inventory matters to the task.
+         */
+        private final Item[] inputItems;
+        /**
+         * Result of the last {@link #canCraft} check and the inventory state it was made for.
+         */
+        private boolean craftable;
+        private MECraftingInventory checkedInventory;
+        private int checkedVersion;
+
+        private TaskProgress(final ICraftingPatternDetails details) {
+            final Set<Item> items = new LinkedHashSet<>();
+
+            if (details.isCraftable() && details.canSubstitute()) {
+                for (int slot = 0; slot < details.getSparseInputs().length; slot++) {
+                    for (final IAEItemStack candidate : details.getSubstituteInputs(slot)) {
+                        items.add(candidate.getItem());
+                    }
+                }
+            } else {
+                for (final IAEItemStack input : details.getInputs()) {
+                    items.add(input.getItem());
+                }
+            }
+
+            this.inputItems = items.toArray(new Item[0]);
+        }
     }
 }
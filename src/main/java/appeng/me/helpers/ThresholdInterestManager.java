@@ -0,0 +1,179 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import appeng.api.storage.data.IAEStack;
+
+/**
+ * Like {@link GenericInterestManager}, but an interest in a stack can come with a threshold. Those interests are kept
+ * sorted per stack, so a change of the stored amount only visits the ones whose threshold it crosses, no matter how
+ * many others there are.
+ */
+public class ThresholdInterestManager<T> {
+
+    /**
+     * Threshold of interests that want to hear about every change.
+     */
+    public static final long NO_THRESHOLD = Long.MIN_VALUE;
+
+    private final Map<IAEStack, StackInterests<T>> container = new HashMap<>();
+    private List<SavedTransactions> transactions = null;
+    private int transDepth = 0;
+
+    public void enableTransactions() {
+        if (this.transDepth == 0) {
+            this.transactions = new ArrayList<>();
+        }
+
+        this.transDepth++;
+    }
+
+    public void disableTransactions() {
+        this.transDepth--;
+
+        if (this.transDepth == 0) {
+            final List<SavedTransactions> myActions = this.transactions;
+            this.transactions = null;
+
+            for (final SavedTransactions t : myActions) {
+                if (t.put) {
+                    this.put(t.stack, t.iw, t.threshold);
+                } else {
+                    this.remove(t.stack, t.iw);
+                }
+            }
+        }
+    }
+
+    public boolean put(final IAEStack stack, final T iw, final long threshold) {
+        if (this.transactions != null) {
+            this.transactions.add(new SavedTransactions(true, stack, iw, threshold));
+            return true;
+        }
+
+        return this.container.computeIfAbsent(stack, s -> new StackInterests<>()).put(iw, threshold);
+    }
+
+    public boolean remove(final IAEStack stack, final T iw) {
+        if (this.transactions != null) {
+            this.transactions.add(new SavedTransactions(false, stack, iw, NO_THRESHOLD));
+            return true;
+        }
+
+        final StackInterests<T> interests = this.container.get(stack);
+        if (interests == null || !interests.remove(iw)) {
+            return false;
+        }
+
+        if (interests.isEmpty()) {
+            this.container.remove(stack);
+        }
+        return true;
+    }
+
+    public boolean containsKey(final IAEStack stack) {
+        return this.container.containsKey(stack);
+    }
+
+    /**
+     * Collects the interests in the given stack that want to hear about its stored amount going from before to after:
+     * those without a threshold, and those whose threshold lies on the other side for one of the two amounts.
+     */
+    public void collect(final IAEStack stack, final long before, final long after, final Collection<T> out) {
+        final StackInterests<T> interests = this.container.get(stack);
+
+        if (interests != null) {
+            out.addAll(interests.always);
+
+            if (before != after && !interests.byThreshold.isEmpty()) {
+                interests.byThreshold.subMap(Math.min(before, after), false, Math.max(before, after), true).values()
+                        .forEach(out::addAll);
+            }
+        }
+    }
+
+    private static class StackInterests<T> {
+
+        private final Map<T, Long> thresholds = new HashMap<>();
+        private final Set<T> always = new HashSet<>();
+        private final NavigableMap<Long, Set<T>> byThreshold = new TreeMap<>();
+
+        private boolean put(final T iw, final long threshold) {
+            if (this.thresholds.containsKey(iw)) {
+                return false;
+            }
+
+            this.thresholds.put(iw, threshold);
+            if (threshold == NO_THRESHOLD) {
+                this.always.add(iw);
+            } else {
+                this.byThreshold.computeIfAbsent(threshold, t -> new HashSet<>()).add(iw);
+            }
+            return true;
+        }
+
+        private boolean remove(final T iw) {
+            final Long threshold = this.thresholds.remove(iw);
+            if (threshold == null) {
+                return false;
+            }
+
+            if (threshold == NO_THRESHOLD) {
+                this.always.remove(iw);
+            } else {
+                final Set<T> watchers = this.byThreshold.get(threshold);
+                watchers.remove(iw);
+                if (watchers.isEmpty()) {
+                    this.byThreshold.remove(threshold);
+                }
+            }
+            return true;
+        }
+
+        private boolean isEmpty() {
+            return this.thresholds.isEmpty();
+        }
+    }
+
+    private class SavedTransactions {
+
+        private final boolean put;
+        private final IAEStack stack;
+        private final T iw;
+        private final long threshold;
+
+        public SavedTransactions(final boolean putOperation, final IAEStack myStack, final T watcher,
+                final long threshold) {
+            this.put = putOperation;
+            this.stack = myStack;
+            this.iw = watcher;
+            this.threshold = threshold;
+        }
+    }
+}
@@ -34,6 +34,11 @@ public interface IPathItem {
      */
     boolean canSupportMoreChannels();
 
+    /**
+     * @return the number of channels this item can carry.
+     */
+    int getMaxChannels();
+
     /**
      * find possible choices for other pathing.
      */
@@ -51,6 +56,15 @@ public interface IPathItem {
      */
     EnumSet<GridFlags> getFlags();
 
+    boolean hasFlag(GridFlags flag);
+
+    /**
+     * @return the id assigned by the last {@link PathingGraph} this item was part of.
+     */
+    int getPathId();
+
+    void setPathId(int pathId);
+
     /**
      * channels are done, wrap it up.
      */
@@ -18,11 +18,9 @@
 
 package appeng.me.pathfinding;
 
-import java.util.ArrayList;
-import java.util.EnumSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
 
 import appeng.api.networking.GridFlags;
 import appeng.api.networking.IGridMultiblock;
@@ -32,14 +30,19 @@
 public class PathSegment {
 
     private final PathGridCache pgc;
-    private final Set<IPathItem> semiOpen;
-    private final Set<IPathItem> closed;
+    private final PathingGraph graph;
+    private final BitSet semiOpen;
+    private final BitSet closed;
     private boolean isDead;
-    private List<IPathItem> open;
-
-    public PathSegment(final PathGridCache myPGC, final List<IPathItem> open, final Set<IPathItem> semiOpen,
-            final Set<IPathItem> closed) {
-        this.open = open;
+    private int[] open = new int[16];
+    private int openSize;
+    private int[] next = new int[16];
+
+    public PathSegment(final PathGridCache myPGC, final PathingGraph graph, final int start, final BitSet semiOpen,
+            final BitSet closed) {
+        this.graph = graph;
+        this.open[0] = start;
+        this.openSize = 1;
         this.semiOpen = semiOpen;
         this.closed = closed;
         this.pgc = myPGC;
@@ -47,90 +50,67 @@ public PathSegment(final PathGridCache myPGC, final List<IPathItem> open, final
     }
 
     public boolean step() {
-        final List<IPathItem> oldOpen = this.open;
-        this.open = new ArrayList<>();
+        int nextSize = 0;
 
-        for (final IPathItem i : oldOpen) {
-            for (final IPathItem pi : i.getPossibleOptions()) {
-                final EnumSet<GridFlags> flags = pi.getFlags();
+        for (int o = 0; o < this.openSize; o++) {
+            final int from = this.open[o];
 
-                if (!this.closed.contains(pi)) {
-                    pi.setControllerRoute(i, true);
+            for (int n = this.graph.firstNeighbour(from); n < this.graph.lastNeighbour(from); n++) {
+                final int to = this.graph.getNeighbour(n);
 
-                    if (flags.contains(GridFlags.REQUIRE_CHANNEL)) {
-                        // close the semi open.
-                        if (!this.semiOpen.contains(pi)) {
-                            final boolean worked;
+                if (!this.closed.get(to)) {
+                    this.graph.setControllerRoute(to, from);
 
-                            if (flags.contains(GridFlags.COMPRESSED_CHANNEL)) {
-                                worked = this.useDenseChannel(pi);
-                            } else {
-                                worked = this.useChannel(pi);
-                            }
+                    if (this.graph.hasFlag(to, GridFlags.REQUIRE_CHANNEL)) {
+                        // close the semi open.
+                        if (!this.semiOpen.get(to)) {
+                            final boolean worked = this.useChannel(to,
+                                    this.graph.hasFlag(to, GridFlags.COMPRESSED_CHANNEL));
 
-                            if (worked && flags.contains(GridFlags.MULTIBLOCK)) {
+                            if (worked && this.graph.hasFlag(to, GridFlags.MULTIBLOCK)) {
+                                final IPathItem pi = this.graph.get(to);
                                 final Iterator<IGridNode> oni = ((IGridMultiblock) ((IGridNode) pi).getGridBlock())
                                         .getMultiblockNodes();
                                 while (oni.hasNext()) {
                                     final IGridNode otherNodes = oni.next();
-                                    if (otherNodes != pi) {
-                                        this.semiOpen.add((IPathItem) otherNodes);
+                                    final int other = this.graph.indexOf((IPathItem) otherNodes);
+                                    if (otherNodes != pi && other >= 0) {
+                                        this.semiOpen.set(other);
                                     }
                                 }
                             }
                         } else {
-                            pi.incrementChannelCount(1); // give a channel.
-                            this.semiOpen.remove(pi);
+                            this.graph.addChannels(to, 1); // give a channel.
+                            this.semiOpen.clear(to);
                         }
                     }
 
-                    this.closed.add(pi);
-                    this.open.add(pi);
-                }
-            }
-        }
-
-        return this.open.isEmpty();
-    }
+                    this.closed.set(to);
 
-    private boolean useDenseChannel(final IPathItem start) {
-        IPathItem pi = start;
-        while (pi != null) {
-            if (!pi.canSupportMoreChannels() || pi.getFlags().contains(GridFlags.CANNOT_CARRY_COMPRESSED)) {
-                return false;
+                    if (nextSize == this.next.length) {
+                        this.next = Arrays.copyOf(this.next, nextSize * 2);
+                    }
+                    this.next[nextSize++] = to;
+                }
             }
-
-            pi = pi.getControllerRoute();
         }
 
-        pi = start;
-        while (pi != null) {
-            this.pgc.setChannelsByBlocks(this.pgc.getChannelsByBlocks() + 1);
-            pi.incrementChannelCount(1);
-            pi = pi.getControllerRoute();
-        }
+        // the old open list becomes the buffer for the next step
+        final int[] oldOpen = this.open;
+        this.open = this.next;
+        this.openSize = nextSize;
+        this.next = oldOpen;
 
-        this.pgc.setChannelsInUse(this.pgc.getChannelsInUse() + 1);
-        return true;
+        return this.openSize == 0;
     }
 
-    private boolean useChannel(final IPathItem start) {
-        IPathItem pi = start;
-        while (pi != null) {
-            if (!pi.canSupportMoreChannels()) {
-                return false;
-            }
-
-            pi = pi.getControllerRoute();
-        }
-
-        pi = start;
-        while (pi != null) {
-            this.pgc.setChannelsByBlocks(this.pgc.getChannelsByBlocks() + 1);
-            pi.incrementChannelCount(1);
-            pi = pi.getControllerRoute();
+    private boolean useChannel(final int start, final boolean dense) {
+        final int routeLength = this.graph.useChannel(start, dense);
+        if (routeLength == 0) {
+            return false;
         }
 
+        this.pgc.setChannelsByBlocks(this.pgc.getChannelsByBlocks() + routeLength);
         this.pgc.setChannelsInUse(this.pgc.getChannelsInUse() + 1);
         return true;
     }
@@ -0,0 +1,211 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import appeng.api.networking.GridFlags;
+import appeng.api.networking.IGrid;
+import appeng.api.networking.IGridConnection;
+import appeng.api.networking.IGridNode;
+
+/**
+ * A snapshot of the nodes and connections of a grid, numbered from 0 so channel pathing can work on plain arrays.
+ * <p>
+ * Every {@link IPathItem} is told its id, so it can be found again without a map. Ids are only valid for the graph
+ * that assigned them, and a new graph is built each time the network is routed from scratch.
+ * <p>
+ * Routes and channel counts are collected here while pathing and only written to the items by {@link #apply()}, so
+ * the network keeps its previous channels until the new ones are complete.
+ */
+public final class PathingGraph {
+
+    private final IPathItem[] items;
+    private final int nodeCount;
+    private final int[] flags;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final int[] parent;
+    private final int[] channels;
+
+    private PathingGraph(final IPathItem[] items, final int nodeCount, final int[] flags, final int[] offsets,
+            final int[] neighbours) {
+        this.items = items;
+        this.nodeCount = nodeCount;
+        this.flags = flags;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.parent = new int[items.length];
+        this.channels = new int[items.length];
+        Arrays.fill(this.parent, -1);
+    }
+
+    public static PathingGraph build(final IGrid grid) {
+        final List<IPathItem> items = new ArrayList<>();
+
+        for (final IGridNode node : grid.getNodes()) {
+            final IPathItem pi = (IPathItem) node;
+            pi.setPathId(items.size());
+            items.add(pi);
+        }
+
+        final int nodeCount = items.size();
+        for (int i = 0; i < nodeCount; i++) {
+            final IGridNode node = (IGridNode) items.get(i);
+            for (final IGridConnection gc : node.getConnections()) {
+                // every connection is seen from both sides, only number it once
+                if (gc.a() == node) {
+                    final IPathItem pi = (IPathItem) gc;
+                    pi.setPathId(items.size());
+                    items.add(pi);
+                }
+            }
+        }
+
+        final int size = items.size();
+        final int[] flags = new int[size];
+        final int[] offsets = new int[size + 1];
+        // each connection is listed by both of its nodes, and lists both of them itself
+        final int[] neighbours = new int[4 * (size - nodeCount)];
+
+        int next = 0;
+        for (int id = 0; id < size; id++) {
+            offsets[id] = next;
+
+            if (id < nodeCount) {
+                final IGridNode node = (IGridNode) items.get(id);
+                for (final GridFlags flag : node.getGridBlock().getFlags()) {
+                    flags[id] |= 1 << flag.ordinal();
+                }
+                for (final IGridConnection gc : node.getConnections()) {
+                    neighbours[next++] = ((IPathItem) gc).getPathId();
+                }
+            } else {
+                final IGridConnection gc = (IGridConnection) items.get(id);
+                neighbours[next++] = ((IPathItem) gc.a()).getPathId();
+                neighbours[next++] = ((IPathItem) gc.b()).getPathId();
+            }
+        }
+        offsets[size] = next;
+
+        return new PathingGraph(items.toArray(new IPathItem[0]), nodeCount, flags, offsets, neighbours);
+    }
+
+    public int size() {
+        return this.items.length;
+    }
+
+    public IPathItem get(final int id) {
+        return this.items[id];
+    }
+
+    /**
+     * @return the id of the item in this graph, or -1 if it is not part of it.
+     */
+    public int indexOf(final IPathItem pi) {
+        final int id = pi.getPathId();
+        return id >= 0 && id < this.items.length && this.items[id] == pi ? id : -1;
+    }
+
+    public boolean hasFlag(final int id, final GridFlags flag) {
+        return (this.flags[id] & (1 << flag.ordinal())) != 0;
+    }
+
+    /**
+     * The items next to an item are stored from {@link #firstNeighbour(int)} (inclusive) to
+     * {@link #lastNeighbour(int)} (exclusive), and can be read with {@link #getNeighbour(int)}.
+     */
+    public int firstNeighbour(final int id) {
+        return this.offsets[id];
+    }
+
+    public int lastNeighbour(final int id) {
+        return this.offsets[id + 1];
+    }
+
+    public int getNeighbour(final int index) {
+        return this.neighbours[index];
+    }
+
+    /**
+     * Routes an item towards the controller through one of its neighbours.
+     */
+    public void setControllerRoute(final int id, final int parent) {
+        this.parent[id] = parent;
+    }
+
+    /**
+     * Same as {@link IPathItem#getControllerRoute()}, but for the routes collected in this graph.
+     *
+     * @return the next item towards the controller, or -1 if the route ends here.
+     */
+    public int getControllerRoute(final int id) {
+        final int next = this.parent[id];
+
+        if (id < this.nodeCount) {
+            return this.hasFlag(id, GridFlags.CANNOT_CARRY) ? -1 : next;
+        }
+
+        return next < 0 || this.hasFlag(next, GridFlags.CANNOT_CARRY) ? -1 : next;
+    }
+
+    public void addChannels(final int id, final int channels) {
+        this.channels[id] += channels;
+    }
+
+    /**
+     * Reserves a channel on every step of the route from the given item to a controller.
+     *
+     * @return the number of items the channel passes through, or 0 if any step of the route is already full.
+     */
+    public int useChannel(final int start, final boolean dense) {
+        int routeLength = 0;
+
+        for (int id = start; id >= 0; id = this.getControllerRoute(id)) {
+            if (this.channels[id] >= this.items[id].getMaxChannels()
+                    || dense && this.hasFlag(id, GridFlags.CANNOT_CARRY_COMPRESSED)) {
+                return 0;
+            }
+
+            routeLength++;
+        }
+
+        for (int id = start; id >= 0; id = this.getControllerRoute(id)) {
+            this.channels[id]++;
+        }
+
+        return routeLength;
+    }
+
+    /**
+     * Writes the collected routes and channel counts to the items. Items that were never reached, like the controllers
+     * themselves, are left alone.
+     */
+    public void apply() {
+        for (int id = 0; id < this.items.length; id++) {
+            if (this.parent[id] >= 0) {
+                final IPathItem pi = this.items[id];
+                pi.setControllerRoute(this.items[this.parent[id]], true);
+                pi.incrementChannelCount(this.channels[id]);
+            }
+        }
+    }
+}
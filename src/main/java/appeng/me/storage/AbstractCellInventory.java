@@ -18,6 +18,12 @@
 
 package appeng.me.storage;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraftforge.items.IItemHandler;
@@ -58,6 +64,26 @@
     protected final int itemsPerByte;
     private boolean isPersisted = true;
 
+    /**
+     * The stored items by their slot in the NBT data. Slots are kept dense, removing an item moves the last one into its
+     * slot.
+     */
+    private final List<T> slotItems = new ArrayList<>(MAX_ITEM_TYPES);
+    private final Map<T, Integer> itemSlots = new HashMap<>();
+    /**
+     * Slots whose item has to be rewritten on the next {@link #persist()}, or removed if they are beyond the stored
+     * types by then.
+     */
+    private final BitSet dirtySlots = new BitSet(MAX_ITEM_TYPES);
+    /**
+     * Slots whose item is unchanged, but whose count has to be rewritten on the next {@link #persist()}.
+     */
+    private final BitSet dirtyCounts = new BitSet(MAX_ITEM_TYPES);
+    /**
+     * Number of slots currently present in the NBT data.
+     */
+    private int persistedSlots;
+
     static {
         for (int x = 0; x < MAX_ITEM_TYPES; x++) {
             ITEM_SLOT_KEYS[x] = ITEM_SLOT + x;
@@ -82,6 +108,7 @@ protected AbstractCellInventory(final IStorageCell<T> cellType, final ItemStack
         this.tagCompound = o.getOrCreateTag();
         this.storedItems = this.tagCompound.getShort(ITEM_TYPE_TAG);
         this.storedItemCount = this.tagCompound.getInt(ITEM_COUNT_TAG);
+        this.persistedSlots = this.storedItems;
         this.cellItems = null;
     }
 
@@ -100,54 +127,110 @@ public void persist() {
             return;
         }
 
-        int itemCount = 0;
-
-        // add new pretty stuff...
-        int x = 0;
-        for (final T v : this.cellItems) {
-            itemCount += v.getStackSize();
-
-            final CompoundNBT g = new CompoundNBT();
-            v.writeToNBT(g);
-            this.tagCompound.put(ITEM_SLOT_KEYS[x], g);
-            this.tagCompound.putInt(ITEM_SLOT_COUNT_KEYS[x], (int) v.getStackSize());
+        for (int x = this.dirtySlots.nextSetBit(0); x >= 0; x = this.dirtySlots.nextSetBit(x + 1)) {
+            if (x < this.slotItems.size()) {
+                final T v = this.slotItems.get(x);
+                final CompoundNBT g = new CompoundNBT();
+                v.writeToNBT(g);
+                this.tagCompound.put(ITEM_SLOT_KEYS[x], g);
+                this.tagCompound.putInt(ITEM_SLOT_COUNT_KEYS[x], (int) v.getStackSize());
+            } else if (x < this.persistedSlots) {
+                // clean any old crusty stuff...
+                this.tagCompound.remove(ITEM_SLOT_KEYS[x]);
+                this.tagCompound.remove(ITEM_SLOT_COUNT_KEYS[x]);
+            }
+        }
 
-            x++;
+        for (int x = this.dirtyCounts.nextSetBit(0); x >= 0; x = this.dirtyCounts.nextSetBit(x + 1)) {
+            if (x < this.slotItems.size() && !this.dirtySlots.get(x)) {
+                this.tagCompound.putInt(ITEM_SLOT_COUNT_KEYS[x], (int) this.slotItems.get(x).getStackSize());
+            }
         }
 
-        final short oldStoredItems = this.storedItems;
+        this.dirtySlots.clear();
+        this.dirtyCounts.clear();
+        this.persistedSlots = this.slotItems.size();
 
-        this.storedItems = (short) this.cellItems.size();
-        if (this.cellItems.isEmpty()) {
+        if (this.storedItems == 0) {
             this.tagCompound.remove(ITEM_TYPE_TAG);
         } else {
             this.tagCompound.putShort(ITEM_TYPE_TAG, this.storedItems);
         }
 
-        this.storedItemCount = itemCount;
-        if (itemCount == 0) {
+        if (this.storedItemCount == 0) {
             this.tagCompound.remove(ITEM_COUNT_TAG);
         } else {
-            this.tagCompound.putInt(ITEM_COUNT_TAG, itemCount);
+            this.tagCompound.putInt(ITEM_COUNT_TAG, this.storedItemCount);
         }
 
-        // clean any old crusty stuff...
-        for (; x < oldStoredItems && x < this.maxItemTypes; x++) {
-            this.tagCompound.remove(ITEM_SLOT_KEYS[x]);
-            this.tagCompound.remove(ITEM_SLOT_COUNT_KEYS[x]);
+        this.isPersisted = true;
+    }
+
+    /**
+     * Updates the running totals and the dirty slots after the amount of a stored item in {@link #cellItems} was changed
+     * by the given delta, then asks the container to persist the cell.
+     *
+     * @param stored the record in {@link #cellItems}, already containing the new amount
+     * @param delta  the change of its amount
+     */
+    protected void saveChanges(final T stored, final long delta) {
+        if (delta == 0) {
+            return;
         }
 
-        this.isPersisted = true;
+        final long newSize = stored.getStackSize();
+        final long oldSize = newSize - delta;
+        this.storedItemCount += delta;
+
+        if (oldSize == 0) {
+            final int slot = this.slotItems.size();
+            this.slotItems.add(stored);
+            this.itemSlots.put(stored, slot);
+            this.dirtySlots.set(slot);
+        } else if (newSize == 0) {
+            final int slot = this.itemSlots.remove(stored);
+            final int last = this.slotItems.size() - 1;
+            final T moved = this.slotItems.remove(last);
+
+            if (slot != last) {
+                this.slotItems.set(slot, moved);
+                this.itemSlots.put(moved, slot);
+            }
+
+            this.dirtySlots.set(slot);
+            this.dirtySlots.set(last);
+        } else {
+            this.dirtyCounts.set(this.itemSlots.get(stored));
+        }
+
+        this.storedItems = (short) this.slotItems.size();
+        this.notifyContainer();
     }
 
+    /**
+     * Recalculates all totals and rewrites every slot on the next {@link #persist()}.
+     */
     protected void saveChanges() {
-        // recalculate values
-        this.storedItems = (short) this.cellItems.size();
+        this.assignSlots();
+        this.notifyContainer();
+    }
+
+    private void assignSlots() {
+        this.slotItems.clear();
+        this.itemSlots.clear();
         this.storedItemCount = 0;
+
         for (final T v : this.cellItems) {
+            this.itemSlots.put(v, this.slotItems.size());
+            this.slotItems.add(v);
             this.storedItemCount += v.getStackSize();
         }
 
+        this.storedItems = (short) this.slotItems.size();
+        this.dirtySlots.set(0, Math.max(this.slotItems.size(), this.persistedSlots));
+    }
+
+    private void notifyContainer() {
         this.isPersisted = false;
         if (this.container != null) {
             this.container.saveChanges(this);
@@ -175,6 +258,10 @@ private void loadCellItems() {
 
         if (needsUpdate) {
             this.saveChanges();
+        } else {
+            // The slots are assigned in the order the list iterates the items, which does not have to match the order
+            // in the NBT data. All of them are rewritten the next time the cell is persisted.
+            this.assignSlots();
         }
     }
 
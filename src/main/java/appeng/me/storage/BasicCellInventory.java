@@ -134,7 +134,8 @@ public T injectItems(T input, Actionable mode, IActionSource src) {
         }
 
         final T l = this.getCellItems().findPrecise(input);
-        if (l != null) {
+        // records of fully extracted items are kept around with an amount of 0, those count as a new type
+        if (l != null && l.getStackSize() > 0) {
             final long remainingItemCount = this.getRemainingItemCount();
             if (remainingItemCount <= 0) {
                 return input;
@@ -145,13 +146,13 @@ public T injectItems(T input, Actionable mode, IActionSource src) {
                 r.setStackSize(r.getStackSize() - remainingItemCount);
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(l.getStackSize() + remainingItemCount);
-                    this.saveChanges();
+                    this.saveChanges(l, remainingItemCount);
                 }
                 return r;
             } else {
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(l.getStackSize() + input.getStackSize());
-                    this.saveChanges();
+                    this.saveChanges(l, input.getStackSize());
                 }
                 return null;
             }
@@ -170,14 +171,14 @@ public T injectItems(T input, Actionable mode, IActionSource src) {
                         toWrite.setStackSize(remainingItemCount);
 
                         this.cellItems.add(toWrite);
-                        this.saveChanges();
+                        this.saveChanges(this.cellItems.findPrecise(toWrite), remainingItemCount);
                     }
                     return toReturn;
                 }
 
                 if (mode == Actionable.MODULATE) {
                     this.cellItems.add(input);
-                    this.saveChanges();
+                    this.saveChanges(this.cellItems.findPrecise(input), input.getStackSize());
                 }
 
                 return null;
@@ -205,13 +206,13 @@ public T extractItems(T request, Actionable mode, IActionSource src) {
                 Results.setStackSize(l.getStackSize());
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(0);
-                    this.saveChanges();
+                    this.saveChanges(l, -Results.getStackSize());
                 }
             } else {
                 Results.setStackSize(size);
                 if (mode == Actionable.MODULATE) {
                     l.setStackSize(l.getStackSize() - size);
-                    this.saveChanges();
+                    this.saveChanges(l, -size);
                 }
             }
         }
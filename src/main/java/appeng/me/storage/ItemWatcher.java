@@ -26,6 +26,7 @@
 import appeng.api.networking.storage.IStackWatcherHost;
 import appeng.api.storage.data.IAEStack;
 import appeng.me.cache.GridStorageCache;
+import appeng.me.helpers.ThresholdInterestManager;
 
 /**
  * Maintain my interests, and a global watch list, they should always be fully synchronized.
@@ -47,11 +48,16 @@ public IStackWatcherHost getHost() {
 
     @Override
     public boolean add(final IAEStack e) {
+        return this.add(e, ThresholdInterestManager.NO_THRESHOLD);
+    }
+
+    @Override
+    public boolean add(final IAEStack e, final long threshold) {
         if (this.myInterests.contains(e)) {
             return false;
         }
 
-        return this.myInterests.add(e.copy()) && this.gsc.getInterestManager().put(e, this);
+        return this.myInterests.add(e.copy()) && this.gsc.getInterestManager().put(e, this, threshold);
     }
 
     @Override
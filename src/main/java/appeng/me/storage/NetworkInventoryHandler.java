@@ -20,10 +20,12 @@
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.Deque;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
 
@@ -45,6 +47,10 @@
     private static final ThreadLocal<Deque> DEPTH_MOD = new ThreadLocal<>();
     private static final ThreadLocal<Deque> DEPTH_SIM = new ThreadLocal<>();
     private static final Comparator<Integer> PRIORITY_SORTER = (o1, o2) -> Integer.compare(o2, o1);
+    /**
+     * Upper bound for the number of stacks whose route is remembered.
+     */
+    private static final int MAX_ROUTES = 4096;
 
     private static int currentPass = 0;
     private final IStorageChannel<T> myChannel;
@@ -52,6 +58,31 @@
     private final NavigableMap<Integer, List<IMEInventoryHandler<T>>> priorityInventory;
     private int myPass = 0;
 
+    /**
+     * All handlers flattened in injection order (highest priority first), rebuilt whenever storage is added.
+     */
+    private final List<IMEInventoryHandler<T>> orderedHandlers = new ArrayList<>();
+    /**
+     * Start offset of each priority bucket in {@link #orderedHandlers}, followed by the total handler count.
+     */
+    private int[] bucketOffsets = new int[] { 0 };
+    /**
+     * Handlers whose contents can change without passing through this handler, they are visited for every request.
+     */
+    private final BitSet unindexedHandlers = new BitSet();
+    /**
+     * Per stack, the indexed handlers which hold it or are prioritized for it. This is a superset, entries are pruned
+     * lazily once a handler turns out to neither hold nor prioritize the stack. Stacks without any handler are not
+     * kept, and only the most recently used {@link #MAX_ROUTES} routes are.
+     */
+    private final Map<T, BitSet> routes = new LinkedHashMap<T, BitSet>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<T, BitSet> eldest) {
+            return this.size() > MAX_ROUTES;
+        }
+    };
+    private boolean routingDirty = true;
+
     public NetworkInventoryHandler(final IStorageChannel<T> chan, final SecurityCache security) {
         this.myChannel = chan;
         this.security = security;
@@ -66,6 +97,25 @@ public void addNewStorage(final IMEInventoryHandler<T> h) {
         }
 
         list.add(h);
+        this.routingDirty = true;
+    }
+
+    /**
+     * @return true if the given source is allowed to extract from this network.
+     */
+    public boolean canExtract(final IActionSource src) {
+        return !this.testPermission(src, SecurityPermissions.EXTRACT);
+    }
+
+    /**
+     * Forgets the routes of the given stacks, because their location changed without passing through this handler.
+     */
+    public void invalidateRoutes(final Iterable<? extends IAEStack<?>> changes) {
+        for (final IAEStack<?> change : changes) {
+            if (change != null) {
+                this.routes.remove(change);
+            }
+        }
     }
 
     @Override
@@ -79,14 +129,24 @@ public T injectItems(T input, final Actionable type, final IActionSource src) {
             return input;
         }
 
-        for (final List<IMEInventoryHandler<T>> invList : this.priorityInventory.values()) {
-            Iterator<IMEInventoryHandler<T>> ii = invList.iterator();
-            while (ii.hasNext() && input != null) {
-                final IMEInventoryHandler<T> inv = ii.next();
+        this.updateRoutingIndex();
+        final T originalInput = input;
+        final BitSet route = this.getRoute(input, src);
+
+        for (int bucket = 0; bucket < this.bucketOffsets.length - 1 && input != null; bucket++) {
+            final int start = this.bucketOffsets[bucket];
+            final int end = this.bucketOffsets[bucket + 1];
 
-                if (inv.validForPass(1) && inv.canAccept(input)
-                        && (inv.isPrioritized(input) || inv.extractItems(input, Actionable.SIMULATE, src) != null)) {
-                    input = inv.injectItems(input, type, src);
+            for (int i = this.nextCandidate(route, start, end); i >= 0 && input != null; i = this.nextCandidate(route,
+                    i + 1, end)) {
+                final IMEInventoryHandler<T> inv = this.orderedHandlers.get(i);
+
+                if (inv.validForPass(1) && inv.canAccept(input)) {
+                    if (inv.isPrioritized(input) || inv.extractItems(input, Actionable.SIMULATE, src) != null) {
+                        input = this.injectInto(i, inv, route, input, type, src);
+                    } else if (!this.unindexedHandlers.get(i)) {
+                        route.clear(i);
+                    }
                 }
             }
 
@@ -96,21 +156,32 @@ public T injectItems(T input, final Actionable type, final IActionSource src) {
             // stateless we will just report twice
             // the amount of storable items.
             // ignores craftingcache on the second pass.
-            ii = invList.iterator();
-            while (ii.hasNext() && input != null) {
-                final IMEInventoryHandler<T> inv = ii.next();
+            for (int i = start; i < end && input != null; i++) {
+                final IMEInventoryHandler<T> inv = this.orderedHandlers.get(i);
 
                 if (inv.validForPass(2) && inv.canAccept(input) && !inv.isPrioritized(input)) {
-                    input = inv.injectItems(input, type, src);
+                    input = this.injectInto(i, inv, route, input, type, src);
                 }
             }
         }
 
+        this.keepRoute(route, originalInput);
         this.surface(this, type);
 
         return input;
     }
 
+    private T injectInto(final int index, final IMEInventoryHandler<T> inv, final BitSet route, final T input,
+            final Actionable type, final IActionSource src) {
+        final T leftover = inv.injectItems(input, type, src);
+
+        if (type == Actionable.MODULATE && (leftover == null || leftover.getStackSize() < input.getStackSize())) {
+            route.set(index);
+        }
+
+        return leftover;
+    }
+
     private boolean diveList(final NetworkInventoryHandler<T> networkInventoryHandler, final Actionable type) {
         final Deque cDepth = this.getDepth(type);
         if (cDepth.contains(networkInventoryHandler)) {
@@ -178,25 +249,33 @@ public T extractItems(T request, final Actionable mode, final IActionSource src)
             return null;
         }
 
-        final Iterator<List<IMEInventoryHandler<T>>> i = this.priorityInventory.descendingMap().values().iterator();// priorityInventory.asMap().descendingMap().entrySet().iterator();
+        this.updateRoutingIndex();
+        final BitSet route = this.getRoute(request, src);
 
         final T output = request.copy();
         request = request.copy();
         output.setStackSize(0);
         final long req = request.getStackSize();
 
-        while (i.hasNext()) {
-            final List<IMEInventoryHandler<T>> invList = i.next();
+        for (int bucket = this.bucketOffsets.length - 2; bucket >= 0; bucket--) {
+            final int end = this.bucketOffsets[bucket + 1];
 
-            final Iterator<IMEInventoryHandler<T>> ii = invList.iterator();
-            while (ii.hasNext() && output.getStackSize() < req) {
-                final IMEInventoryHandler<T> inv = ii.next();
+            for (int i = this.nextCandidate(route, this.bucketOffsets[bucket], end); i >= 0
+                    && output.getStackSize() < req; i = this.nextCandidate(route, i + 1, end)) {
+                final IMEInventoryHandler<T> inv = this.orderedHandlers.get(i);
 
                 request.setStackSize(req - output.getStackSize());
-                output.add(inv.extractItems(request, mode, src));
+                final T extracted = inv.extractItems(request, mode, src);
+
+                if (extracted == null && !this.unindexedHandlers.get(i) && !inv.isPrioritized(request)) {
+                    route.clear(i);
+                }
+
+                output.add(extracted);
             }
         }
 
+        this.keepRoute(route, output);
         this.surface(this, mode);
 
         if (output.getStackSize() <= 0) {
@@ -206,6 +285,91 @@ public T extractItems(T request, final Actionable mode, final IActionSource src)
         return output;
     }
 
+    /**
+     * Flattens the priority buckets into {@link #orderedHandlers} after storage was added and drops all known routes.
+     */
+    private void updateRoutingIndex() {
+        if (!this.routingDirty) {
+            return;
+        }
+
+        this.routingDirty = false;
+        this.orderedHandlers.clear();
+        this.unindexedHandlers.clear();
+        this.routes.clear();
+        this.bucketOffsets = new int[this.priorityInventory.size() + 1];
+
+        int bucket = 0;
+        for (final List<IMEInventoryHandler<T>> invList : this.priorityInventory.values()) {
+            this.bucketOffsets[bucket++] = this.orderedHandlers.size();
+
+            for (final IMEInventoryHandler<T> inv : invList) {
+                if (!isIndexable(inv)) {
+                    this.unindexedHandlers.set(this.orderedHandlers.size());
+                }
+                this.orderedHandlers.add(inv);
+            }
+        }
+        this.bucketOffsets[bucket] = this.orderedHandlers.size();
+    }
+
+    /**
+     * Only cells in drives are indexed, as their contents can only be changed through this handler. Everything else
+     * (chests, storage buses, formation planes, the crafting cache) is always visited.
+     */
+    private static boolean isIndexable(final IMEInventoryHandler<?> inv) {
+        return inv instanceof DriveWatcher;
+    }
+
+    /**
+     * Returns the route for the given stack, scanning all indexed handlers if it is not yet known. New routes are only
+     * remembered by {@link #keepRoute} once the operation is done.
+     */
+    private BitSet getRoute(final T stack, final IActionSource src) {
+        BitSet route = this.routes.get(stack);
+
+        if (route == null) {
+            route = new BitSet(this.orderedHandlers.size());
+
+            for (int i = 0; i < this.orderedHandlers.size(); i++) {
+                if (!this.unindexedHandlers.get(i)) {
+                    final IMEInventoryHandler<T> inv = this.orderedHandlers.get(i);
+
+                    if (inv.isPrioritized(stack) || inv.extractItems(stack, Actionable.SIMULATE, src) != null) {
+                        route.set(i);
+                    }
+                }
+            }
+        }
+
+        return route;
+    }
+
+    /**
+     * Remembers the route of a stack after an operation, unless no indexed handler is left on it.
+     */
+    private void keepRoute(final BitSet route, final T stack) {
+        if (route.isEmpty()) {
+            this.routes.remove(stack);
+        } else if (!this.routes.containsKey(stack)) {
+            this.routes.put(stack.copy(), route);
+        }
+    }
+
+    /**
+     * @return the next handler index in [from, end) that is either routed for the stack or unindexed, or -1.
+     */
+    private int nextCandidate(final BitSet route, final int from, final int end) {
+        int next = route.nextSetBit(from);
+        final int unindexed = this.unindexedHandlers.nextSetBit(from);
+
+        if (next < 0 || unindexed >= 0 && unindexed < next) {
+            next = unindexed;
+        }
+
+        return next >= 0 && next < end ? next : -1;
+    }
+
     @Override
     public IItemList<T> getAvailableItems(IItemList<T> out) {
         if (this.diveIteration(this, Actionable.SIMULATE)) {
@@ -18,7 +18,6 @@
 
 package appeng.parts.automation;
 
-import java.util.Collection;
 import java.util.Random;
 
 import net.minecraft.entity.player.PlayerEntity;
@@ -54,13 +53,11 @@
 import appeng.api.networking.events.MENetworkEventSubscribe;
 import appeng.api.networking.events.MENetworkPowerStatusChange;
 import appeng.api.networking.security.IActionSource;
-import appeng.api.networking.storage.IBaseMonitor;
 import appeng.api.networking.storage.IStackWatcher;
 import appeng.api.networking.storage.IStackWatcherHost;
+import appeng.api.networking.storage.IStorageGrid;
 import appeng.api.parts.IPartCollisionHelper;
 import appeng.api.parts.IPartModel;
-import appeng.api.storage.IMEMonitor;
-import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.channels.IItemStorageChannel;
 import appeng.api.storage.data.IAEItemStack;
@@ -76,13 +73,15 @@
 import appeng.core.AppEng;
 import appeng.items.parts.PartModels;
 import appeng.me.GridAccessException;
+import appeng.me.cache.GridStorageCache;
+import appeng.me.cache.ItemLevelAggregator;
 import appeng.parts.PartModel;
 import appeng.tile.inventory.AppEngInternalAEInventory;
 import appeng.util.Platform;
 import appeng.util.inv.InvOperation;
 
 public class LevelEmitterPart extends UpgradeablePart implements IEnergyWatcherHost, IStackWatcherHost,
-        ICraftingWatcherHost, IMEMonitorHandlerReceiver<IAEItemStack>, ICraftingProvider {
+        ICraftingWatcherHost, ICraftingProvider {
 
     @PartModels
     public static final ResourceLocation MODEL_BASE_OFF = new ResourceLocation(AppEng.MOD_ID,
@@ -119,6 +118,7 @@ public class LevelEmitterPart extends UpgradeablePart implements IEnergyWatcherH
     private IStackWatcher myWatcher;
     private IEnergyWatcher myEnergyWatcher;
     private ICraftingWatcher myCraftingWatcher;
+    private ItemLevelAggregator.Watch levelWatch;
     private double centerX;
     private double centerY;
     private double centerZ;
@@ -140,8 +140,19 @@ public void setReportingValue(final long v) {
         this.reportingValue = v;
         if (this.getConfigManager().getSetting(Settings.LEVEL_TYPE) == LevelType.ENERGY_LEVEL) {
             this.configureWatchers();
+        } else if (this.levelWatch != null) {
+            // the running total only reports crossings, so look at it again against the new threshold
+            this.levelWatch.setThreshold(v);
+            this.onLevelCrossed();
         } else {
-            this.updateState();
+            // the stack watcher only tells us about changes across the threshold, so move it and look again
+            final IAEItemStack myStack = this.config.getAEStackInSlot(0);
+            if (this.myWatcher != null && myStack != null && this.myWatcher.remove(myStack)) {
+                this.myWatcher.add(myStack, v);
+                this.updateReportingValue(myStack);
+            } else {
+                this.updateState();
+            }
         }
     }
 
@@ -224,6 +235,11 @@ private void configureWatchers() {
             this.myCraftingWatcher.reset();
         }
 
+        if (this.levelWatch != null) {
+            this.levelWatch.remove();
+            this.levelWatch = null;
+        }
+
         try {
             this.getProxy().getGrid().postEvent(new MENetworkCraftingPatternChange(this, this.getProxy().getNode()));
         } catch (final GridAccessException e1) {
@@ -247,11 +263,6 @@ private void configureWatchers() {
                 // update to power...
                 this.lastReportedValue = (long) this.getProxy().getEnergy().getStoredPower();
                 this.updateState();
-
-                // no more item stuff..
-                this.getProxy().getStorage()
-                        .getInventory(Api.instance().storage().getStorageChannel(IItemStorageChannel.class))
-                        .removeListener(this);
             } catch (final GridAccessException e) {
                 // :P
             }
@@ -261,53 +272,42 @@ private void configureWatchers() {
 
         try {
             if (this.getInstalledUpgrades(Upgrades.FUZZY) > 0 || myStack == null) {
-                this.getProxy().getStorage()
-                        .getInventory(Api.instance().storage().getStorageChannel(IItemStorageChannel.class))
-                        .addListener(this, this.getProxy().getGrid());
+                // totals over many stacks are kept by the network, we only hear about it when they cross our value
+                final GridStorageCache storage = this.getProxy().getGrid().getCache(IStorageGrid.class);
+                final FuzzyMode fzMode = (FuzzyMode) this.getConfigManager().getSetting(Settings.FUZZY_MODE);
+                this.levelWatch = storage.getItemLevels().watch(this.getProxy().getNode(), myStack, fzMode,
+                        this.reportingValue, this::onLevelCrossed);
+                this.onLevelCrossed();
             } else {
-                this.getProxy().getStorage()
-                        .getInventory(Api.instance().storage().getStorageChannel(IItemStorageChannel.class))
-                        .removeListener(this);
-
                 if (this.myWatcher != null) {
-                    this.myWatcher.add(myStack);
+                    this.myWatcher.add(myStack, this.reportingValue);
                 }
-            }
 
-            this.updateReportingValue(this.getProxy().getStorage()
-                    .getInventory(Api.instance().storage().getStorageChannel(IItemStorageChannel.class)));
+                this.updateReportingValue(myStack);
+            }
         } catch (final GridAccessException e) {
             // >.>
         }
     }
 
-    private void updateReportingValue(final IMEMonitor<IAEItemStack> monitor) {
-        final IAEItemStack myStack = this.config.getAEStackInSlot(0);
-
-        if (myStack == null) {
-            this.lastReportedValue = 0;
-            for (final IAEItemStack st : monitor.getStorageList()) {
-                this.lastReportedValue += st.getStackSize();
-            }
-        } else if (this.getInstalledUpgrades(Upgrades.FUZZY) > 0) {
-            this.lastReportedValue = 0;
-            final FuzzyMode fzMode = (FuzzyMode) this.getConfigManager().getSetting(Settings.FUZZY_MODE);
-            final Collection<IAEItemStack> fuzzyList = monitor.getStorageList().findFuzzy(myStack, fzMode);
-            for (final IAEItemStack st : fuzzyList) {
-                this.lastReportedValue += st.getStackSize();
-            }
-        } else {
-            final IAEItemStack r = monitor.getStorageList().findPrecise(myStack);
-            if (r == null) {
-                this.lastReportedValue = 0;
-            } else {
-                this.lastReportedValue = r.getStackSize();
-            }
+    private void updateReportingValue(final IAEItemStack myStack) {
+        try {
+            final IAEItemStack r = this.getProxy().getStorage()
+                    .getInventory(Api.instance().storage().getStorageChannel(IItemStorageChannel.class))
+                    .getStorageList().findPrecise(myStack);
+            this.lastReportedValue = r == null ? 0 : r.getStackSize();
+        } catch (final GridAccessException e) {
+            // >.>
         }
 
         this.updateState();
     }
 
+    private void onLevelCrossed() {
+        this.lastReportedValue = this.levelWatch.getAmount();
+        this.updateState();
+    }
+
     @Override
     public void updateWatcher(final IStackWatcher newWatcher) {
         this.myWatcher = newWatcher;
@@ -337,31 +337,6 @@ public void onThresholdPass(final IEnergyGrid energyGrid) {
         this.updateState();
     }
 
-    @Override
-    public boolean isValid(final Object effectiveGrid) {
-        try {
-            return this.getProxy().getGrid() == effectiveGrid;
-        } catch (final GridAccessException e) {
-            return false;
-        }
-    }
-
-    @Override
-    public void postChange(final IBaseMonitor<IAEItemStack> monitor, final Iterable<IAEItemStack> change,
-            final IActionSource actionSource) {
-        this.updateReportingValue((IMEMonitor<IAEItemStack>) monitor);
-    }
-
-    @Override
-    public void onListUpdate() {
-        try {
-            this.updateReportingValue(this.getProxy().getStorage()
-                    .getInventory(Api.instance().storage().getStorageChannel(IItemStorageChannel.class)));
-        } catch (final GridAccessException e) {
-            // ;P
-        }
-    }
-
     @Override
     public AECableType getCableConnectionType(final AEPartLocation dir) {
         return AECableType.SMART;
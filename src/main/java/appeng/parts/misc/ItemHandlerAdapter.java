@@ -20,11 +20,14 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import net.minecraft.item.ItemStack;
 import net.minecraftforge.items.IItemHandler;
 
@@ -34,6 +37,7 @@
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
+import appeng.api.storage.ISlotChangeJournal;
 import appeng.api.storage.channels.IItemStorageChannel;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
@@ -55,10 +59,10 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
     private final IGridProxyable proxyable;
     private final InventoryCache cache;
 
-    ItemHandlerAdapter(IItemHandler itemHandler, IGridProxyable proxy) {
+    ItemHandlerAdapter(IItemHandler itemHandler, @Nullable ISlotChangeJournal journal, IGridProxyable proxy) {
         this.itemHandler = itemHandler;
         this.proxyable = proxy;
-        this.cache = new InventoryCache(this.itemHandler);
+        this.cache = new InventoryCache(this.itemHandler, journal);
     }
 
     @Override
@@ -71,7 +75,13 @@ public IAEItemStack injectItems(IAEItemStack iox, Actionable type, IActionSource
 
         // This uses a brute force approach and tries to jam it in every slot the inventory exposes.
         for (int i = 0; i < slotCount && !remaining.isEmpty(); i++) {
-            remaining = this.itemHandler.insertItem(i, remaining, simulate);
+            if (simulate) {
+                remaining = this.itemHandler.insertItem(i, remaining, true);
+            } else {
+                this.cache.beforeChange(i);
+                remaining = this.itemHandler.insertItem(i, remaining, false);
+                this.cache.afterChange(i);
+            }
         }
 
         // At this point, we still have some items left...
@@ -113,6 +123,10 @@ public IAEItemStack extractItems(IAEItemStack request, Actionable mode, IActionS
             int stackSizeCurrentSlot = stackInInventorySlot.getCount();
             int remainingCurrentSlot = Math.min(remainingSize, stackSizeCurrentSlot);
 
+            if (!simulate) {
+                this.cache.beforeChange(i);
+            }
+
             // We have to loop here because according to the docs, the handler shouldn't return a stack with
             // size > maxSize, even if we request more. So even if it returns a valid stack, it might have more stuff.
             do {
@@ -153,6 +167,10 @@ public IAEItemStack extractItems(IAEItemStack request, Actionable mode, IActionS
                 }
             } while (!simulate && !extracted.isEmpty() && remainingCurrentSlot > 0);
 
+            if (!simulate) {
+                this.cache.afterChange(i);
+            }
+
             remainingSize -= stackSizeCurrentSlot - remainingCurrentSlot;
 
             // Done?
@@ -182,6 +200,9 @@ public TickRateModulation onTick() {
         if (!changes.isEmpty()) {
             this.postDifference(changes);
             return TickRateModulation.URGENT;
+        } else if (this.cache.isScanning()) {
+            // Don't slow down in the middle of a pass, or changes in large inventories take ages to show up
+            return TickRateModulation.SAME;
         } else {
             return TickRateModulation.SLOWER;
         }
@@ -226,12 +247,35 @@ private void postDifference(Iterable<IAEItemStack> a) {
         }
     }
 
+    /**
+     * Keeps a copy of the inventory's content to find out what changed since the last update.
+     * <p/>
+     * If the inventory offers a {@link ISlotChangeJournal}, only the slots reported by it are checked. Otherwise
+     * inventories with more than {@link #SCAN_BUDGET} slots are checked in slices over several updates.
+     * <p/>
+     * Slots changed through this adapter are taken over right away without reporting them, because the network already
+     * accounted for those changes when it inserted or extracted the items. They are checked again with the next update
+     * regardless, in case the inventory changes them itself in response.
+     */
     private static class InventoryCache {
+        /**
+         * How many slots of an inventory without a journal are checked per update.
+         */
+        private static final int SCAN_BUDGET = 256;
+
         private IAEItemStack[] cachedAeStacks = new IAEItemStack[0];
         private final IItemHandler itemHandler;
-
-        public InventoryCache(IItemHandler itemHandler) {
+        @Nullable
+        private final ISlotChangeJournal journal;
+        private final BitSet dirtySlots = new BitSet();
+        private final List<IAEItemStack> pendingChanges = new ArrayList<>();
+        private boolean fullScanNeeded = true;
+        private long journalVersion;
+        private int scanCursor = 0;
+
+        public InventoryCache(IItemHandler itemHandler, @Nullable ISlotChangeJournal journal) {
             this.itemHandler = itemHandler;
+            this.journal = journal;
         }
 
         public IItemList<IAEItemStack> getAvailableItems(IItemList<IAEItemStack> out) {
@@ -239,8 +283,40 @@ public IItemList<IAEItemStack> getAvailableItems(IItemList<IAEItemStack> out) {
             return out;
         }
 
+        /**
+         * Brings the copy of a slot up to date before the adapter changes it, so changes made from outside in the
+         * meantime are still reported with the next update.
+         */
+        public void beforeChange(int slot) {
+            this.ensureCapacity(slot);
+            this.scanSlot(slot, this.pendingChanges);
+        }
+
+        /**
+         * Takes over a change the adapter made to a slot without reporting it.
+         */
+        public void afterChange(int slot) {
+            this.ensureCapacity(slot);
+            this.scanSlot(slot, new ArrayList<>(2));
+            this.dirtySlots.set(slot);
+        }
+
+        private void ensureCapacity(int slot) {
+            if (slot >= this.cachedAeStacks.length) {
+                this.cachedAeStacks = Arrays.copyOf(this.cachedAeStacks, slot + 1);
+            }
+        }
+
+        /**
+         * @return true if the last update only checked a part of the inventory, and the rest is still to come.
+         */
+        public boolean isScanning() {
+            return this.scanCursor != 0;
+        }
+
         public List<IAEItemStack> update() {
-            final List<IAEItemStack> changes = new ArrayList<>();
+            final List<IAEItemStack> changes = new ArrayList<>(this.pendingChanges);
+            this.pendingChanges.clear();
             final int slots = this.itemHandler.getSlots();
 
             // Make room for new slots
@@ -248,12 +324,37 @@ public List<IAEItemStack> update() {
                 this.cachedAeStacks = Arrays.copyOf(this.cachedAeStacks, slots);
             }
 
-            for (int slot = 0; slot < slots; slot++) {
-                // Save the old stuff
-                final IAEItemStack oldAeIS = this.cachedAeStacks[slot];
-                final ItemStack newIS = this.itemHandler.getStackInSlot(slot);
+            if (this.journal != null) {
+                final long version = this.journal.getChangeVersion();
+                if (!this.fullScanNeeded && version != this.journalVersion
+                        && !this.journal.getChangedSlots(this.journalVersion, this.dirtySlots::set)) {
+                    // The journal lost track, so we have to look at everything
+                    this.fullScanNeeded = true;
+                }
+                this.journalVersion = version;
 
-                this.handlePossibleSlotChanges(slot, oldAeIS, newIS, changes);
+                if (this.fullScanNeeded) {
+                    this.scanSlots(0, slots, changes);
+                }
+            } else if (this.fullScanNeeded || slots <= SCAN_BUDGET) {
+                this.scanSlots(0, slots, changes);
+            } else {
+                // Check the next slice, and start over once the end of the inventory is reached
+                final int start = Math.min(this.scanCursor, slots);
+                final int end = Math.min(start + SCAN_BUDGET, slots);
+                this.scanSlots(start, end, changes);
+                this.scanCursor = end < slots ? end : 0;
+            }
+
+            if (this.fullScanNeeded) {
+                this.fullScanNeeded = false;
+                this.dirtySlots.clear();
+            } else {
+                for (int slot = this.dirtySlots.nextSetBit(0); slot >= 0 && slot < slots; slot = this.dirtySlots
+                        .nextSetBit(slot + 1)) {
+                    this.scanSlot(slot, changes);
+                }
+                this.dirtySlots.clear();
             }
 
             // Handle cases where the number of slots actually is lower now than before
@@ -275,6 +376,20 @@ public List<IAEItemStack> update() {
             return changes;
         }
 
+        private void scanSlots(int from, int to, List<IAEItemStack> changes) {
+            for (int slot = from; slot < to; slot++) {
+                this.scanSlot(slot, changes);
+            }
+        }
+
+        private void scanSlot(int slot, List<IAEItemStack> changes) {
+            // Save the old stuff
+            final IAEItemStack oldAeIS = this.cachedAeStacks[slot];
+            final ItemStack newIS = this.itemHandler.getStackInSlot(slot);
+
+            this.handlePossibleSlotChanges(slot, oldAeIS, newIS, changes);
+        }
+
         private void handlePossibleSlotChanges(int slot, IAEItemStack oldAeIS, ItemStack newIS,
                 List<IAEItemStack> changes) {
             if (oldAeIS != null && oldAeIS.isSameType(newIS)) {
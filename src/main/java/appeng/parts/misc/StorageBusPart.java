@@ -60,6 +60,7 @@
 import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEInventoryHandler;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
+import appeng.api.storage.ISlotChangeJournal;
 import appeng.api.storage.IStorageChannel;
 import appeng.api.storage.IStorageMonitorable;
 import appeng.api.storage.IStorageMonitorableAccessor;
@@ -355,7 +356,10 @@ private IMEInventory<IAEItemStack> getInventoryWrapper(TileEntity target) {
         final LazyOptional<IItemHandler> handlerExtOpt = target
                 .getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, targetSide);
         if (handlerExtOpt.isPresent()) {
-            return new ItemHandlerAdapter(handlerExtOpt.orElse(null), this);
+            // Inventories that keep track of their changed slots spare us from checking all of them
+            final ISlotChangeJournal journal = target.getCapability(Capabilities.SLOT_CHANGE_JOURNAL, targetSide)
+                    .orElse(null);
+            return new ItemHandlerAdapter(handlerExtOpt.orElse(null), journal, this);
         }
 
         return null;
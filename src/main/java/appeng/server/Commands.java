@@ -19,15 +19,19 @@
 package appeng.server;
 
 import appeng.server.subcommands.ChunkLogger;
+import appeng.server.subcommands.CraftingQueueCommand;
+import appeng.server.subcommands.PatternCacheCommand;
 import appeng.server.subcommands.SpatialStorageCommand;
 import appeng.server.subcommands.Supporters;
 import appeng.server.subcommands.TestMeteoritesCommand;
 import appeng.server.subcommands.TestOreGenCommand;
+import appeng.server.subcommands.TickTimesCommand;
 
 public enum Commands {
     Chunklogger(4, new ChunkLogger(), false), Supporters(0, new Supporters(), false),
     TestOreGen(4, new TestOreGenCommand(), true), TestMeteorites(4, new TestMeteoritesCommand(), true),
-    Spatial(4, new SpatialStorageCommand(), false);
+    Spatial(4, new SpatialStorageCommand(), false), CraftingQueue(2, new CraftingQueueCommand(), false),
+    TickTimes(2, new TickTimesCommand(), false), PatternCache(2, new PatternCacheCommand(), false);
 
     public final int level;
     public final ISubCommand command;
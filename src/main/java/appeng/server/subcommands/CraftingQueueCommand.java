@@ -0,0 +1,51 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.server.subcommands;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.command.CommandSource;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.StringTextComponent;
+
+import appeng.crafting.CraftingJobScheduler;
+import appeng.crafting.CraftingJobScheduler.Priority;
+import appeng.server.ISubCommand;
+
+/**
+ * Shows how busy the crafting calculation threads are.
+ */
+public class CraftingQueueCommand implements ISubCommand {
+
+    @Override
+    public void call(final MinecraftServer srv, final CommandContext<CommandSource> data, final CommandSource sender) {
+        final CraftingJobScheduler scheduler = CraftingJobScheduler.instance();
+
+        sender.sendFeedback(new StringTextComponent(String.format("Crafting calculations: %d running, %d queued "
+                + "(%d interactive, %d automated)", scheduler.getRunning(),
+                scheduler.getQueued(Priority.INTERACTIVE) + scheduler.getQueued(Priority.AUTOMATED),
+                scheduler.getQueued(Priority.INTERACTIVE), scheduler.getQueued(Priority.AUTOMATED))), false);
+        sender.sendFeedback(new StringTextComponent(String.format(
+                "%d started, %d dropped as stale, waited %d ms on average and %d ms at most", scheduler.getStarted(),
+                scheduler.getDropped(), scheduler.getAverageWait(TimeUnit.MILLISECONDS),
+                scheduler.getMaxWait(TimeUnit.MILLISECONDS))), false);
+    }
+}
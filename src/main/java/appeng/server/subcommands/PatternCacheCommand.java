@@ -0,0 +1,41 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.server.subcommands;
+
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.command.CommandSource;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.StringTextComponent;
+
+import appeng.helpers.DecodedPatternCache;
+import appeng.server.ISubCommand;
+
+/**
+ * Shows how often decoded patterns could be shared instead of decoding them again.
+ */
+public class PatternCacheCommand implements ISubCommand {
+
+    @Override
+    public void call(final MinecraftServer srv, final CommandContext<CommandSource> data, final CommandSource sender) {
+        sender.sendFeedback(new StringTextComponent(String.format("Decoded patterns: %d cached, %d hits, %d misses",
+                DecodedPatternCache.getSize(), DecodedPatternCache.getHits(), DecodedPatternCache.getMisses())),
+                false);
+    }
+}
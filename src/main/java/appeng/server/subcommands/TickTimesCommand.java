@@ -0,0 +1,125 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2021, TeamAppliedEnergistics, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.server.subcommands;
+
+import static net.minecraft.command.Commands.literal;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+
+import net.minecraft.command.CommandSource;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.StringTextComponent;
+
+import appeng.api.networking.ticking.ITickManager;
+import appeng.api.util.DimensionalCoord;
+import appeng.core.AEConfig;
+import appeng.hooks.ticking.TickHandler;
+import appeng.me.Grid;
+import appeng.me.cache.TickManagerCache;
+import appeng.me.cache.TickManagerCache.TickTime;
+import appeng.server.ISubCommand;
+
+/**
+ * Turns tick timing of grid nodes on and off, and lists the grids and machines that take the longest to tick.
+ */
+public class TickTimesCommand implements ISubCommand {
+
+    private static final int GRIDS_SHOWN = 5;
+    private static final int MACHINES_SHOWN = 3;
+
+    @Override
+    public void addArguments(LiteralArgumentBuilder<CommandSource> builder) {
+        builder.then(literal("on").executes(ctx -> {
+            setTiming(ctx.getSource(), true);
+            return 1;
+        }));
+        builder.then(literal("off").executes(ctx -> {
+            setTiming(ctx.getSource(), false);
+            return 1;
+        }));
+    }
+
+    private static void setTiming(final CommandSource sender, final boolean enabled) {
+        if (enabled && !AEConfig.instance().isTickTiming()) {
+            // start from a clean slate rather than from whatever was measured the last time
+            for (final Grid grid : TickHandler.instance().getGridList()) {
+                getTickManager(grid).resetTickTimes();
+            }
+        }
+
+        AEConfig.instance().setTickTiming(enabled);
+        sender.sendFeedback(new StringTextComponent("Grid tick timing " + (enabled ? "enabled" : "disabled")), true);
+    }
+
+    @Override
+    public void call(final MinecraftServer srv, final CommandContext<CommandSource> data, final CommandSource sender) {
+        if (!AEConfig.instance().isTickTiming()) {
+            sender.sendFeedback(new StringTextComponent("Grid tick timing is disabled, use /ae2 ticktimes on"),
+                    false);
+            return;
+        }
+
+        final List<Grid> grids = new ArrayList<>();
+        long total = 0;
+        for (final Grid grid : TickHandler.instance().getGridList()) {
+            grids.add(grid);
+            total += getTickManager(grid).getAvgNanoTime();
+        }
+        grids.sort(Comparator.comparingLong((Grid g) -> getTickManager(g).getAvgNanoTime()).reversed());
+
+        sender.sendFeedback(new StringTextComponent(
+                String.format("%d grids take %s per tick", grids.size(), formatNanos(total))), false);
+
+        for (final Grid grid : grids.subList(0, Math.min(GRIDS_SHOWN, grids.size()))) {
+            final TickManagerCache tmc = getTickManager(grid);
+            final DimensionalCoord location = grid.getPivot() == null ? null
+                    : grid.getPivot().getGridBlock().getLocation();
+
+            sender.sendFeedback(new StringTextComponent(String.format("Grid at %s: %s per tick",
+                    location == null ? "unknown location" : location, formatNanos(tmc.getAvgNanoTime()))), false);
+
+            final List<Map.Entry<Class<?>, TickTime>> machines = new ArrayList<>(
+                    tmc.getTickTimeByMachine().entrySet());
+            machines.sort(Comparator.comparingLong((Map.Entry<Class<?>, TickTime> e) -> e.getValue().getAvgNanos())
+                    .reversed());
+
+            for (final Map.Entry<Class<?>, TickTime> entry : machines.subList(0,
+                    Math.min(MACHINES_SHOWN, machines.size()))) {
+                final TickTime time = entry.getValue();
+                sender.sendFeedback(new StringTextComponent(String.format("  %dx %s: %s per tick, slowest %s",
+                        time.getNodes(), entry.getKey().getSimpleName(), formatNanos(time.getAvgNanos()),
+                        formatNanos(time.getMaxNanos()))), false);
+            }
+        }
+    }
+
+    private static TickManagerCache getTickManager(final Grid grid) {
+        return (TickManagerCache) grid.<ITickManager>getCache(ITickManager.class);
+    }
+
+    private static String formatNanos(final long nanos) {
+        return String.format("%.3f ms", nanos / 1_000_000.0);
+    }
+}
@@ -229,6 +229,10 @@ private class CMDirectionRequest implements Runnable {
         public final DimensionalCoord coord;
         public final ICompassCallback callback;
 
+        private int closest;
+        private int chosenX;
+        private int chosenZ;
+
         public CMDirectionRequest(final DimensionalCoord coord, final int getMaxRange, final ICompassCallback cc) {
             this.coord = coord;
             this.maxRange = getMaxRange;
@@ -265,53 +269,18 @@ public void run() {
                 final int maxX = cx + offset;
                 final int maxZ = cz + offset;
 
-                int closest = Integer.MAX_VALUE;
-                int chosen_x = cx;
-                int chosen_z = cz;
-
-                for (int z = minZ; z <= maxZ; z++) {
-                    if (cr.hasBeacon(minX, z)) {
-                        final int closeness = CompassService.this.dist(cx, cz, minX, z);
-                        if (closeness < closest) {
-                            closest = closeness;
-                            chosen_x = minX;
-                            chosen_z = z;
-                        }
-                    }
-
-                    if (cr.hasBeacon(maxX, z)) {
-                        final int closeness = CompassService.this.dist(cx, cz, maxX, z);
-                        if (closeness < closest) {
-                            closest = closeness;
-                            chosen_x = maxX;
-                            chosen_z = z;
-                        }
-                    }
-                }
-
-                for (int x = minX + 1; x < maxX; x++) {
-                    if (cr.hasBeacon(x, minZ)) {
-                        final int closeness = CompassService.this.dist(cx, cz, x, minZ);
-                        if (closeness < closest) {
-                            closest = closeness;
-                            chosen_x = x;
-                            chosen_z = minZ;
-                        }
-                    }
+                this.closest = Integer.MAX_VALUE;
+                this.chosenX = cx;
+                this.chosenZ = cz;
 
-                    if (cr.hasBeacon(x, maxZ)) {
-                        final int closeness = CompassService.this.dist(cx, cz, x, maxZ);
-                        if (closeness < closest) {
-                            closest = closeness;
-                            chosen_x = x;
-                            chosen_z = maxZ;
-                        }
-                    }
-                }
+                this.scanLine(cr, cx, cz, minX, minZ, maxZ, true);
+                this.scanLine(cr, cx, cz, maxX, minZ, maxZ, true);
+                this.scanLine(cr, cx, cz, minZ, minX + 1, maxX - 1, false);
+                this.scanLine(cr, cx, cz, maxZ, minX + 1, maxX - 1, false);
 
-                if (closest < Integer.MAX_VALUE) {
-                    this.callback.calculatedDirection(true, false, CompassService.this.rad(cx, cz, chosen_x, chosen_z),
-                            CompassService.this.dist(cx, cz, chosen_x, chosen_z));
+                if (this.closest < Integer.MAX_VALUE) {
+                    this.callback.calculatedDirection(true, false,
+                            CompassService.this.rad(cx, cz, this.chosenX, this.chosenZ), this.closest);
 
                     if (CompassService.this.jobSize() < 2) {
                         CompassService.this.cleanUp();
@@ -328,5 +297,32 @@ public void run() {
                 CompassService.this.cleanUp();
             }
         }
+
+        /**
+         * Looks for the beacon closest to cx/cz on a straight line of chunks, skipping over blocks of chunks that
+         * don't have any.
+         */
+        private void scanLine(final CompassReader cr, final int cx, final int cz, final int fixed, final int from,
+                final int to, final boolean alongZ) {
+            for (int i = from; i <= to; i++) {
+                final int x = alongZ ? fixed : i;
+                final int z = alongZ ? i : fixed;
+
+                if (!cr.hasBeaconInBlock(x, z)) {
+                    // continue after the last chunk of this block
+                    i |= CompassReader.BLOCK_SIZE - 1;
+                    continue;
+                }
+
+                if (cr.hasBeacon(x, z)) {
+                    final int closeness = CompassService.this.dist(cx, cz, x, z);
+                    if (closeness < this.closest) {
+                        this.closest = closeness;
+                        this.chosenX = x;
+                        this.chosenZ = z;
+                    }
+                }
+            }
+        }
     }
 }
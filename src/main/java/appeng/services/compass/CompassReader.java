@@ -26,6 +26,11 @@
 import net.minecraft.world.server.ServerWorld;
 
 public final class CompassReader {
+    /**
+     * Width in chunks of the aligned squares that {@link #hasBeaconInBlock(int, int)} looks at.
+     */
+    public static final int BLOCK_SIZE = CompassRegion.BLOCK_SIZE;
+
     private final Map<Long, CompassRegion> regions = new HashMap<>(100);
     private final ServerWorld world;
 
@@ -53,6 +58,15 @@ public boolean hasBeacon(final int cx, final int cz) {
         return r.hasBeacon(cx, cz);
     }
 
+    /**
+     * @return true if any chunk in the {@link #BLOCK_SIZE} wide square around the given chunk has skystone.
+     */
+    public boolean hasBeaconInBlock(final int cx, final int cz) {
+        final CompassRegion r = this.getRegion(cx, cz);
+
+        return r.hasBeaconInBlock(cx, cz);
+    }
+
     private CompassRegion getRegion(final int cx, final int cz) {
         long pos = cx >> 10;
         pos <<= 32;
@@ -24,7 +24,20 @@
 import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.storage.WorldSavedData;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+
+/**
+ * Stores which chunks of a 1024x1024 chunk region contain skystone, as one byte per chunk with a bit for each 32 block
+ * high slice. The region is split into 32x32 chunk blocks that are only allocated and saved while they contain
+ * skystone, so empty areas cost neither memory nor disk space, and searches can skip them in one step.
+ */
 final class CompassRegion {
+    /**
+     * Width of a block in chunks.
+     */
+    static final int BLOCK_SIZE = 32;
+
     private final int lowX;
     private final int lowZ;
     private final ServerWorld world;
@@ -62,6 +75,13 @@ boolean hasBeacon(int cx, int cz) {
         return false;
     }
 
+    /**
+     * @return true if any chunk in the block of the given chunk has skystone.
+     */
+    boolean hasBeaconInBlock(final int cx, final int cz) {
+        return this.data != null && this.data.hasBlock(cx & 0x3FF, cz & 0x3FF);
+    }
+
     void setHasBeacon(int cx, int cz, final int cdy, final boolean hasBeacon) {
         cx &= 0x3FF;
         cz &= 0x3FF;
@@ -93,48 +113,143 @@ private void openData(final boolean create) {
 
         if (create) {
             this.data = world.getSavedData().getOrCreate(() -> new SaveData(name), name);
-            if (this.data.bitmap == null) {
-                this.data.bitmap = new byte[SaveData.BITMAP_LENGTH];
-            }
         } else {
             this.data = world.getSavedData().get(() -> new SaveData(name), name);
         }
     }
 
     private int read(final int cx, final int cz) {
-        try {
-            return this.data.bitmap[cx + cz * 0x400];
-        } catch (final IndexOutOfBoundsException outOfBounds) {
-            return 0;
-        }
+        return this.data.get(cx, cz);
     }
 
     private void write(final int cx, final int cz, final int val) {
-        this.data.bitmap[cx + cz * 0x400] = (byte) val;
+        final int blockIndex = blockIndex(cx, cz);
+        byte[] block = this.data.blocks[blockIndex];
+
+        if (block == null) {
+            block = new byte[BLOCK_SIZE * BLOCK_SIZE];
+            this.data.blocks[blockIndex] = block;
+        }
+
+        final int index = indexInBlock(cx, cz);
+        if (block[index] == 0 && val != 0) {
+            this.data.occupied[blockIndex]++;
+        } else if (block[index] != 0 && val == 0 && --this.data.occupied[blockIndex] == 0) {
+            // nothing left in this block
+            this.data.blocks[blockIndex] = null;
+        }
+
+        block[index] = (byte) val;
         this.data.markDirty();
     }
 
-    private static class SaveData extends WorldSavedData {
+    private static int blockIndex(final int cx, final int cz) {
+        return cx / BLOCK_SIZE + cz / BLOCK_SIZE * SaveData.BLOCKS_PER_SIDE;
+    }
+
+    private static int indexInBlock(final int cx, final int cz) {
+        return cx % BLOCK_SIZE + cz % BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    static class SaveData extends WorldSavedData {
 
         private static final int BITMAP_LENGTH = 0x400 * 0x400;
+        private static final int BLOCKS_PER_SIDE = 0x400 / BLOCK_SIZE;
 
-        private byte[] bitmap;
+        private final byte[][] blocks = new byte[BLOCKS_PER_SIDE * BLOCKS_PER_SIDE][];
+        /**
+         * Number of chunks with skystone per block.
+         */
+        private final int[] occupied = new int[BLOCKS_PER_SIDE * BLOCKS_PER_SIDE];
 
         public SaveData(String name) {
             super(name);
         }
 
+        /**
+         * @return the skystone slices of the given chunk, relative to the region.
+         */
+        int get(final int cx, final int cz) {
+            final byte[] block = this.blocks[blockIndex(cx, cz)];
+            return block == null ? 0 : block[indexInBlock(cx, cz)];
+        }
+
+        /**
+         * @return true if the block of the given chunk, relative to the region, is allocated.
+         */
+        boolean hasBlock(final int cx, final int cz) {
+            return this.blocks[blockIndex(cx, cz)] != null;
+        }
+
         @Override
         public void read(CompoundNBT nbt) {
-            this.bitmap = nbt.getByteArray("b");
-            if (this.bitmap.length != BITMAP_LENGTH) {
-                throw new IllegalStateException("Invalid bitmap length: " + bitmap.length);
+            if (nbt.contains("b")) {
+                // the whole region as one bitmap, as it used to be saved
+                final byte[] bitmap = nbt.getByteArray("b");
+                if (bitmap.length != BITMAP_LENGTH) {
+                    throw new IllegalStateException("Invalid bitmap length: " + bitmap.length);
+                }
+
+                for (int i = 0; i < bitmap.length; i++) {
+                    if (bitmap[i] != 0) {
+                        this.set(i & 0x3FF, i >> 10, bitmap[i]);
+                    }
+                }
+                return;
+            }
+
+            final int[] blockIndices = nbt.getIntArray("blocks");
+            final byte[] bitmaps = nbt.getByteArray("bitmaps");
+            final int blockLength = BLOCK_SIZE * BLOCK_SIZE;
+            if (bitmaps.length != blockIndices.length * blockLength) {
+                throw new IllegalStateException("Invalid bitmap length: " + bitmaps.length);
+            }
+
+            for (int i = 0; i < blockIndices.length; i++) {
+                final byte[] block = new byte[blockLength];
+                System.arraycopy(bitmaps, i * blockLength, block, 0, blockLength);
+
+                int occupied = 0;
+                for (final byte val : block) {
+                    if (val != 0) {
+                        occupied++;
+                    }
+                }
+
+                if (occupied > 0) {
+                    this.blocks[blockIndices[i]] = block;
+                    this.occupied[blockIndices[i]] = occupied;
+                }
             }
         }
 
+        private void set(final int cx, final int cz, final byte val) {
+            final int blockIndex = blockIndex(cx, cz);
+            if (this.blocks[blockIndex] == null) {
+                this.blocks[blockIndex] = new byte[BLOCK_SIZE * BLOCK_SIZE];
+            }
+
+            this.blocks[blockIndex][indexInBlock(cx, cz)] = val;
+            this.occupied[blockIndex]++;
+        }
+
         @Override
         public CompoundNBT write(CompoundNBT compound) {
-            compound.putByteArray("b", bitmap);
+            final int blockLength = BLOCK_SIZE * BLOCK_SIZE;
+            final IntList blockIndices = new IntArrayList();
+            for (int i = 0; i < this.blocks.length; i++) {
+                if (this.blocks[i] != null) {
+                    blockIndices.add(i);
+                }
+            }
+
+            final byte[] bitmaps = new byte[blockIndices.size() * blockLength];
+            for (int i = 0; i < blockIndices.size(); i++) {
+                System.arraycopy(this.blocks[blockIndices.getInt(i)], 0, bitmaps, i * blockLength, blockLength);
+            }
+
+            compound.putIntArray("blocks", blockIndices.toIntArray());
+            compound.putByteArray("bitmaps", bitmaps);
             return compound;
         }
 
@@ -19,14 +19,17 @@
 package appeng.spatial;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.network.play.server.SChunkDataPacket;
-import net.minecraft.tileentity.ITickableTileEntity;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.EmptyBlockReader;
@@ -39,15 +42,19 @@
 import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.server.ServerWorldLightManager;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
 import appeng.api.movable.IMovableHandler;
 import appeng.api.movable.IMovableRegistry;
 import appeng.api.util.AEPartLocation;
-import appeng.api.util.WorldCoord;
 import appeng.core.AELog;
 import appeng.core.Api;
 import appeng.core.worlddata.WorldData;
 
 public class CachedPlane {
+    private static final int SECTION_SIZE = 16;
+
     private final int x_size;
     private final int z_size;
     private final int cx_size;
@@ -62,7 +69,10 @@ public class CachedPlane {
     private final List<NextTickListEntry<Block>> ticks = new ArrayList<>();
     private final ServerWorld world;
     private final IMovableRegistry reg = Api.instance().registries().movable();
-    private final List<WorldCoord> updates = new ArrayList<>();
+    /**
+     * Positions that need a neighbor update afterwards, as a bitset per 16x16x16 section.
+     */
+    private final Long2ObjectMap<BitSet> updates = new Long2ObjectOpenHashMap<>();
     private int verticalBits;
     private final BlockState matrixBlockState;
 
@@ -167,15 +177,15 @@ public CachedPlane(final ServerWorld w, final int minX, final int minY, final in
             }
         }
 
-        for (final TileEntity te : this.tiles) {
-            try {
-                this.getWorld().loadedTileEntityList.remove(te);
-                if (te instanceof ITickableTileEntity) {
-                    this.getWorld().tickableTileEntities.remove(te);
-                }
-            } catch (final Exception e) {
-                AELog.debug(e);
-            }
+        // removing them one by one would search the lists of the whole world for each tile
+        final Set<TileEntity> movedTiles = Collections.newSetFromMap(new IdentityHashMap<>());
+        movedTiles.addAll(this.tiles);
+
+        try {
+            this.getWorld().loadedTileEntityList.removeIf(movedTiles::contains);
+            this.getWorld().tickableTileEntities.removeIf(movedTiles::contains);
+        } catch (final Exception e) {
+            AELog.debug(e);
         }
     }
 
@@ -191,32 +201,34 @@ void swap(final CachedPlane dst) {
             AELog.info("Block Copy Scale: " + this.x_size + ", " + this.y_size + ", " + this.z_size);
 
             long startTime = System.nanoTime();
-            final BlockStorageData aD = new BlockStorageData();
-            final BlockStorageData bD = new BlockStorageData();
-
-            for (int x = 0; x < this.x_size; x++) {
-                for (int z = 0; z < this.z_size; z++) {
-                    final Column a = this.myColumns[x][z];
-                    final Column b = dst.myColumns[x][z];
-
-                    for (int y = 0; y < this.y_size; y++) {
-                        final int src_y = y + this.y_offset;
-                        final int dst_y = y + dst.y_offset;
 
-                        if (a.doNotSkip(src_y) && b.doNotSkip(dst_y)) {
-                            a.fillData(src_y, aD);
-                            b.fillData(dst_y, bD);
-
-                            a.setBlockState(src_y, bD);
-                            b.setBlockState(dst_y, aD);
+            // If both planes cover the same whole sections, those can be exchanged as a whole
+            final boolean sectionAligned = this.isSectionAligned() && dst.isSectionAligned()
+                    && this.y_offset == dst.y_offset;
+            int swappedSections = 0;
+
+            for (int x = 0; x < this.x_size; x += SECTION_SIZE) {
+                final int xEnd = Math.min(x + SECTION_SIZE, this.x_size);
+                for (int z = 0; z < this.z_size; z += SECTION_SIZE) {
+                    final int zEnd = Math.min(z + SECTION_SIZE, this.z_size);
+                    for (int y = 0; y < this.y_size; y += SECTION_SIZE) {
+                        final int yEnd = Math.min(y + SECTION_SIZE, this.y_size);
+
+                        final boolean wholeSection = xEnd - x == SECTION_SIZE && zEnd - z == SECTION_SIZE
+                                && yEnd - y == SECTION_SIZE;
+                        if (sectionAligned && wholeSection && this.isMovableSection(x, y, z)
+                                && dst.isMovableSection(x, y, z)) {
+                            this.swapSection(dst, x, y, z);
+                            swappedSections++;
                         } else {
-                            this.markForUpdate(x + this.x_offset, src_y, z + this.z_offset);
-                            dst.markForUpdate(x + dst.x_offset, dst_y, z + dst.z_offset);
+                            this.swapBlocks(dst, x, xEnd, y, yEnd, z, zEnd);
                         }
                     }
                 }
             }
 
+            AELog.info("Swapped Sections: " + swappedSections);
+
             long endTime = System.nanoTime();
             long duration = endTime - startTime;
             AELog.info("Block Copy Time: " + duration);
@@ -255,13 +267,95 @@ void swap(final CachedPlane dst) {
         }
     }
 
+    private boolean isSectionAligned() {
+        return (this.x_offset & 15) == 0 && (this.y_offset & 15) == 0 && (this.z_offset & 15) == 0;
+    }
+
+    /**
+     * @return true if every block of the section starting at the given plane coordinates may be moved as it is.
+     */
+    private boolean isMovableSection(final int x0, final int y0, final int z0) {
+        final BlockStorageData data = new BlockStorageData();
+
+        for (int x = x0; x < x0 + SECTION_SIZE; x++) {
+            for (int z = z0; z < z0 + SECTION_SIZE; z++) {
+                final Column c = this.myColumns[x][z];
+
+                for (int y = y0 + this.y_offset; y < y0 + this.y_offset + SECTION_SIZE; y++) {
+                    if (!c.doNotSkip(y)) {
+                        return false;
+                    }
+
+                    // those are turned into air when moved block by block
+                    c.fillData(y, data);
+                    if (data.state == this.matrixBlockState) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void swapSection(final CachedPlane dst, final int x, final int y, final int z) {
+        final ChunkSection[] a = this.myColumns[x][z].c.getSections();
+        final ChunkSection[] b = dst.myColumns[x][z].c.getSections();
+        final int sectionY = (y + this.y_offset) >> 4;
+
+        final ChunkSection section = a[sectionY];
+        a[sectionY] = b[sectionY];
+        b[sectionY] = section;
+    }
+
+    private void swapBlocks(final CachedPlane dst, final int x0, final int x1, final int y0, final int y1,
+            final int z0, final int z1) {
+        final BlockStorageData aD = new BlockStorageData();
+        final BlockStorageData bD = new BlockStorageData();
+
+        for (int x = x0; x < x1; x++) {
+            for (int z = z0; z < z1; z++) {
+                final Column a = this.myColumns[x][z];
+                final Column b = dst.myColumns[x][z];
+
+                for (int y = y0; y < y1; y++) {
+                    final int src_y = y + this.y_offset;
+                    final int dst_y = y + dst.y_offset;
+
+                    if (a.doNotSkip(src_y) && b.doNotSkip(dst_y)) {
+                        a.fillData(src_y, aD);
+                        b.fillData(dst_y, bD);
+
+                        a.setBlockState(src_y, bD);
+                        b.setBlockState(dst_y, aD);
+                    } else {
+                        this.markForUpdate(x + this.x_offset, src_y, z + this.z_offset);
+                        dst.markForUpdate(x + dst.x_offset, dst_y, z + dst.z_offset);
+                    }
+                }
+            }
+        }
+    }
+
     private void markForUpdate(final int x, final int y, final int z) {
-        this.updates.add(new WorldCoord(x, y, z));
+        this.markBlockForUpdate(x, y, z);
         for (final AEPartLocation d : AEPartLocation.SIDE_LOCATIONS) {
-            this.updates.add(new WorldCoord(x + d.xOffset, y + d.yOffset, z + d.zOffset));
+            this.markBlockForUpdate(x + d.xOffset, y + d.yOffset, z + d.zOffset);
         }
     }
 
+    private void markBlockForUpdate(final int x, final int y, final int z) {
+        final long section = new BlockPos(x & ~15, y & ~15, z & ~15).toLong();
+
+        BitSet positions = this.updates.get(section);
+        if (positions == null) {
+            positions = new BitSet(SECTION_SIZE * SECTION_SIZE * SECTION_SIZE);
+            this.updates.put(section, positions);
+        }
+
+        positions.set((x & 15) | (z & 15) << 4 | (y & 15) << 8);
+    }
+
     private void addTick(final int x, final int y, final int z, final NextTickListEntry<Block> entry) {
         BlockPos where = new BlockPos(x + this.x_offset, y + this.y_offset, z + this.z_offset);
         this.world.getPendingBlockTicks().scheduleTick(where, entry.getTarget(), (int) entry.field_235017_b_,
@@ -333,8 +427,22 @@ private void updateChunks() {
         world.getChunkProvider().tick(() -> false);
     }
 
-    List<WorldCoord> getUpdates() {
-        return this.updates;
+    /**
+     * @return every position that needs a neighbor update, each one only once
+     */
+    List<BlockPos> getUpdates() {
+        final List<BlockPos> positions = new ArrayList<>();
+
+        for (final Long2ObjectMap.Entry<BitSet> entry : this.updates.long2ObjectEntrySet()) {
+            final BlockPos section = BlockPos.fromLong(entry.getLongKey());
+            final BitSet bits = entry.getValue();
+
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                positions.add(section.add(i & 15, i >> 8, (i >> 4) & 15));
+            }
+        }
+
+        return positions;
     }
 
     ServerWorld getWorld() {
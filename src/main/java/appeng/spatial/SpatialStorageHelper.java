@@ -37,7 +37,6 @@
 import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.common.util.ITeleporter;
 
-import appeng.api.util.WorldCoord;
 import appeng.core.Api;
 import appeng.core.AppEng;
 
@@ -188,12 +187,12 @@ public void swapRegions(final ServerWorld srcWorld, final int srcX, final int sr
                     -srcX + dstX, -srcY + dstY, -srcZ + dstZ));
         }
 
-        for (final WorldCoord wc : cDst.getUpdates()) {
-            cSrc.getWorld().notifyNeighborsOfStateChange(wc.getPos(), Blocks.AIR);
+        for (final BlockPos pos : cDst.getUpdates()) {
+            cDst.getWorld().notifyNeighborsOfStateChange(pos, Blocks.AIR);
         }
 
-        for (final WorldCoord wc : cSrc.getUpdates()) {
-            cSrc.getWorld().notifyNeighborsOfStateChange(wc.getPos(), Blocks.AIR);
+        for (final BlockPos pos : cSrc.getUpdates()) {
+            cSrc.getWorld().notifyNeighborsOfStateChange(pos, Blocks.AIR);
         }
 
         this.transverseEdges(srcX - 1, srcY - 1, srcZ - 1, srcX + scaleX + 1, srcY + scaleY + 1, srcZ + scaleZ + 1,
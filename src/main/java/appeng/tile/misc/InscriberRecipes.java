@@ -18,14 +18,24 @@
 
 package appeng.tile.misc;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.MapMaker;
 
 import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
 import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.item.crafting.Ingredient;
 import net.minecraft.nbt.CompoundNBT;
@@ -43,11 +53,15 @@
 /**
  * This class indexes all inscriber recipes to find valid inputs for the top and bottom optional slots. This speeds up
  * checks whether inputs for those two slots are valid.
+ * <p>
+ * The index is built per inscriber recipe table of a recipe manager, which is replaced whenever recipes are reloaded.
  */
 public final class InscriberRecipes {
 
     public static final ResourceLocation NAMEPLATE_RECIPE_ID = new ResourceLocation(AppEng.MOD_ID, "nameplate");
 
+    private static final Map<Object, RecipeIndex> INDICES = new MapMaker().weakKeys().makeMap();
+
     private InscriberRecipes() {
     }
 
@@ -75,7 +89,8 @@ public static InscriberRecipe findRecipe(World world, ItemStack input, ItemStack
             }
         }
 
-        for (final InscriberRecipe recipe : getRecipes(world)) {
+        for (final InscriberRecipe recipe : getIndex(world).byMiddleInput.getOrDefault(input.getItem(),
+                Collections.emptyList())) {
             // The recipe can be flipped at will
             final boolean matchA = recipe.getTopOptional().test(plateA) && recipe.getBottomOptional().test(plateB);
             final boolean matchB = recipe.getTopOptional().test(plateB) && recipe.getBottomOptional().test(plateA);
@@ -124,9 +139,16 @@ private static InscriberRecipe makeNamePressRecipe(ItemStack input, ItemStack pl
      * combination and the reverse will be searched.
      */
     public static boolean isValidOptionalIngredientCombination(World world, ItemStack pressA, ItemStack pressB) {
-        for (InscriberRecipe recipe : getRecipes(world)) {
-            if (recipe.getTopOptional().test(pressA) && recipe.getBottomOptional().test(pressB)
-                    || recipe.getTopOptional().test(pressB) && recipe.getBottomOptional().test(pressA)) {
+        final RecipeIndex index = getIndex(world);
+
+        for (InscriberRecipe recipe : index.getByPresses(pressA, pressB)) {
+            if (recipe.getTopOptional().test(pressA) && recipe.getBottomOptional().test(pressB)) {
+                return true;
+            }
+        }
+
+        for (InscriberRecipe recipe : index.getByPresses(pressB, pressA)) {
+            if (recipe.getTopOptional().test(pressB) && recipe.getBottomOptional().test(pressA)) {
                 return true;
             }
         }
@@ -139,7 +161,7 @@ public static boolean isValidOptionalIngredientCombination(World world, ItemStac
      * top can be used interchangeably here, because the inscriber will flip the recipe if needed.
      */
     public static boolean isValidOptionalIngredient(World world, ItemStack is) {
-        for (InscriberRecipe recipe : getRecipes(world)) {
+        for (InscriberRecipe recipe : getIndex(world).byPress.getOrDefault(is.getItem(), Collections.emptyList())) {
             if (recipe.getTopOptional().test(is) || recipe.getBottomOptional().test(is)) {
                 return true;
             }
@@ -148,4 +170,65 @@ public static boolean isValidOptionalIngredient(World world, ItemStack is) {
         return false;
     }
 
+    private static RecipeIndex getIndex(World world) {
+        return INDICES.computeIfAbsent(world.getRecipeManager().getRecipes(InscriberRecipe.TYPE),
+                recipes -> new RecipeIndex(Iterables.filter(recipes.values(), InscriberRecipe.class)));
+    }
+
+    /**
+     * Inscriber recipes by the items their ingredients can match. Candidates still have to be tested against the
+     * ingredient, since it may also care about NBT.
+     */
+    private static final class RecipeIndex {
+        private final Map<Item, List<InscriberRecipe>> byMiddleInput = new HashMap<>();
+        private final Map<Item, List<InscriberRecipe>> byPress = new HashMap<>();
+        private final Map<Item, Map<Item, List<InscriberRecipe>>> byPresses = new HashMap<>();
+
+        private RecipeIndex(Iterable<InscriberRecipe> recipes) {
+            for (InscriberRecipe recipe : recipes) {
+                for (Item item : getItems(recipe.getMiddleInput())) {
+                    this.byMiddleInput.computeIfAbsent(item, i -> new ArrayList<>()).add(recipe);
+                }
+
+                final Set<Item> top = getItems(recipe.getTopOptional());
+                final Set<Item> bottom = getItems(recipe.getBottomOptional());
+
+                final Set<Item> presses = new LinkedHashSet<>(top);
+                presses.addAll(bottom);
+                for (Item item : presses) {
+                    this.byPress.computeIfAbsent(item, i -> new ArrayList<>()).add(recipe);
+                }
+
+                for (Item topItem : top) {
+                    final Map<Item, List<InscriberRecipe>> byBottom = this.byPresses.computeIfAbsent(topItem,
+                            i -> new HashMap<>());
+                    for (Item bottomItem : bottom) {
+                        byBottom.computeIfAbsent(bottomItem, i -> new ArrayList<>()).add(recipe);
+                    }
+                }
+            }
+        }
+
+        private List<InscriberRecipe> getByPresses(ItemStack top, ItemStack bottom) {
+            final Map<Item, List<InscriberRecipe>> byBottom = this.byPresses.get(top.getItem());
+            return byBottom != null ? byBottom.getOrDefault(bottom.getItem(), Collections.emptyList())
+                    : Collections.emptyList();
+        }
+
+        /**
+         * An ingredient without any matching stacks only accepts an empty slot, which is indexed as air.
+         */
+        private static Set<Item> getItems(Ingredient ingredient) {
+            final Set<Item> items = new LinkedHashSet<>();
+            for (ItemStack stack : ingredient.getMatchingStacks()) {
+                items.add(stack.getItem());
+            }
+
+            if (items.isEmpty()) {
+                items.add(Items.AIR);
+            }
+
+            return items;
+        }
+    }
 }
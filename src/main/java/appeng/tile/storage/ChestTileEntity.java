@@ -614,16 +614,15 @@ public boolean isValid(final Object verificationToken) {
 
         @Override
         public void postChange(final IBaseMonitor<T> monitor, final Iterable<T> change, final IActionSource source) {
-            if (source == ChestTileEntity.this.mySrc
-                    || source.machine().map(machine -> machine == ChestTileEntity.this).orElse(false)) {
-                try {
-                    if (ChestTileEntity.this.getProxy().isActive()) {
-                        ChestTileEntity.this.getProxy().getStorage().postAlterationOfStoredItems(this.chan, change,
-                                ChestTileEntity.this.mySrc);
-                    }
-                } catch (final GridAccessException e) {
-                    // :(
+            // Changes made through our own network are ignored by its monitor while the operation is in progress, so
+            // everything can be forwarded. This keeps the network up to date when other networks access the chest.
+            try {
+                if (ChestTileEntity.this.getProxy().isActive()) {
+                    ChestTileEntity.this.getProxy().getStorage().postAlterationOfStoredItems(this.chan, change,
+                            ChestTileEntity.this.mySrc);
                 }
+            } catch (final GridAccessException e) {
+                // :(
             }
 
             ChestTileEntity.this.blinkCell(0);
@@ -18,6 +18,7 @@
 
 package appeng.tile.storage;
 
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@
 
 import appeng.api.config.Actionable;
 import appeng.api.config.FullnessMode;
+import appeng.api.config.IncludeExclude;
 import appeng.api.config.OperationMode;
 import appeng.api.config.RedstoneMode;
 import appeng.api.config.Settings;
@@ -50,6 +52,8 @@
 import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.IStorageChannel;
+import appeng.api.storage.cells.ICellInventory;
+import appeng.api.storage.cells.ICellInventoryHandler;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
 import appeng.api.util.AECableType;
@@ -96,6 +100,7 @@ public class IOPortTileEntity extends AENetworkInvTileEntity
     private YesNo lastRedstoneState;
     private ItemStack currentCell;
     private Map<IStorageChannel<?>, IMEInventory<?>> cachedInventories;
+    private final Map<IStorageChannel<?>, TransferCursor> cursors = new IdentityHashMap<>();
 
     public IOPortTileEntity(TileEntityType<?> tileEntityTypeIn) {
         super(tileEntityTypeIn);
@@ -327,59 +332,164 @@ private IMEInventory<?> getInv(final ItemStack is, final IStorageChannel<?> chan
 
     private long transferContents(final IEnergySource energy, final IMEInventory src, final IMEInventory destination,
             long itemsToMove, final IStorageChannel chan) {
-        final IItemList<? extends IAEStack> myList;
+        itemsToMove *= chan.transferFactor();
+
         if (src instanceof IMEMonitor) {
-            myList = ((IMEMonitor) src).getStorageList();
+            final IItemList<? extends IAEStack> networkList = ((IMEMonitor) src).getStorageList();
+            final List<IAEStack> accepted = this.getAcceptedStacks(destination, networkList, chan);
+
+            if (accepted != null) {
+                // a partitioned cell only takes what it was configured for, so don't bother with the rest
+                for (final IAEStack s : accepted) {
+                    itemsToMove = this.transferStack(energy, src, destination, s, itemsToMove);
+                    if (itemsToMove <= 0) {
+                        break;
+                    }
+                }
+            } else {
+                itemsToMove = this.transferFromCursor(energy, src, destination, networkList, itemsToMove, chan);
+            }
         } else {
-            myList = src.getAvailableItems(src.getChannel().createList());
+            final IItemList<? extends IAEStack> myList = src.getAvailableItems(src.getChannel().createList());
+
+            for (final IAEStack s : myList) {
+                itemsToMove = this.transferStack(energy, src, destination, s, itemsToMove);
+                if (itemsToMove <= 0) {
+                    break;
+                }
+            }
         }
 
-        itemsToMove *= chan.transferFactor();
+        return itemsToMove / chan.transferFactor();
+    }
 
-        boolean didStuff;
+    /**
+     * Moves stacks from the network list into the destination, starting where the last call for this channel stopped.
+     * Every stack is visited at most once per call.
+     */
+    private long transferFromCursor(final IEnergySource energy, final IMEInventory src, final IMEInventory destination,
+            final IItemList<? extends IAEStack> networkList, long itemsToMove, final IStorageChannel chan) {
+        final TransferCursor cursor = this.cursors.computeIfAbsent(chan, c -> new TransferCursor());
+
+        // a fresh list is walked once from its start, otherwise we wrap around once and stop where we started
+        final boolean resetAtEntry = cursor.source != networkList || cursor.position >= cursor.stacks.size();
+        if (resetAtEntry) {
+            cursor.reset(networkList);
+        }
+        final int start = cursor.position;
+        boolean wrapped = false;
 
-        do {
-            didStuff = false;
+        while (itemsToMove > 0) {
+            if (cursor.position >= cursor.stacks.size()) {
+                if (resetAtEntry || wrapped) {
+                    break;
+                }
 
-            for (final IAEStack s : myList) {
-                final long totalStackSize = s.getStackSize();
-                if (totalStackSize > 0) {
-                    final IAEStack stack = destination.injectItems(s, Actionable.SIMULATE, this.mySrc);
+                cursor.reset(networkList);
+                wrapped = true;
+            }
 
-                    long possible = 0;
-                    if (stack == null) {
-                        possible = totalStackSize;
-                    } else {
-                        possible = totalStackSize - stack.getStackSize();
-                    }
+            if (wrapped && cursor.position >= start) {
+                break;
+            }
 
-                    if (possible > 0) {
-                        possible = Math.min(possible, itemsToMove);
-                        s.setStackSize(possible);
+            itemsToMove = this.transferStack(energy, src, destination, cursor.stacks.get(cursor.position),
+                    itemsToMove);
 
-                        final IAEStack extracted = src.extractItems(s, Actionable.MODULATE, this.mySrc);
-                        if (extracted != null) {
-                            possible = extracted.getStackSize();
-                            final IAEStack failed = Platform.poweredInsert(energy, destination, extracted, this.mySrc);
+            // stay on this stack if we merely ran out of items to move, there might be more of it
+            if (itemsToMove > 0) {
+                cursor.position++;
+            }
+        }
 
-                            if (failed != null) {
-                                possible -= failed.getStackSize();
-                                src.injectItems(failed, Actionable.MODULATE, this.mySrc);
-                            }
+        return itemsToMove;
+    }
 
-                            if (possible > 0) {
-                                itemsToMove -= possible;
-                                didStuff = true;
-                            }
+    /**
+     * @return the stacks in the network list a partitioned destination cell accepts, or null if it accepts anything.
+     */
+    private List<IAEStack> getAcceptedStacks(final IMEInventory destination,
+            final IItemList<? extends IAEStack> networkList, final IStorageChannel chan) {
+        if (!(destination instanceof ICellInventoryHandler)) {
+            return null;
+        }
 
-                            break;
-                        }
-                    }
+        final ICellInventoryHandler<?> handler = (ICellInventoryHandler<?>) destination;
+        final ICellInventory<?> cellInv = handler.getCellInv();
+        if (cellInv == null || !handler.isPreformatted()
+                || handler.getIncludeExcludeMode() != IncludeExclude.WHITELIST) {
+            return null;
+        }
+
+        final List<IAEStack> accepted = new ArrayList<>();
+        final IItemHandler config = cellInv.getConfigInventory();
+
+        for (int x = 0; x < config.getSlots(); x++) {
+            final ItemStack is = config.getStackInSlot(x);
+            final IAEStack configStack = is.isEmpty() ? null : chan.createStack(is);
+
+            if (configStack == null) {
+                continue;
+            }
+
+            if (handler.isFuzzy()) {
+                accepted.addAll(networkList.findFuzzy(configStack, cellInv.getFuzzyMode()));
+            } else {
+                final IAEStack stored = networkList.findPrecise(configStack);
+                if (stored != null) {
+                    accepted.add(stored);
                 }
             }
-        } while (itemsToMove > 0 && didStuff);
+        }
 
-        return itemsToMove / chan.transferFactor();
+        return accepted;
+    }
+
+    /**
+     * Moves as much of a single stack from the source into the destination as possible.
+     */
+    private long transferStack(final IEnergySource energy, final IMEInventory src, final IMEInventory destination,
+            final IAEStack s, long itemsToMove) {
+        while (itemsToMove > 0 && s.getStackSize() > 0) {
+            final long totalStackSize = s.getStackSize();
+            final IAEStack stack = destination.injectItems(s, Actionable.SIMULATE, this.mySrc);
+
+            long possible = 0;
+            if (stack == null) {
+                possible = totalStackSize;
+            } else {
+                possible = totalStackSize - stack.getStackSize();
+            }
+
+            if (possible <= 0) {
+                break;
+            }
+
+            // s may be an entry of the network list, which must not be touched
+            final IAEStack request = s.copy();
+            request.setStackSize(Math.min(possible, itemsToMove));
+
+            final IAEStack extracted = src.extractItems(request, Actionable.MODULATE, this.mySrc);
+            if (extracted == null) {
+                break;
+            }
+
+            possible = extracted.getStackSize();
+            final IAEStack failed = Platform.poweredInsert(energy, destination, extracted, this.mySrc);
+
+            if (failed != null) {
+                possible -= failed.getStackSize();
+                src.injectItems(failed, Actionable.MODULATE, this.mySrc);
+            }
+
+            if (possible <= 0) {
+                break;
+            }
+
+            itemsToMove -= possible;
+        }
+
+        return itemsToMove;
     }
 
     private boolean shouldMove(final IMEInventory<?> inv) {
@@ -445,4 +555,21 @@ public void getDrops(final World w, final BlockPos pos, final List<ItemStack> dr
             }
         }
     }
+
+    /**
+     * Remembers how far an IO port got through the network list, so filling a cell does not start over from the first
+     * stack every time. The list is copied once per pass, its entries are kept up to date by the network.
+     */
+    private static class TransferCursor {
+        private IItemList<?> source;
+        private final List<IAEStack> stacks = new ArrayList<>();
+        private int position;
+
+        private void reset(final IItemList<? extends IAEStack> source) {
+            this.source = source;
+            this.stacks.clear();
+            source.forEach(this.stacks::add);
+            this.position = 0;
+        }
+    }
 }
@@ -110,6 +110,22 @@ public static AEItemStack fromPacket(final PacketBuffer buffer) {
         final long stackSize = buffer.readVarLong();
         final long countRequestable = buffer.readVarLong();
 
+        final AEItemStack item = fromDefinitionPacket(buffer);
+        if (item == null) {
+            return null;
+        }
+
+        item.setStackSize(stackSize);
+        item.setCountRequestable(countRequestable);
+        item.setCraftable(isCraftable);
+        return item;
+    }
+
+    /**
+     * Reads a stack written by {@link #writeDefinitionToPacket(PacketBuffer)}, with a size of 0.
+     */
+    @Nullable
+    public static AEItemStack fromDefinitionPacket(final PacketBuffer buffer) {
         // based on buffer.readItemStack()
         // Adapted to also handle forge capabilities
         ItemStack itemstack = ItemStack.EMPTY;
@@ -127,10 +143,7 @@ public static AEItemStack fromPacket(final PacketBuffer buffer) {
             return null;
         }
 
-        final AEItemStack item = new AEItemStack(AEItemStackRegistry.getRegisteredStack(itemstack), stackSize);
-        item.setCountRequestable(countRequestable);
-        item.setCraftable(isCraftable);
-        return item;
+        return new AEItemStack(AEItemStackRegistry.getRegisteredStack(itemstack), 0);
     }
 
     @Override
@@ -138,6 +151,13 @@ public void writeToPacket(final PacketBuffer buffer) {
         buffer.writeBoolean(this.isCraftable());
         buffer.writeVarLong(this.getStackSize());
         buffer.writeVarLong(this.getCountRequestable());
+        this.writeDefinitionToPacket(buffer);
+    }
+
+    /**
+     * Writes what kind of item this is, without any of the amounts.
+     */
+    public void writeDefinitionToPacket(final PacketBuffer buffer) {
         buffer.writeItemStack(getDefinition(), false);
 
         // Workaround to also serialize caps as writeItemStack will ignore these.
@@ -0,0 +1,215 @@
+package appeng.core.sync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.netty.buffer.Unpooled;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.registry.Bootstrap;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.item.AEItemStack;
+
+class ItemSyncSessionTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    /**
+     * Definitions written by the server, by the number written into the packet in their place.
+     */
+    private final List<IAEItemStack> definitions = new ArrayList<>();
+
+    /**
+     * Definitions the client does not know about, like items of a mod it doesn't have.
+     */
+    private final Set<Integer> unknownOnClient = new HashSet<>();
+
+    private final ItemSyncSession.DefinitionCodec codec = new ItemSyncSession.DefinitionCodec() {
+        @Override
+        public void write(PacketBuffer out, IAEItemStack type) {
+            out.writeVarInt(definitions.size());
+            definitions.add(type.copy());
+        }
+
+        @Override
+        public IAEItemStack read(PacketBuffer in) {
+            int index = in.readVarInt();
+            if (unknownOnClient.contains(index)) {
+                return null;
+            }
+
+            IAEItemStack type = definitions.get(index).copy();
+            type.setStackSize(0);
+            type.setCountRequestable(0);
+            type.setCraftable(false);
+            return type;
+        }
+    };
+
+    private final ItemSyncSession server = new ItemSyncSession(codec);
+    private final ItemSyncSession client = new ItemSyncSession(codec);
+    private final PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+
+    @Test
+    void testDeltaEncodingRoundTrips() {
+        long[] deltas = { 0, 1, -1, 2, -2, 63, -64, 64, -65, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE,
+                Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1 };
+
+        for (long delta : deltas) {
+            assertThat(ItemSyncSession.decodeDelta(ItemSyncSession.encodeDelta(delta))).isEqualTo(delta);
+        }
+    }
+
+    /**
+     * Small differences in either direction have to stay small numbers, otherwise they don't fit into a short var
+     * long.
+     */
+    @Test
+    void testDeltaEncodingInterleavesSigns() {
+        assertThat(ItemSyncSession.encodeDelta(0)).isEqualTo(0);
+        assertThat(ItemSyncSession.encodeDelta(-1)).isEqualTo(1);
+        assertThat(ItemSyncSession.encodeDelta(1)).isEqualTo(2);
+        assertThat(ItemSyncSession.encodeDelta(-2)).isEqualTo(3);
+        assertThat(ItemSyncSession.encodeDelta(2)).isEqualTo(4);
+        assertThat(ItemSyncSession.encodeDelta(Long.MIN_VALUE)).isEqualTo(-1);
+    }
+
+    @Test
+    void testAmountsRoundTripThroughPackets() {
+        IAEItemStack diamond = stack(Items.DIAMOND, 0, 0, false);
+        long[][] amounts = { { 5, 0 }, { 3, 0 }, { 3, 7 }, { Long.MAX_VALUE, 0 }, { 1, Long.MAX_VALUE }, { 1, 0 } };
+
+        for (long[] amount : amounts) {
+            assertThat(server.write(buffer, diamond, stack(Items.DIAMOND, amount[0], amount[1], false))).isTrue();
+
+            IAEItemStack received = client.read(buffer);
+            assertThat(received.getStackSize()).isEqualTo(amount[0]);
+            assertThat(received.getCountRequestable()).isEqualTo(amount[1]);
+            assertThat(buffer.isReadable()).isFalse();
+        }
+    }
+
+    @Test
+    void testOnlyTheFirstEntryOfATypeCarriesItsDefinition() {
+        IAEItemStack diamond = stack(Items.DIAMOND, 0, 0, false);
+
+        server.write(buffer, diamond, stack(Items.DIAMOND, 5, 0, false));
+        server.write(buffer, diamond, stack(Items.DIAMOND, 6, 0, true));
+        server.write(buffer, diamond, stack(Items.DIAMOND, 2, 0, false));
+
+        assertThat(definitions).hasSize(1);
+        assertAmount(client.read(buffer), Items.DIAMOND, 5, false);
+        assertAmount(client.read(buffer), Items.DIAMOND, 6, true);
+        assertAmount(client.read(buffer), Items.DIAMOND, 2, false);
+    }
+
+    /**
+     * Ids are never written along with a definition, both sides have to hand them out in the same order. Deltas for
+     * older types in between must not shift them.
+     */
+    @Test
+    void testIdsStayInStepAcrossDefinitionsAndDeltas() {
+        IAEItemStack diamond = stack(Items.DIAMOND, 0, 0, false);
+        IAEItemStack stone = stack(Items.STONE, 0, 0, false);
+        IAEItemStack dirt = stack(Items.DIRT, 0, 0, false);
+
+        server.write(buffer, diamond, stack(Items.DIAMOND, 1, 0, false));
+        server.write(buffer, stone, stack(Items.STONE, 2, 0, false));
+        server.write(buffer, diamond, stack(Items.DIAMOND, 10, 0, false));
+        server.write(buffer, dirt, stack(Items.DIRT, 3, 0, false));
+        server.write(buffer, stone, stack(Items.STONE, 20, 0, false));
+        server.write(buffer, dirt, stack(Items.DIRT, 30, 0, false));
+
+        assertAmount(client.read(buffer), Items.DIAMOND, 1, false);
+        assertAmount(client.read(buffer), Items.STONE, 2, false);
+        assertAmount(client.read(buffer), Items.DIAMOND, 10, false);
+        assertAmount(client.read(buffer), Items.DIRT, 3, false);
+        assertAmount(client.read(buffer), Items.STONE, 20, false);
+        assertAmount(client.read(buffer), Items.DIRT, 30, false);
+        assertThat(buffer.isReadable()).isFalse();
+    }
+
+    /**
+     * A definition the client can't read still takes up its id, so the types defined after it keep theirs.
+     */
+    @Test
+    void testUnknownDefinitionKeepsItsId() {
+        IAEItemStack diamond = stack(Items.DIAMOND, 0, 0, false);
+        IAEItemStack stone = stack(Items.STONE, 0, 0, false);
+        unknownOnClient.add(0);
+
+        server.write(buffer, diamond, stack(Items.DIAMOND, 1, 0, false));
+        server.write(buffer, stone, stack(Items.STONE, 2, 0, false));
+        server.write(buffer, diamond, stack(Items.DIAMOND, 3, 0, false));
+        server.write(buffer, stone, stack(Items.STONE, 4, 0, false));
+
+        assertThat(client.read(buffer)).isNull();
+        assertAmount(client.read(buffer), Items.STONE, 2, false);
+        assertThat(client.read(buffer)).isNull();
+        assertAmount(client.read(buffer), Items.STONE, 4, false);
+        assertThat(buffer.isReadable()).isFalse();
+    }
+
+    @Test
+    void testUnchangedStateIsNotWritten() {
+        IAEItemStack diamond = stack(Items.DIAMOND, 0, 0, false);
+
+        assertThat(server.write(buffer, diamond, stack(Items.DIAMOND, 5, 1, true))).isTrue();
+        int written = buffer.writerIndex();
+
+        assertThat(server.write(buffer, diamond, stack(Items.DIAMOND, 5, 1, true))).isFalse();
+        assertThat(buffer.writerIndex()).isEqualTo(written);
+    }
+
+    /**
+     * The client never heard of a type that is gone before it was sent, so there is nothing to tell it.
+     */
+    @Test
+    void testRemovalOfUnsentTypeIsNotWritten() {
+        assertThat(server.write(buffer, stack(Items.DIAMOND, 0, 0, false), null)).isFalse();
+        assertThat(buffer.isReadable()).isFalse();
+        assertThat(definitions).isEmpty();
+    }
+
+    @Test
+    void testRemovalIsSentAsDelta() {
+        IAEItemStack diamond = stack(Items.DIAMOND, 0, 0, false);
+
+        server.write(buffer, diamond, stack(Items.DIAMOND, 5, 2, true));
+        assertThat(server.write(buffer, diamond, null)).isTrue();
+
+        client.read(buffer);
+        IAEItemStack removed = client.read(buffer);
+        assertThat(removed.getStackSize()).isZero();
+        assertThat(removed.getCountRequestable()).isZero();
+        assertThat(removed.isCraftable()).isFalse();
+    }
+
+    private static void assertAmount(IAEItemStack received, Item item, long size, boolean craftable) {
+        assertThat(received.getItem()).isSameAs(item);
+        assertThat(received.getStackSize()).isEqualTo(size);
+        assertThat(received.isCraftable()).isEqualTo(craftable);
+    }
+
+    private static IAEItemStack stack(Item item, long size, long requestable, boolean craftable) {
+        AEItemStack is = AEItemStack.fromItemStack(new ItemStack(item));
+        is.setStackSize(size);
+        is.setCountRequestable(requestable);
+        is.setCraftable(craftable);
+        return is;
+    }
+}
@@ -0,0 +1,179 @@
+package appeng.me.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.util.registry.Bootstrap;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+class StorageSnapshotTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    private final StorageSnapshot<IAEItemStack> snapshot = new StorageSnapshot<>(ItemList::new);
+
+    /**
+     * The snapshot holds what the network stores. Craftable and requestable state, and whether a source could extract
+     * the items, are not part of it.
+     */
+    @Test
+    void testHoldsStoredAmountsOnly() {
+        IItemList<IAEItemStack> storage = new ItemList();
+        IAEItemStack craftable = stack(Items.DIAMOND, 5);
+        craftable.setCraftable(true);
+        craftable.setCountRequestable(3);
+        storage.add(craftable);
+        IAEItemStack onlyCraftable = stack(Items.STONE, 0);
+        onlyCraftable.setCraftable(true);
+        storage.add(onlyCraftable);
+
+        snapshot.reset(storage);
+        IItemList<IAEItemStack> copy = snapshot.get();
+
+        IAEItemStack diamond = copy.findPrecise(stack(Items.DIAMOND, 0));
+        assertThat(diamond.getStackSize()).isEqualTo(5);
+        assertThat(diamond.isCraftable()).isFalse();
+        assertThat(diamond.getCountRequestable()).isZero();
+        assertThat(copy.findPrecise(stack(Items.STONE, 0))).isNull();
+        assertThat(copy.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testUnchangedCopyIsShared() {
+        snapshot.reset(list(stack(Items.DIAMOND, 5)));
+
+        assertThat(snapshot.get()).isSameAs(snapshot.get());
+    }
+
+    @Test
+    void testHandedOutCopyIsNotChangedByDifferences() {
+        snapshot.reset(list(stack(Items.DIAMOND, 5)));
+        IItemList<IAEItemStack> before = snapshot.get();
+
+        snapshot.applyDifference(stack(Items.DIAMOND, 0), -2);
+        snapshot.applyDifference(stack(Items.STONE, 0), 7);
+        IItemList<IAEItemStack> after = snapshot.get();
+
+        assertThat(after).isNotSameAs(before);
+        assertThat(amounts(before)).containsExactlyInAnyOrder("diamond=5");
+        assertThat(amounts(after)).containsExactlyInAnyOrder("diamond=3", "stone=7");
+
+        snapshot.applyDifference(stack(Items.STONE, 0), 1);
+        assertThat(amounts(after)).containsExactlyInAnyOrder("diamond=3", "stone=7");
+        assertThat(amounts(snapshot.get())).containsExactlyInAnyOrder("diamond=3", "stone=8");
+    }
+
+    @Test
+    void testEmptiedStacksDisappear() {
+        snapshot.reset(list(stack(Items.DIAMOND, 5), stack(Items.STONE, 1)));
+
+        snapshot.applyDifference(stack(Items.DIAMOND, 0), -5);
+        IItemList<IAEItemStack> copy = snapshot.get();
+
+        assertThat(copy.findPrecise(stack(Items.DIAMOND, 0))).isNull();
+        assertThat(amounts(copy)).containsExactly("stone=1");
+        assertThat(copy.isEmpty()).isFalse();
+
+        snapshot.applyDifference(stack(Items.STONE, 0), -1);
+        assertThat(snapshot.get().isEmpty()).isTrue();
+    }
+
+    @Test
+    void testFuzzySearchSeesChanges() {
+        IAEItemStack newSword = sword(0);
+        IAEItemStack usedSword = sword(100);
+        snapshot.reset(list(newSword.copy().setStackSize(1)));
+
+        snapshot.applyDifference(newSword, -1);
+        snapshot.applyDifference(usedSword, 2);
+
+        List<IAEItemStack> matches = new ArrayList<>(
+                snapshot.get().findFuzzy(sword(50), FuzzyMode.IGNORE_ALL));
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0)).isEqualTo(usedSword);
+        assertThat(matches.get(0).getStackSize()).isEqualTo(2);
+    }
+
+    /**
+     * Once enough entries changed, the changes are merged into a new base without changing the content.
+     */
+    @Test
+    void testManyChangesKeepContent() {
+        snapshot.reset(list(stack(Items.DIAMOND, 5)));
+        Item[] items = { Items.STONE, Items.DIRT, Items.COBBLESTONE, Items.OAK_LOG, Items.IRON_INGOT };
+
+        for (int round = 0; round <= StorageSnapshot.MIN_OVERLAY_LIMIT; round++) {
+            snapshot.applyDifference(stack(items[round % items.length], 0), 1);
+            snapshot.applyDifference(stack(Items.DIAMOND, 0), round % 2 == 0 ? -1 : 1);
+            snapshot.get();
+        }
+
+        // plus some unique items, so the overlay exceeds its limit
+        for (int i = 0; i <= StorageSnapshot.MIN_OVERLAY_LIMIT; i++) {
+            snapshot.applyDifference(named(i), 1);
+        }
+
+        IItemList<IAEItemStack> copy = snapshot.get();
+        assertThat(copy.findPrecise(stack(Items.DIAMOND, 0)).getStackSize()).isEqualTo(4);
+        assertThat(copy.findPrecise(stack(Items.STONE, 0)).getStackSize()).isEqualTo(52);
+        assertThat(copy.findPrecise(named(17)).getStackSize()).isEqualTo(1);
+        assertThat(copy.size()).isEqualTo(1 + items.length + StorageSnapshot.MIN_OVERLAY_LIMIT + 1);
+    }
+
+    @Test
+    void testCopiesAreReadOnly() {
+        IItemList<IAEItemStack> copy = snapshot.get();
+
+        assertThrows(UnsupportedOperationException.class, () -> copy.add(stack(Items.DIAMOND, 1)));
+        assertThrows(UnsupportedOperationException.class, copy::resetStatus);
+    }
+
+    private static List<String> amounts(IItemList<IAEItemStack> list) {
+        List<String> amounts = new ArrayList<>();
+        for (IAEItemStack is : list) {
+            amounts.add(is.getItem().getRegistryName().getPath() + "=" + is.getStackSize());
+        }
+        return amounts;
+    }
+
+    private static IItemList<IAEItemStack> list(IAEItemStack... stacks) {
+        IItemList<IAEItemStack> list = new ItemList();
+        for (IAEItemStack stack : stacks) {
+            list.add(stack);
+        }
+        return list;
+    }
+
+    private static IAEItemStack stack(Item item, long size) {
+        return AEItemStack.fromItemStack(new ItemStack(item)).setStackSize(size);
+    }
+
+    private static IAEItemStack named(int i) {
+        ItemStack is = new ItemStack(Items.PAPER);
+        is.getOrCreateTag().putInt("n", i);
+        return AEItemStack.fromItemStack(is).setStackSize(0);
+    }
+
+    private static IAEItemStack sword(int damage) {
+        ItemStack is = new ItemStack(Items.DIAMOND_SWORD);
+        is.setDamage(damage);
+        return AEItemStack.fromItemStack(is).setStackSize(0);
+    }
+}
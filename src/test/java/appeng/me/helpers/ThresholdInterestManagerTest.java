@@ -0,0 +1,121 @@
+package appeng.me.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.util.registry.Bootstrap;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.item.AEItemStack;
+
+class ThresholdInterestManagerTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    private final ThresholdInterestManager<String> manager = new ThresholdInterestManager<>();
+    private final IAEItemStack diamond = AEItemStack.fromItemStack(new ItemStack(Items.DIAMOND));
+    private final IAEItemStack stone = AEItemStack.fromItemStack(new ItemStack(Items.STONE));
+
+    /**
+     * An interest with a threshold of 10 cares whether there are at least 10 items, so it wants to hear about the
+     * amount reaching 10 or dropping from 10 below it.
+     */
+    @Test
+    void testReachingTheThresholdIsACrossing() {
+        manager.put(diamond, "ten", 10);
+
+        assertThat(collect(diamond, 9, 10)).containsExactly("ten");
+        assertThat(collect(diamond, 10, 9)).containsExactly("ten");
+    }
+
+    @Test
+    void testLeavingTheThresholdUpwardsIsNoCrossing() {
+        manager.put(diamond, "ten", 10);
+
+        assertThat(collect(diamond, 10, 11)).isEmpty();
+        assertThat(collect(diamond, 11, 10)).isEmpty();
+    }
+
+    @Test
+    void testChangesOnOneSideAreNoCrossing() {
+        manager.put(diamond, "ten", 10);
+
+        assertThat(collect(diamond, 0, 9)).isEmpty();
+        assertThat(collect(diamond, 11, 1000)).isEmpty();
+        assertThat(collect(diamond, 1000, 11)).isEmpty();
+    }
+
+    @Test
+    void testJumpingOverThresholdsCollectsAllOfThem() {
+        manager.put(diamond, "five", 5);
+        manager.put(diamond, "ten", 10);
+        manager.put(diamond, "fifteen", 15);
+        manager.put(diamond, "twenty", 20);
+
+        assertThat(collect(diamond, 5, 15)).containsExactlyInAnyOrder("ten", "fifteen");
+        assertThat(collect(diamond, 15, 5)).containsExactlyInAnyOrder("ten", "fifteen");
+        assertThat(collect(diamond, 0, 100)).containsExactlyInAnyOrder("five", "ten", "fifteen", "twenty");
+    }
+
+    @Test
+    void testInterestsWithoutThresholdHearEveryChange() {
+        manager.put(diamond, "always", ThresholdInterestManager.NO_THRESHOLD);
+        manager.put(diamond, "ten", 10);
+
+        assertThat(collect(diamond, 11, 12)).containsExactly("always");
+        assertThat(collect(diamond, 9, 10)).containsExactlyInAnyOrder("always", "ten");
+    }
+
+    @Test
+    void testNoChangeIsNoCrossing() {
+        manager.put(diamond, "ten", 10);
+
+        assertThat(collect(diamond, 10, 10)).isEmpty();
+    }
+
+    @Test
+    void testOnlyInterestsInTheChangedStackAreCollected() {
+        manager.put(diamond, "diamond", 10);
+        manager.put(stone, "stone", 10);
+
+        assertThat(collect(diamond, 0, 20)).containsExactly("diamond");
+    }
+
+    @Test
+    void testRemovedInterestIsNotCollected() {
+        manager.put(diamond, "ten", 10);
+        manager.put(diamond, "other ten", 10);
+
+        assertThat(manager.remove(diamond, "ten")).isTrue();
+        assertThat(collect(diamond, 0, 20)).containsExactly("other ten");
+
+        assertThat(manager.remove(diamond, "other ten")).isTrue();
+        assertThat(manager.containsKey(diamond)).isFalse();
+    }
+
+    @Test
+    void testTransactionsApplyOnceDisabled() {
+        manager.enableTransactions();
+        manager.put(diamond, "ten", 10);
+        assertThat(collect(diamond, 0, 20)).isEmpty();
+
+        manager.disableTransactions();
+        assertThat(collect(diamond, 0, 20)).containsExactly("ten");
+    }
+
+    private List<String> collect(IAEItemStack stack, long before, long after) {
+        List<String> out = new ArrayList<>();
+        manager.collect(stack, before, after, out);
+        return out;
+    }
+}
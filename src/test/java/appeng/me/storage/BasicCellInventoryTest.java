@@ -0,0 +1,386 @@
+package appeng.me.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraftforge.items.IItemHandler;
+
+import appeng.api.config.Actionable;
+import appeng.api.config.FuzzyMode;
+import appeng.api.implementations.items.IStorageCell;
+import appeng.api.storage.IStorageChannel;
+import appeng.api.storage.cells.ICellInventory;
+import appeng.api.storage.channels.IItemStorageChannel;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.helpers.BaseActionSource;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+/**
+ * Checks that the slot bookkeeping of {@link AbstractCellInventory} writes exactly what the cell holds, so nothing is
+ * lost or duplicated when the cell is loaded again.
+ */
+class BasicCellInventoryTest {
+
+    private static final Item[] ITEMS = { Items.DIAMOND, Items.STONE, Items.DIRT, Items.COBBLESTONE, Items.OAK_LOG,
+            Items.IRON_INGOT, Items.GOLD_INGOT, Items.REDSTONE };
+
+    private static TestStorageCell cellItem;
+
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+        cellItem = new TestStorageCell();
+    }
+
+    private ItemStack cell;
+    private int saveRequests;
+    private ICellInventory<IAEItemStack> inv;
+
+    @BeforeEach
+    void createCell() {
+        this.cell = new ItemStack(cellItem);
+        this.inv = this.load();
+    }
+
+    @Test
+    void testInjectedItemsAreWrittenToDenseSlots() {
+        inject(Items.DIAMOND, 5);
+        inject(Items.STONE, 7);
+        inject(Items.DIRT, 9);
+        assertThat(this.saveRequests).isEqualTo(3);
+
+        inv.persist();
+
+        CompoundNBT tag = cell.getTag();
+        assertThat(tag.getShort("it")).isEqualTo((short) 3);
+        assertThat(tag.getInt("ic")).isEqualTo(21);
+        assertThat(slots(tag)).containsOnly(entry(Items.DIAMOND, 5), entry(Items.STONE, 7), entry(Items.DIRT, 9));
+        assertThat(contents(load())).containsOnly(entry(Items.DIAMOND, 5), entry(Items.STONE, 7),
+                entry(Items.DIRT, 9));
+    }
+
+    /**
+     * Extracting the item of a middle slot moves the last item into it and removes the last slot from the NBT data.
+     */
+    @Test
+    void testExtractingMiddleSlotMovesLastSlotIntoIt() {
+        inject(Items.DIAMOND, 5);
+        inject(Items.STONE, 7);
+        inject(Items.DIRT, 9);
+        inv.persist();
+
+        extract(Items.STONE, 7);
+        inv.persist();
+
+        CompoundNBT tag = cell.getTag();
+        assertThat(tag.getShort("it")).isEqualTo((short) 2);
+        assertThat(tag.getInt("ic")).isEqualTo(14);
+        assertThat(tag.contains("#2")).isFalse();
+        assertThat(tag.contains("@2")).isFalse();
+        assertThat(slots(tag)).containsOnly(entry(Items.DIAMOND, 5), entry(Items.DIRT, 9));
+        assertThat(contents(load())).containsOnly(entry(Items.DIAMOND, 5), entry(Items.DIRT, 9));
+    }
+
+    /**
+     * A slot whose count changed only gets its count rewritten, the item definition written earlier stays.
+     */
+    @Test
+    void testCountChangeOnlyRewritesCount() {
+        inject(Items.DIAMOND, 5);
+        inject(Items.STONE, 7);
+        inv.persist();
+
+        CompoundNBT tag = cell.getTag();
+        CompoundNBT stoneDefinition = tag.getCompound(slotOf(tag, Items.STONE));
+        inject(Items.STONE, 3);
+        extract(Items.DIAMOND, 2);
+        inv.persist();
+
+        assertThat(tag.getCompound(slotOf(tag, Items.STONE))).isSameAs(stoneDefinition);
+        assertThat(tag.getInt("ic")).isEqualTo(13);
+        assertThat(slots(tag)).containsOnly(entry(Items.DIAMOND, 3), entry(Items.STONE, 10));
+        assertThat(contents(load())).containsOnly(entry(Items.DIAMOND, 3), entry(Items.STONE, 10));
+    }
+
+    /**
+     * Items that are emptied and filled again before the cell is persisted end up in the slot they are in by then.
+     */
+    @Test
+    void testRemovedAndAddedAgainBeforePersist() {
+        inject(Items.DIAMOND, 5);
+        inject(Items.STONE, 7);
+        inject(Items.DIRT, 9);
+        inv.persist();
+
+        extract(Items.DIAMOND, 5);
+        extract(Items.DIRT, 9);
+        inject(Items.DIAMOND, 1);
+        inject(Items.REDSTONE, 4);
+        inv.persist();
+
+        CompoundNBT tag = cell.getTag();
+        assertThat(tag.getShort("it")).isEqualTo((short) 3);
+        assertThat(slots(tag)).containsOnly(entry(Items.DIAMOND, 1), entry(Items.STONE, 7),
+                entry(Items.REDSTONE, 4));
+        assertThat(contents(load())).containsOnly(entry(Items.DIAMOND, 1), entry(Items.STONE, 7),
+                entry(Items.REDSTONE, 4));
+    }
+
+    @Test
+    void testEmptyingTheCellRemovesAllSlots() {
+        inject(Items.DIAMOND, 5);
+        inject(Items.STONE, 7);
+        inv.persist();
+
+        extract(Items.STONE, 7);
+        extract(Items.DIAMOND, 5);
+        inv.persist();
+
+        CompoundNBT tag = cell.getTag();
+        assertThat(tag.contains("it")).isFalse();
+        assertThat(tag.contains("ic")).isFalse();
+        assertThat(slots(tag)).isEmpty();
+        assertThat(load().getAvailableItems(new ItemList()).isEmpty()).isTrue();
+    }
+
+    /**
+     * A loaded cell may assign its slots in a different order than the NBT data has them. Changing it afterwards must
+     * not lose or duplicate any item.
+     */
+    @Test
+    void testChangesAfterReload() {
+        for (int i = 0; i < ITEMS.length; i++) {
+            inject(ITEMS[i], i + 1);
+        }
+        inv.persist();
+
+        inv = load();
+        extract(ITEMS[2], 3);
+        extract(ITEMS[0], 1);
+        inject(ITEMS[5], 10);
+        inv.persist();
+
+        Map<Item, Long> expected = new HashMap<>();
+        for (int i = 0; i < ITEMS.length; i++) {
+            expected.put(ITEMS[i], (long) i + 1);
+        }
+        expected.remove(ITEMS[2]);
+        expected.remove(ITEMS[0]);
+        expected.put(ITEMS[5], 16L);
+
+        assertThat(slots(cell.getTag())).isEqualTo(expected);
+        assertThat(contents(load())).isEqualTo(expected);
+    }
+
+    /**
+     * Random injections and extractions, persisted at random points, always reload to what the cell held.
+     */
+    @Test
+    void testRandomChangesSurviveReload() {
+        Random random = new Random(42);
+        Map<Item, Long> expected = new HashMap<>();
+
+        for (int round = 0; round < 2000; round++) {
+            Item item = ITEMS[random.nextInt(ITEMS.length)];
+            long stored = expected.getOrDefault(item, 0L);
+
+            if (stored > 0 && random.nextBoolean()) {
+                long amount = 1 + random.nextInt((int) stored);
+                extract(item, amount);
+                stored -= amount;
+            } else {
+                long amount = 1 + random.nextInt(20);
+                inject(item, amount);
+                stored += amount;
+            }
+
+            if (stored == 0) {
+                expected.remove(item);
+            } else {
+                expected.put(item, stored);
+            }
+
+            if (random.nextInt(5) == 0) {
+                inv.persist();
+                assertThat(slots(cell.getTag())).isEqualTo(expected);
+                assertThat(contents(load())).isEqualTo(expected);
+            }
+
+            if (random.nextInt(50) == 0) {
+                inv.persist();
+                inv = load();
+            }
+        }
+    }
+
+    private ICellInventory<IAEItemStack> load() {
+        return BasicCellInventory.createInventory(this.cell, cellInventory -> this.saveRequests++);
+    }
+
+    private void inject(Item item, long amount) {
+        assertThat(inv.injectItems(stack(item, amount), Actionable.MODULATE, new BaseActionSource())).isNull();
+    }
+
+    private void extract(Item item, long amount) {
+        IAEItemStack extracted = inv.extractItems(stack(item, amount), Actionable.MODULATE, new BaseActionSource());
+        assertThat(extracted.getStackSize()).isEqualTo(amount);
+    }
+
+    private static IAEItemStack stack(Item item, long amount) {
+        return AEItemStack.fromItemStack(new ItemStack(item)).setStackSize(amount);
+    }
+
+    private static Map.Entry<Item, Long> entry(Item item, long amount) {
+        return new AbstractMap.SimpleEntry<>(item, amount);
+    }
+
+    private static Map<Item, Long> contents(ICellInventory<IAEItemStack> inv) {
+        Map<Item, Long> contents = new HashMap<>();
+        for (IAEItemStack is : inv.getAvailableItems(new ItemList())) {
+            assertThat(contents.put(is.getItem(), is.getStackSize())).isNull();
+        }
+        assertThat(inv.getStoredItemTypes()).isEqualTo((long) contents.size());
+        assertThat(inv.getStoredItemCount()).isEqualTo(contents.values().stream().mapToLong(Long::longValue).sum());
+        return contents;
+    }
+
+    /**
+     * @return the items and counts written to the slots of the given cell tag, checking that the slots are dense
+     */
+    private static Map<Item, Long> slots(CompoundNBT tag) {
+        Map<Item, Long> slots = new HashMap<>();
+        int types = tag.getShort("it");
+
+        for (int x = 0; x < 63; x++) {
+            assertThat(tag.contains("#" + x)).isEqualTo(x < types);
+            assertThat(tag.contains("@" + x)).isEqualTo(x < types);
+            if (x < types) {
+                Item item = AEItemStack.fromNBT(tag.getCompound("#" + x)).getItem();
+                assertThat(slots.put(item, (long) tag.getInt("@" + x))).isNull();
+            }
+        }
+
+        return slots;
+    }
+
+    private static String slotOf(CompoundNBT tag, Item item) {
+        for (int x = 0; x < tag.getShort("it"); x++) {
+            if (AEItemStack.fromNBT(tag.getCompound("#" + x)).getItem() == item) {
+                return "#" + x;
+            }
+        }
+        throw new AssertionError(item + " is not stored");
+    }
+
+    private static class TestStorageCell extends Item implements IStorageCell<IAEItemStack> {
+        private static final IItemStorageChannel CHANNEL = new IItemStorageChannel() {
+            @Override
+            public IItemList<IAEItemStack> createList() {
+                return new ItemList();
+            }
+
+            @Override
+            public IAEItemStack createStack(@Nonnull Object input) {
+                return AEItemStack.fromItemStack((ItemStack) input);
+            }
+
+            @Override
+            public IAEItemStack readFromPacket(@Nonnull PacketBuffer input) {
+                return AEItemStack.fromPacket(input);
+            }
+
+            @Override
+            public IAEItemStack createFromNBT(@Nonnull CompoundNBT nbt) {
+                return AEItemStack.fromNBT(nbt);
+            }
+        };
+
+        TestStorageCell() {
+            super(new Properties());
+            setRegistryName("appliedenergistics2:test_storage_cell");
+        }
+
+        @Override
+        public int getBytes(@Nonnull ItemStack cellItem) {
+            return 65536;
+        }
+
+        @Override
+        public int getBytesPerType(@Nonnull ItemStack cellItem) {
+            return 8;
+        }
+
+        @Override
+        public int getTotalTypes(@Nonnull ItemStack cellItem) {
+            return 63;
+        }
+
+        @Override
+        public boolean isBlackListed(@Nonnull ItemStack cellItem, @Nonnull IAEItemStack requestedAddition) {
+            return false;
+        }
+
+        @Override
+        public boolean storableInStorageCell() {
+            return false;
+        }
+
+        @Override
+        public boolean isStorageCell(@Nonnull ItemStack i) {
+            return true;
+        }
+
+        @Override
+        public double getIdleDrain() {
+            return 0;
+        }
+
+        @Nonnull
+        @Override
+        public IStorageChannel<IAEItemStack> getChannel() {
+            return CHANNEL;
+        }
+
+        @Override
+        public boolean isEditable(ItemStack is) {
+            return false;
+        }
+
+        @Override
+        public IItemHandler getUpgradesInventory(ItemStack is) {
+            return null;
+        }
+
+        @Override
+        public IItemHandler getConfigInventory(ItemStack is) {
+            return null;
+        }
+
+        @Override
+        public FuzzyMode getFuzzyMode(ItemStack is) {
+            return FuzzyMode.IGNORE_ALL;
+        }
+
+        @Override
+        public void setFuzzyMode(ItemStack is, FuzzyMode fzMode) {
+        }
+    }
+}
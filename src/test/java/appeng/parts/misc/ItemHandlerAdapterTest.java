@@ -0,0 +1,165 @@
+package appeng.parts.misc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraftforge.items.ItemStackHandler;
+
+import appeng.api.networking.security.IActionSource;
+import appeng.api.networking.storage.IBaseMonitor;
+import appeng.api.networking.ticking.TickRateModulation;
+import appeng.api.storage.IMEMonitorHandlerReceiver;
+import appeng.api.storage.ISlotChangeJournal;
+import appeng.api.storage.data.IAEItemStack;
+
+/**
+ * Checks that changes to large inventories are reported by the storage bus within a bounded number of ticks, with and
+ * without a {@link ISlotChangeJournal}.
+ */
+class ItemHandlerAdapterTest {
+
+    private static final int SLOTS = 1000;
+    private static final int SCAN_BUDGET = 256;
+
+    private final ItemStackHandler inventory = new ItemStackHandler(SLOTS);
+    private final List<IAEItemStack> reported = new ArrayList<>();
+
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    @Test
+    void testChangeInLargeInventoryIsReportedWithinOnePass() {
+        final ItemHandlerAdapter adapter = this.createAdapter(null);
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.SLOWER);
+
+        this.inventory.setStackInSlot(SLOTS - 1, new ItemStack(Items.DIAMOND, 3));
+
+        final int passTicks = (SLOTS + SCAN_BUDGET - 1) / SCAN_BUDGET;
+        for (int tick = 1; tick < passTicks; tick++) {
+            assertThat(adapter.onTick()).isEqualTo(TickRateModulation.SAME);
+            assertThat(this.reported).isEmpty();
+        }
+
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.URGENT);
+        assertThat(this.reported).hasSize(1);
+        assertThat(this.reported.get(0).isSameType(new ItemStack(Items.DIAMOND))).isTrue();
+        assertThat(this.reported.get(0).getStackSize()).isEqualTo(3);
+
+        // the next pass starts over at the first slot and finds nothing new
+        this.reported.clear();
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.SAME);
+        assertThat(this.reported).isEmpty();
+    }
+
+    @Test
+    void testChangeAtCursorIsReportedOnNextTick() {
+        final ItemHandlerAdapter adapter = this.createAdapter(null);
+        adapter.onTick();
+
+        this.inventory.setStackInSlot(0, new ItemStack(Items.STONE, 5));
+
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.URGENT);
+        assertThat(this.reported).hasSize(1);
+        assertThat(this.reported.get(0).getStackSize()).isEqualTo(5);
+    }
+
+    @Test
+    void testJournaledChangeIsReportedOnNextTick() {
+        final TestJournal journal = new TestJournal();
+        final ItemHandlerAdapter adapter = this.createAdapter(journal);
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.SLOWER);
+
+        this.inventory.setStackInSlot(SLOTS - 1, new ItemStack(Items.DIAMOND, 3));
+        journal.changed(SLOTS - 1);
+
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.URGENT);
+        assertThat(this.reported).hasSize(1);
+        assertThat(this.reported.get(0).getStackSize()).isEqualTo(3);
+
+        // nothing else is scanned, so there is no pass to finish
+        this.reported.clear();
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.SLOWER);
+        assertThat(this.reported).isEmpty();
+    }
+
+    @Test
+    void testLostJournalChecksEverySlot() {
+        final TestJournal journal = new TestJournal();
+        final ItemHandlerAdapter adapter = this.createAdapter(journal);
+        adapter.onTick();
+
+        this.inventory.setStackInSlot(SLOTS / 2, new ItemStack(Items.DIRT, 7));
+        journal.forget();
+
+        assertThat(adapter.onTick()).isEqualTo(TickRateModulation.URGENT);
+        assertThat(this.reported).hasSize(1);
+        assertThat(this.reported.get(0).getStackSize()).isEqualTo(7);
+    }
+
+    private ItemHandlerAdapter createAdapter(ISlotChangeJournal journal) {
+        // the grid proxy is only used when items are inserted or extracted through the adapter
+        final ItemHandlerAdapter adapter = new ItemHandlerAdapter(this.inventory, journal, null);
+        adapter.addListener(new IMEMonitorHandlerReceiver<IAEItemStack>() {
+            @Override
+            public boolean isValid(Object verificationToken) {
+                return true;
+            }
+
+            @Override
+            public void postChange(IBaseMonitor<IAEItemStack> monitor, Iterable<IAEItemStack> change,
+                    IActionSource actionSource) {
+                change.forEach(ItemHandlerAdapterTest.this.reported::add);
+            }
+
+            @Override
+            public void onListUpdate() {
+            }
+        }, null);
+        return adapter;
+    }
+
+    private static class TestJournal implements ISlotChangeJournal {
+        private final BitSet changed = new BitSet();
+        private long version = 0;
+        private long forgottenBefore = 0;
+
+        void changed(int slot) {
+            this.changed.set(slot);
+            this.version++;
+        }
+
+        void forget() {
+            this.changed.clear();
+            this.version++;
+            this.forgottenBefore = this.version;
+        }
+
+        @Override
+        public long getChangeVersion() {
+            return this.version;
+        }
+
+        @Override
+        public boolean getChangedSlots(long sinceVersion, IntConsumer slots) {
+            if (sinceVersion < this.forgottenBefore) {
+                return false;
+            }
+
+            this.changed.stream().forEach(slots);
+            this.changed.clear();
+            return true;
+        }
+    }
+}
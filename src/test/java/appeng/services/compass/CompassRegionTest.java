@@ -0,0 +1,130 @@
+package appeng.services.compass;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.nbt.CompoundNBT;
+
+class CompassRegionTest {
+
+    private static final int REGION_SIZE = 0x400;
+    private static final int BLOCK_LENGTH = CompassRegion.BLOCK_SIZE * CompassRegion.BLOCK_SIZE;
+
+    /**
+     * Regions used to be saved as one bitmap covering all chunks, indexed by x + z * 1024.
+     */
+    @Test
+    void testLoadsOldFormat() {
+        byte[] bitmap = new byte[REGION_SIZE * REGION_SIZE];
+        bitmap[0] = 1;
+        bitmap[33 + 2 * REGION_SIZE] = 4;
+        bitmap[1023 + 1023 * REGION_SIZE] = (byte) 0x80;
+
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putByteArray("b", bitmap);
+        CompassRegion.SaveData data = load(nbt);
+
+        assertThat(data.get(0, 0)).isEqualTo(1);
+        assertThat(data.get(33, 2)).isEqualTo(4);
+        assertThat(data.get(1023, 1023) & 0xFF).isEqualTo(0x80);
+        assertThat(data.get(1, 0)).isZero();
+        assertThat(data.get(2, 33)).isZero();
+
+        assertThat(data.hasBlock(0, 0)).isTrue();
+        assertThat(data.hasBlock(32, 0)).isTrue();
+        assertThat(data.hasBlock(1000, 1000)).isTrue();
+        assertThat(data.hasBlock(0, 32)).isFalse();
+        assertThat(data.hasBlock(500, 500)).isFalse();
+    }
+
+    @Test
+    void testRejectsOldFormatOfWrongLength() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putByteArray("b", new byte[100]);
+
+        assertThrows(IllegalStateException.class, () -> load(nbt));
+    }
+
+    @Test
+    void testLoadsNewFormat() {
+        byte[] bitmaps = new byte[2 * BLOCK_LENGTH];
+        // block 1 is x 32..63, z 0..31
+        bitmaps[5 + 3 * CompassRegion.BLOCK_SIZE] = 2;
+        // block 33 is x 32..63, z 32..63
+        bitmaps[BLOCK_LENGTH] = 8;
+
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putIntArray("blocks", new int[] { 1, 33 });
+        nbt.putByteArray("bitmaps", bitmaps);
+        CompassRegion.SaveData data = load(nbt);
+
+        assertThat(data.get(37, 3)).isEqualTo(2);
+        assertThat(data.get(32, 32)).isEqualTo(8);
+        assertThat(data.get(5, 3)).isZero();
+
+        assertThat(data.hasBlock(32, 0)).isTrue();
+        assertThat(data.hasBlock(63, 63)).isTrue();
+        assertThat(data.hasBlock(0, 0)).isFalse();
+    }
+
+    /**
+     * Blocks without any skystone are not kept, even if a save contains them.
+     */
+    @Test
+    void testSkipsEmptyBlocks() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putIntArray("blocks", new int[] { 7 });
+        nbt.putByteArray("bitmaps", new byte[BLOCK_LENGTH]);
+        CompassRegion.SaveData data = load(nbt);
+
+        assertThat(data.hasBlock(7 * CompassRegion.BLOCK_SIZE, 0)).isFalse();
+    }
+
+    @Test
+    void testRejectsNewFormatOfWrongLength() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putIntArray("blocks", new int[] { 1, 2 });
+        nbt.putByteArray("bitmaps", new byte[BLOCK_LENGTH]);
+
+        assertThrows(IllegalStateException.class, () -> load(nbt));
+    }
+
+    @Test
+    void testLoadsEmptyRegion() {
+        CompassRegion.SaveData data = load(new CompoundNBT());
+
+        assertThat(data.hasBlock(0, 0)).isFalse();
+        assertThat(data.get(0, 0)).isZero();
+    }
+
+    /**
+     * Regions in the old format are written back in the new one, with the same content.
+     */
+    @Test
+    void testOldFormatIsSavedInNewFormat() {
+        byte[] bitmap = new byte[REGION_SIZE * REGION_SIZE];
+        bitmap[40 + 900 * REGION_SIZE] = 3;
+        bitmap[41 + 901 * REGION_SIZE] = 16;
+
+        CompoundNBT old = new CompoundNBT();
+        old.putByteArray("b", bitmap);
+        CompoundNBT saved = load(old).write(new CompoundNBT());
+
+        assertThat(saved.contains("b")).isFalse();
+        assertThat(saved.getIntArray("blocks")).hasSize(1);
+        assertThat(saved.getByteArray("bitmaps")).hasSize(BLOCK_LENGTH);
+
+        CompassRegion.SaveData reloaded = load(saved);
+        assertThat(reloaded.get(40, 900)).isEqualTo(3);
+        assertThat(reloaded.get(41, 901)).isEqualTo(16);
+        assertThat(reloaded.get(42, 902)).isZero();
+    }
+
+    private static CompassRegion.SaveData load(CompoundNBT nbt) {
+        CompassRegion.SaveData data = new CompassRegion.SaveData("0_0");
+        data.read(nbt);
+        return data;
+    }
+}